@@ -5,12 +5,19 @@ import static com.google.common.collect.Iterables.filter;
 import static com.google.common.collect.Iterables.transform;
 import static java.util.Arrays.asList;
 
+import java.util.List;
+
+import org.eclipse.editor.editor.State;
+import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.ecore.resource.Resource;
 import org.eclipse.graphiti.features.IReason;
 import org.eclipse.graphiti.features.impl.Reason;
 import org.eclipse.graphiti.mm.pictograms.Diagram;
+import org.eclipse.graphiti.mm.pictograms.PictogramElement;
+import org.eclipse.graphiti.services.Graphiti;
 
 import com.google.common.base.Function;
+import com.google.common.collect.Lists;
 
 public class EditorUtil {
 
@@ -18,6 +25,22 @@ public class EditorUtil {
 		return transform(filter(asList(resource.getContents().toArray()), instanceOf(Diagram.class)), castToDiagram());
 	}
 
+	/**
+	 * The states linked to the shapes of the diagram, in the order of the
+	 * shapes.
+	 */
+	public static List<EObject> getStates(Diagram diagram) {
+		List<EObject> states = Lists.newArrayList();
+		for (PictogramElement pe : diagram.getChildren()) {
+			for (EObject bo : Graphiti.getLinkService().getAllBusinessObjectsForLinkedPictogramElement(pe)) {
+				if (bo instanceof State) {
+					states.add(bo);
+				}
+			}
+		}
+		return states;
+	}
+
 	private static Function<Object, Diagram> castToDiagram() {
 		return new Function<Object, Diagram>() {
 			@Override
@@ -5,6 +5,7 @@ import static org.eclipse.editor.Log.withLogging;
 import org.eclipse.editor.editor.Connector;
 import org.eclipse.editor.editor.Edge;
 import org.eclipse.editor.editor.State;
+import org.eclipse.editor.features.BulkExportXMLFeature;
 import org.eclipse.editor.features.ExportXMLFeature;
 import org.eclipse.editor.features.connector.AddConnectorFeature;
 import org.eclipse.editor.features.connector.CreateConnectorFeature;
@@ -82,6 +83,7 @@ public class FeatureProvider extends DefaultFeatureProvider {
 
 	@Override
 	public ICustomFeature[] getCustomFeatures(ICustomContext context) {
-		return new ICustomFeature[] { withLogging(ICustomFeature.class, new DrillDownFeature(this)), withLogging(ICustomFeature.class, new ExportXMLFeature(this)) };
+		return new ICustomFeature[] { withLogging(ICustomFeature.class, new DrillDownFeature(this)), withLogging(ICustomFeature.class, new ExportXMLFeature(this)),
+				withLogging(ICustomFeature.class, new BulkExportXMLFeature(this)) };
 	}
 }
@@ -0,0 +1,115 @@
+package org.eclipse.editor.features;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.log4j.Logger;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceVisitor;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.jobs.IJobChangeEvent;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.core.runtime.jobs.JobChangeAdapter;
+import org.eclipse.editor.Log;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.graphiti.features.IFeatureProvider;
+import org.eclipse.graphiti.features.context.ICustomContext;
+import org.eclipse.graphiti.features.custom.AbstractCustomFeature;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Exports all diagrams of the project the current diagram belongs to, one
+ * {@link ExportDiagramsJob} per .diagram file. The jobs run in parallel in
+ * the background and report to one progress group, which cancels them all.
+ * <p>
+ * The files are exported as saved on disk.
+ */
+public class BulkExportXMLFeature extends AbstractCustomFeature {
+	private static Logger log = Log.getLogger();
+
+	private static final String DIAGRAM_EXTENSION = "diagram";
+
+	public BulkExportXMLFeature(IFeatureProvider fp) {
+		super(fp);
+	}
+
+	@Override
+	public String getName() {
+		return "Export all diagrams as Huppaal XML";
+	}
+
+	@Override
+	public String getDescription() {
+		return "Export every diagram of the project as Huppaal XML, in the background";
+	}
+
+	@Override
+	public boolean canExecute(ICustomContext context) {
+		return getProject() != null;
+	}
+
+	@Override
+	public void execute(ICustomContext context) {
+		IProject project = getProject();
+		List<IFile> files;
+		try {
+			files = getDiagramFiles(project);
+		} catch (CoreException e) {
+			log.error("Unable to list diagrams: " + e.getMessage(), e);
+			return;
+		}
+		log.info("Exporting " + files.size() + " diagram files of " + project.getName());
+
+		final IProgressMonitor group = Job.getJobManager().createProgressGroup();
+		group.beginTask("Exporting diagrams of " + project.getName(), files.size());
+
+		final AtomicInteger running = new AtomicInteger(files.size());
+		for (IFile file : files) {
+			Job job = new ExportDiagramsJob(file);
+			job.setProgressGroup(group, 1);
+			job.addJobChangeListener(new JobChangeAdapter() {
+				@Override
+				public void done(IJobChangeEvent event) {
+					if (running.decrementAndGet() == 0) {
+						group.done();
+						log.info("Export done");
+					}
+				}
+			});
+			job.schedule();
+		}
+
+		if (files.isEmpty()) {
+			group.done();
+		}
+	}
+
+	private IProject getProject() {
+		URI uri = getDiagram().eResource().getURI();
+		if (!uri.isPlatformResource()) {
+			return null;
+		}
+
+		return ResourcesPlugin.getWorkspace().getRoot().getFile(new Path(uri.toPlatformString(true))).getProject();
+	}
+
+	private List<IFile> getDiagramFiles(IProject project) throws CoreException {
+		final List<IFile> files = Lists.newArrayList();
+		project.accept(new IResourceVisitor() {
+			@Override
+			public boolean visit(IResource resource) {
+				if (resource.getType() == IResource.FILE && DIAGRAM_EXTENSION.equals(resource.getFileExtension())) {
+					files.add((IFile) resource);
+				}
+				return true;
+			}
+		});
+		return files;
+	}
+}
@@ -0,0 +1,143 @@
+package org.eclipse.editor.features;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+import javax.xml.bind.JAXBException;
+
+import org.apache.log4j.Logger;
+import org.eclipse.core.resources.IContainer;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.IWorkspaceRunnable;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.editor.Activator;
+import org.eclipse.editor.EditorUtil;
+import org.eclipse.editor.Log;
+import org.eclipse.editor.editor.State;
+import org.eclipse.editor.huppaal.HtaGenerator;
+import org.eclipse.editor.huppaal.XmlSerializer;
+import org.eclipse.editor.huppaal.model.Hta;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
+import org.eclipse.graphiti.mm.pictograms.Diagram;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Exports every diagram of one .diagram file that has an initial state (i.e.
+ * not the subdiagrams, which are exported with it) next to the file, see
+ * {@link #targetName(String, int)}.
+ * <p>
+ * The file is loaded (as saved) into a resource set of its own, so jobs for
+ * different files can run in parallel. The job has no scheduling rule: a
+ * diagram is generated and serialized in memory, and only writing the target
+ * through the workspace holds the rule of the folder. Cancellation is checked
+ * between diagrams.
+ */
+public class ExportDiagramsJob extends Job {
+	private static Logger log = Log.getLogger();
+
+	private final IFile file;
+
+	public ExportDiagramsJob(IFile file) {
+		super("Export " + file.getFullPath());
+		this.file = file;
+	}
+
+	/**
+	 * The name of the <code>index</code>-th exported diagram (from 0) of the
+	 * file: <code>&lt;file&gt;.xml</code> for the first,
+	 * <code>&lt;file&gt;.&lt;index + 1&gt;.xml</code> for the others. Since the
+	 * file name ends with <code>.diagram</code>, no two (file, index) pairs get
+	 * the same name.
+	 */
+	static String targetName(String fileName, int index) {
+		if (index == 0) {
+			return fileName + ".xml";
+		}
+		return fileName + "." + (index + 1) + ".xml";
+	}
+
+	@Override
+	protected IStatus run(IProgressMonitor monitor) {
+		ResourceSet resourceSet = new ResourceSetImpl();
+		try {
+			Resource resource = resourceSet.getResource(URI.createPlatformResourceURI(file.getFullPath().toString(), true), true);
+			List<Diagram> diagrams = Lists.newArrayList(EditorUtil.getDiagramsFromResource(resource));
+			monitor.beginTask(getName(), diagrams.size());
+
+			int exported = 0;
+			for (Diagram diagram : diagrams) {
+				if (monitor.isCanceled()) {
+					return Status.CANCEL_STATUS;
+				}
+
+				List<EObject> states = EditorUtil.getStates(diagram);
+				if (hasInitialState(states)) {
+					monitor.subTask(diagram.getName());
+					Hta hta = new HtaGenerator().generateModel(states.toArray(new EObject[states.size()]));
+					write(hta, targetFor(exported));
+					exported++;
+				}
+				monitor.worked(1);
+			}
+
+			return Status.OK_STATUS;
+
+		} catch (Exception e) {
+			log.error("Unable to export " + file.getFullPath() + ": " + e.getMessage(), e);
+			return new Status(IStatus.ERROR, Activator.PLUGIN_ID, "Unable to export " + file.getFullPath() + ": " + e.getMessage(), e);
+		} finally {
+			for (Resource resource : resourceSet.getResources()) {
+				resource.unload();
+			}
+			monitor.done();
+		}
+	}
+
+	private IFile targetFor(int index) {
+		IContainer folder = file.getParent();
+		return folder.getFile(new Path(targetName(file.getName(), index)));
+	}
+
+	private void write(Hta hta, final IFile target) throws JAXBException, IOException, CoreException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new XmlSerializer().toXml(hta, out);
+		final byte[] xml = out.toByteArray();
+
+		ResourcesPlugin.getWorkspace().run(new IWorkspaceRunnable() {
+			@Override
+			public void run(IProgressMonitor monitor) throws CoreException {
+				InputStream in = new ByteArrayInputStream(xml);
+				if (target.exists()) {
+					target.setContents(in, IResource.FORCE | IResource.KEEP_HISTORY, monitor);
+				} else {
+					target.create(in, IResource.FORCE, monitor);
+				}
+			}
+		}, file.getParent(), IWorkspace.AVOID_UPDATE, null);
+	}
+
+	private boolean hasInitialState(List<EObject> states) {
+		for (EObject state : states) {
+			if (((State) state).isInitial()) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
@@ -1,11 +1,13 @@
 package org.eclipse.editor.features;
 
-import java.io.FileWriter;
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
 import java.util.List;
 
 import org.apache.log4j.Logger;
+import org.eclipse.editor.EditorUtil;
 import org.eclipse.editor.Log;
-import org.eclipse.editor.editor.State;
 import org.eclipse.editor.huppaal.HtaGenerator;
 import org.eclipse.editor.huppaal.XmlSerializer;
 import org.eclipse.editor.huppaal.model.Hta;
@@ -13,7 +15,6 @@ import org.eclipse.emf.ecore.EObject;
 import org.eclipse.graphiti.features.IFeatureProvider;
 import org.eclipse.graphiti.features.context.ICustomContext;
 import org.eclipse.graphiti.features.custom.AbstractCustomFeature;
-import org.eclipse.graphiti.mm.pictograms.PictogramElement;
 import org.eclipse.jface.dialogs.IDialogConstants;
 import org.eclipse.jface.dialogs.MessageDialog;
 import org.eclipse.swt.SWT;
@@ -21,8 +22,6 @@ import org.eclipse.swt.widgets.FileDialog;
 import org.eclipse.swt.widgets.Shell;
 import org.eclipse.ui.PlatformUI;
 
-import com.google.common.collect.Lists;
-
 public class ExportXMLFeature extends AbstractCustomFeature {
 	private static Logger log = Log.getLogger();
 
@@ -59,13 +58,13 @@ public class ExportXMLFeature extends AbstractCustomFeature {
 	private void exportToFile(String fileName) {
 		log.info("Exporting to file: " + fileName);
 
-		List<EObject> states = getStatesForCurrentDiagram();
+		List<EObject> states = EditorUtil.getStates(getDiagram());
 
-		FileWriter fw = null;
+		OutputStream out = null;
 		try {
-			fw = new FileWriter(fileName);
+			out = new BufferedOutputStream(new FileOutputStream(fileName));
 			Hta hta = new HtaGenerator().generateModel(states.toArray(new EObject[states.size()]));
-			new XmlSerializer().toXml(hta, fw);
+			new XmlSerializer().toXml(hta, out);
 			
 			log.info("Export done");
 		} catch (Exception e) {
@@ -73,7 +72,7 @@ public class ExportXMLFeature extends AbstractCustomFeature {
 			showErrorDialog(e);
 		} finally {
 			try {
-				fw.close();
+				out.close();
 			} catch (Exception e) {
 			}
 		}
@@ -84,18 +83,6 @@ public class ExportXMLFeature extends AbstractCustomFeature {
 		messageDialog.open();
 	}
 
-	private List<EObject> getStatesForCurrentDiagram() {
-		List<EObject> states = Lists.newArrayList();
-		for (PictogramElement pe : getDiagram().getChildren()) {
-			for (Object bo : getAllBusinessObjectsForPictogramElement(pe)) {
-				if (bo instanceof State) {
-					states.add((State) bo);
-				}
-			}
-		}
-		return states;
-	}
-
 	private String askFileName() {
 		FileDialog fileDialog = new FileDialog(getShell(), SWT.SAVE);
 		fileDialog.setText("Save As...");
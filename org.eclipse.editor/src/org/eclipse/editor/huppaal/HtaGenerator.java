@@ -13,8 +13,10 @@ import static org.eclipse.editor.huppaal.ModelFactory.createTransition;
 
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Stack;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.eclipse.editor.EditorUtil;
 import org.eclipse.editor.editor.Connector;
@@ -36,9 +38,18 @@ import com.google.common.collect.Collections2;
 import com.google.common.collect.Maps;
 
 public class HtaGenerator {
-	private Map<String, GeneratedObject> visitedLocations = Maps.newHashMap();
+	/**
+	 * What was generated for a state or connector, by the template it was
+	 * generated in (both compared by identity).
+	 */
+	private Map<EObject, Map<Template, GeneratedObject>> visitedLocations = Maps.newIdentityHashMap();
 	private Map<String, Template> templates = Maps.newHashMap();
 	private Map<Template, Component> components = Maps.newHashMap();
+	/**
+	 * Numbers the ids of this generator's model, so an export does not depend
+	 * on what was exported before.
+	 */
+	private final AtomicInteger idCounter = new AtomicInteger();
 	private Hta hta;
 	
 	public Hta generateModel(EObject... objects) {
@@ -55,7 +66,7 @@ public class HtaGenerator {
 		GeneratedObject startLocation = generateFor(templateStack, s);
 		entry.getConnection().add(createConnectionTo(startLocation));
 		template.getEntry().add(entry);
-		template.getExit().add(createExit(template, "EXIT"));
+		template.getExit().add(createExit(template, "EXIT", idCounter));
 
 		hta.setInstantiation("template := Template();");
 		hta.setSystem("system template;");
@@ -64,30 +75,63 @@ public class HtaGenerator {
 		return hta;
 	}
 
+	/**
+	 * Generates everything reachable from <code>root</code>, depth first, in
+	 * the order a recursive descent would. The descent is kept on an explicit
+	 * stack of {@link Visit}s, so long chains of states do not overflow the
+	 * call stack.
+	 */
 	private GeneratedObject generateFor(Stack<Template> templates, EObject root) {
+		Stack<Visit> visits = new Stack<Visit>();
+		GeneratedObject ret = visit(templates, visits, root);
+
+		while (!visits.isEmpty()) {
+			Visit visit = visits.peek();
+			if (visit.end != null) {
+				visit.generated(templates, visit.edge, visit.end);
+				visit.end = null;
+			}
+
+			if (visit.edges.hasNext()) {
+				visit.edge = visit.edges.next();
+				visit.end = visit(templates, visits, visit.edge.getEnd());
+			} else {
+				visits.pop();
+				visit.done(templates);
+			}
+		}
+
+		return ret;
+	}
+
+	/**
+	 * Generates the object for <code>root</code> and, if it is new, pushes
+	 * the visit of its outgoing edges.
+	 */
+	private GeneratedObject visit(Stack<Template> templates, Stack<Visit> visits, EObject root) {
 		if (root instanceof State) {
-			return generateForState(templates, (State) root);
+			return visitState(templates, visits, (State) root);
 
 		} else if (root instanceof Connector) {
-			return generateForConnector(templates, (Connector) root);
+			return visitConnector(templates, visits, (Connector) root);
 		}
 
 		throw new IllegalArgumentException("Unknown EObject type: " + root.getClass().getSimpleName());
 	}
 
-	private GeneratedObject generateForState(Stack<Template> templates, State state) {
+	private GeneratedObject visitState(Stack<Template> templates, Stack<Visit> visits, State state) {
 		Template template = templates.peek();
 		
-		String mapKey = "state." + template.getName().getvalue() + "." + state.getName();
-		if (visitedLocations.containsKey(mapKey)) {
-			return visitedLocations.get(mapKey);
+		GeneratedObject visited = getVisited(state, template);
+		if (visited != null) {
+			return visited;
 		}
 
-		Location location = createLocation(template, state.getName());
+		final Location location = createLocation(template, state.getName(), idCounter);
 		template.getLocation().add(location);
 
 		GeneratedObject ret = new GeneratedObject(location);
-		visitedLocations.put(mapKey, ret);
+		putVisited(state, template, ret);
 
 		location.getLabel().add(createLabel("invariant", state.getInvariant()));
 		if (state.isUrgent()) {
@@ -97,43 +141,53 @@ public class HtaGenerator {
 			location.setCommitted(new Committed());
 		}
 
-		for (Edge e : state.getOutgoingEdges()) {
-			createTransitionForEdge(templates, location, e);
-		}
+		visits.push(new Visit(state.getOutgoingEdges()) {
+			@Override
+			public void generated(Stack<Template> templates, Edge edge, GeneratedObject end) {
+				createTransitionForEdge(templates, location, edge, end);
+			}
+		});
 
 		return ret;
 	}
 
-	private GeneratedObject generateForConnector(Stack<Template> templates, Connector connector) {
+	private GeneratedObject visitConnector(Stack<Template> templates, Stack<Visit> visits, Connector connector) {
 		Template template = templates.peek(); 
 		String templateName = connector.getDiagram().getName();
 		Template subTemplate = getCachedTemplate(templateName);
 
-		String mapKey = "connector." + subTemplate.getName().getvalue() + "." + connector.getName();
-		if (visitedLocations.containsKey(mapKey)) {
-			return visitedLocations.get(mapKey);
+		GeneratedObject visited = getVisited(connector, subTemplate);
+		if (visited != null) {
+			return visited;
 		}
 
 		if (!subTemplate.equals(template)) { // ENTRY
 			
 			Component component = getCachedComponent(template, subTemplate);
 			
-			Entry entry = createEntry(subTemplate, "ENTRY");
+			final Entry entry = createEntry(subTemplate, "ENTRY");
 			subTemplate.getEntry().add(entry);
 
 			GeneratedObject ret = new GeneratedObject(component, entry);
-			visitedLocations.put(mapKey, ret);
+			putVisited(connector, subTemplate, ret);
 
 			templates.push(subTemplate);
-			for (Edge e : connector.getOutgoingEdges()) {
-				entry.getConnection().add(createConnectionTo(generateFor(templates, e.getEnd())));
-			}
+			visits.push(new Visit(connector.getOutgoingEdges()) {
+				@Override
+				public void generated(Stack<Template> templates, Edge edge, GeneratedObject end) {
+					entry.getConnection().add(createConnectionTo(end));
+				}
+
+				@Override
+				public void done(Stack<Template> templates) {
+					templates.pop();
+				}
+			});
 
-			templates.pop();
 			return ret;
 
 		} else { // EXIT
-			final Exit exit = createExit(subTemplate, "EXIT");
+			final Exit exit = createExit(subTemplate, "EXIT", idCounter);
 			subTemplate.getExit().add(exit);
 			final Component component = components.get(template);
 
@@ -144,22 +198,47 @@ public class HtaGenerator {
 					return null;
 				}
 			};
-			visitedLocations.put(mapKey, ret);
+			putVisited(connector, subTemplate, ret);
 
-			Template currentTemplate = templates.pop();
-			for (Edge e : connector.getOutgoingEdges()) {
-				GeneratedObject gen = generateFor(templates, e.getEnd());
-				gen.connectionFrom(new GeneratedObject(component, exit), templates.peek());
-			}
+			final Template currentTemplate = templates.pop();
+			visits.push(new Visit(connector.getOutgoingEdges()) {
+				@Override
+				public void generated(Stack<Template> templates, Edge edge, GeneratedObject end) {
+					end.connectionFrom(new GeneratedObject(component, exit), templates.peek());
+				}
+
+				@Override
+				public void done(Stack<Template> templates) {
+					templates.push(currentTemplate);
+				}
+			});
 
-			templates.push(currentTemplate);
 			return ret;
 		}
 	}
 
+	private GeneratedObject getVisited(EObject object, Template template) {
+		Map<Template, GeneratedObject> byTemplate = visitedLocations.get(object);
+		if (byTemplate == null) {
+			return null;
+		}
+
+		return byTemplate.get(template);
+	}
+
+	private void putVisited(EObject object, Template template, GeneratedObject generated) {
+		Map<Template, GeneratedObject> byTemplate = visitedLocations.get(object);
+		if (byTemplate == null) {
+			byTemplate = Maps.newIdentityHashMap();
+			visitedLocations.put(object, byTemplate);
+		}
+
+		byTemplate.put(template, generated);
+	}
+
 	private Component getCachedComponent(Template template, Template subTemplate) {
 		if (!components.containsKey(subTemplate)) {
-			Component component = createComponent(template, subTemplate);
+			Component component = createComponent(template, subTemplate, idCounter);
 			template.getComponent().add(component);
 			components.put(subTemplate, component);
 		}
@@ -179,8 +258,7 @@ public class HtaGenerator {
 		return subTemplate;
 	}
 
-	private Transition createTransitionForEdge(Stack<Template> templates, Location location, Edge edge) {
-		GeneratedObject generatedObject = generateFor(templates, edge.getEnd());
+	private Transition createTransitionForEdge(Stack<Template> templates, Location location, Edge edge, GeneratedObject generatedObject) {
 		Transition transition = generatedObject.connectionFrom(new GeneratedObject(location), templates.peek());
 
 		if (transition != null) {
@@ -214,6 +292,28 @@ public class HtaGenerator {
 		return (State) initialStates.iterator().next();
 	}
 
+	/**
+	 * A generated state or connector whose outgoing edges are being followed.
+	 */
+	private abstract static class Visit {
+		final Iterator<Edge> edges;
+		Edge edge;
+		GeneratedObject end;
+
+		public Visit(Collection<Edge> edges) {
+			this.edges = edges.iterator();
+		}
+
+		/**
+		 * Called once everything reachable through <code>edge</code> is
+		 * generated.
+		 */
+		public abstract void generated(Stack<Template> templates, Edge edge, GeneratedObject end);
+
+		public void done(Stack<Template> templates) {
+		}
+	}
+
 	public static class GeneratedObject {
 		private Object object;
 		private Entry entry;
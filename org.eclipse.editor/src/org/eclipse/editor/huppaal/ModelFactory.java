@@ -1,5 +1,7 @@
 package org.eclipse.editor.huppaal;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.eclipse.editor.huppaal.HtaGenerator.GeneratedObject;
 import org.eclipse.editor.huppaal.model.Component;
 import org.eclipse.editor.huppaal.model.Connection;
@@ -15,17 +17,15 @@ import org.eclipse.editor.huppaal.model.Template;
 import org.eclipse.editor.huppaal.model.Transition;
 
 public class ModelFactory {
-	private static int idCounter = 0;
-	
 	public static Name createName(String value) {
 		Name name = new Name();
 		name.setvalue(value);
 		return name;
 	}
 	
-	public static Location createLocation(Template template, String name) {
+	public static Location createLocation(Template template, String name, AtomicInteger idCounter) {
 		Location location = new Location();
-		location.setId(template.getName().getvalue() + "." + name + "." + (idCounter++));
+		location.setId(template.getName().getvalue() + "." + name + "." + idCounter.getAndIncrement());
 		location.setName(createName(name));
 		return location;
 	}
@@ -37,9 +37,9 @@ public class ModelFactory {
 		return entry;
 	}
 
-	public static Exit createExit(Template template, String name) {
+	public static Exit createExit(Template template, String name, AtomicInteger idCounter) {
 		Exit exit = new Exit();
-		exit.setId(template.getName().getvalue() +  "." + name + (idCounter++));
+		exit.setId(template.getName().getvalue() +  "." + name + idCounter.getAndIncrement());
 		exit.setName(createName(name));
 		return exit;
 	}
@@ -100,11 +100,11 @@ public class ModelFactory {
 		return label;
 	}
 	
-	public static Component createComponent(Template template, Template subTemplate) {
+	public static Component createComponent(Template template, Template subTemplate, AtomicInteger idCounter) {
 		Component c = new Component();
 		c.setInstantiates(subTemplate.getName().getvalue());
-		c.setId(template.getName().getvalue() + "." + (idCounter++));
-		c.setName(createName("N" + (idCounter++)));
+		c.setId(template.getName().getvalue() + "." + idCounter.getAndIncrement());
+		c.setName(createName("N" + idCounter.getAndIncrement()));
 		return c;
 	}
 
@@ -1,28 +1,93 @@
 package org.eclipse.editor.huppaal;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.Writer;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.Marshaller;
-import javax.xml.bind.PropertyException;
 
 import org.eclipse.editor.huppaal.model.Hta;
 
+/**
+ * Writes an {@link Hta} as a huppaal-0.6 document.
+ * <p>
+ * Creating a {@link JAXBContext} reflects over the whole model, so it is done
+ * once, on first use, and shared by all serializers. Marshallers are not
+ * thread-safe; configured ones are kept in a queue, so concurrent exports each
+ * borrow their own.
+ */
 public class XmlSerializer {
-	public void toXml(Hta hta, Writer sw) throws PropertyException, JAXBException {
-		writeHta(hta, sw);
+	private static final String ENCODING = "UTF-8";
+	private static final String HEADER = "<?xml version=\"1.0\" encoding=\"" + ENCODING + "\"?>\n<!DOCTYPE hta SYSTEM \"huppaal-0.6.dtd\">\n";
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private static final ConcurrentLinkedQueue<Marshaller> idle = new ConcurrentLinkedQueue<Marshaller>();
+
+	public void toXml(Hta hta, Writer writer) throws JAXBException, IOException {
+		Writer buffered = new BufferedWriter(writer, BUFFER_SIZE);
+		writeHta(hta, buffered);
+		buffered.flush();
+	}
+
+	/**
+	 * Writes UTF-8 to the stream, which is flushed but not closed.
+	 */
+	public void toXml(Hta hta, OutputStream out) throws JAXBException, IOException {
+		toXml(hta, new OutputStreamWriter(out, ENCODING));
+	}
+
+	private void writeHta(Hta hta, Writer writer) throws JAXBException, IOException {
+		Marshaller marshaller = acquire();
+		writer.write(HEADER);
+		marshaller.marshal(hta, writer);
+		// -- only a marshaller that finished cleanly is used again
+		idle.offer(marshaller);
 	}
 
-	private void writeHta(Hta hta, Writer writer) throws JAXBException, PropertyException {
-		JAXBContext context = JAXBContext.newInstance(hta.getClass());
-		Marshaller marshaller = context.createMarshaller();
-		try {
-			writer.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<!DOCTYPE hta SYSTEM \"huppaal-0.6.dtd\">\n");
-		} catch (IOException e) {
+	private static Marshaller acquire() throws JAXBException {
+		Marshaller marshaller = idle.poll();
+		if (marshaller != null) {
+			return marshaller;
 		}
+		marshaller = ContextHolder.get().createMarshaller();
 		marshaller.setProperty(Marshaller.JAXB_FRAGMENT, Boolean.TRUE);
-		marshaller.marshal(hta, writer);
+		marshaller.setProperty(Marshaller.JAXB_ENCODING, ENCODING);
+		return marshaller;
+	}
+
+	/**
+	 * Loaded, and the context created, on the first call of {@link #get()}.
+	 */
+	private static class ContextHolder {
+		private static final JAXBContext CONTEXT;
+		private static final JAXBException FAILURE;
+
+		static {
+			JAXBContext context = null;
+			JAXBException failure = null;
+			try {
+				context = JAXBContext.newInstance(Hta.class);
+			} catch (JAXBException e) {
+				failure = e;
+			}
+			CONTEXT = context;
+			FAILURE = failure;
+		}
+
+		/**
+		 * A failure to create the context is thrown as a new exception on
+		 * every call, with the original one as its cause.
+		 */
+		static JAXBContext get() throws JAXBException {
+			if (FAILURE != null) {
+				throw new JAXBException("Unable to create the JAXB context for " + Hta.class.getName(), FAILURE);
+			}
+			return CONTEXT;
+		}
 	}
 }
@@ -0,0 +1,35 @@
+package org.eclipse.editor.features;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.google.common.collect.Sets;
+
+public class ExportDiagramsJobTest {
+
+	@Test
+	public void firstDiagramKeepsTheFileName() throws Exception {
+		assertEquals("a.diagram.xml", ExportDiagramsJob.targetName("a.diagram", 0));
+	}
+
+	@Test
+	public void laterDiagramsAreNumbered() throws Exception {
+		assertEquals("a.diagram.2.xml", ExportDiagramsJob.targetName("a.diagram", 1));
+		assertEquals("a.diagram.3.xml", ExportDiagramsJob.targetName("a.diagram", 2));
+	}
+
+	@Test
+	public void namesDoNotCollide() throws Exception {
+		String[] fileNames = { "a.diagram", "a.2.diagram", "a.diagram.2.diagram", "a-b.diagram", "a.diagram.diagram" };
+		Set<String> names = Sets.newHashSet();
+		for (String fileName : fileNames) {
+			for (int i = 0; i < 4; i++) {
+				assertTrue(fileName + " " + i, names.add(ExportDiagramsJob.targetName(fileName, i)));
+			}
+		}
+	}
+}
@@ -0,0 +1,49 @@
+package org.eclipse.editor.huppaal;
+
+import org.eclipse.editor.editor.Connector;
+import org.eclipse.editor.editor.Diagram;
+import org.eclipse.editor.editor.Edge;
+import org.eclipse.editor.editor.EditorFactory;
+import org.eclipse.editor.editor.EndPoint;
+import org.eclipse.editor.editor.State;
+
+/**
+ * Builds the editor models the huppaal tests generate from.
+ */
+public final class DiagramFixtures {
+
+	private DiagramFixtures() {
+	}
+
+	public static State createInitialState(String value) {
+		State state = createState(value);
+		state.setInitial(true);
+		return state;
+	}
+
+	public static State createState(String value) {
+		State state = EditorFactory.eINSTANCE.createState();
+		state.setName(value);
+		return state;
+	}
+
+	public static Edge createEdge(EndPoint start, EndPoint end) {
+		Edge edge = EditorFactory.eINSTANCE.createEdge();
+		edge.setStart(start);
+		edge.setEnd(end);
+		return edge;
+	}
+
+	public static Connector createConnector(Diagram diagram, String name) {
+		Connector connector = EditorFactory.eINSTANCE.createConnector();
+		connector.setName(name);
+		connector.setDiagram(diagram);
+		return connector;
+	}
+
+	public static Diagram createDiagram(String name) {
+		Diagram d = EditorFactory.eINSTANCE.createDiagram();
+		d.setName(name);
+		return d;
+	}
+}
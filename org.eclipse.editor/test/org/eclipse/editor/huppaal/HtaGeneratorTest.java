@@ -1,6 +1,11 @@
 package org.eclipse.editor.huppaal;
 
 import static org.eclipse.editor.EditorUtil.nvl;
+import static org.eclipse.editor.huppaal.DiagramFixtures.createConnector;
+import static org.eclipse.editor.huppaal.DiagramFixtures.createDiagram;
+import static org.eclipse.editor.huppaal.DiagramFixtures.createEdge;
+import static org.eclipse.editor.huppaal.DiagramFixtures.createInitialState;
+import static org.eclipse.editor.huppaal.DiagramFixtures.createState;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
@@ -15,8 +20,6 @@ import java.util.List;
 import org.eclipse.editor.editor.Connector;
 import org.eclipse.editor.editor.Diagram;
 import org.eclipse.editor.editor.Edge;
-import org.eclipse.editor.editor.EditorFactory;
-import org.eclipse.editor.editor.EndPoint;
 import org.eclipse.editor.editor.State;
 import org.eclipse.editor.huppaal.model.Component;
 import org.eclipse.editor.huppaal.model.Entry;
@@ -77,6 +80,16 @@ public class HtaGeneratorTest {
 		assertEquals("Template.ENTRY", ((Entry) globalinits.get(0).getRef()).getId());
 	}
 
+	@Test
+	public void idsDoNotDependOnEarlierExports() throws Exception {
+		State state = createInitialState("A");
+
+		Location first = new HtaGenerator().generateModel(state).getTemplate().get(0).getLocation().get(0);
+		Location second = new HtaGenerator().generateModel(state).getTemplate().get(0).getLocation().get(0);
+
+		assertEquals(first.getId(), second.getId());
+	}
+
 	@Test
 	public void twoStatesAndAnEdge() throws Exception {
 		State stateA = createInitialState("A");
@@ -135,6 +148,41 @@ public class HtaGeneratorTest {
 		assertTransition(transitions, locations.get(1), locations.get(0));
 	}
 	
+	@Test
+	public void statesWithTheSameName() throws Exception {
+		State stateA = createInitialState("A");
+		State stateB1 = createState("B");
+		State stateB2 = createState("B");
+		createEdge(stateA, stateB1);
+		createEdge(stateA, stateB2);
+
+		Hta hta = generator.generateModel(stateA, stateB1, stateB2);
+		Template template = hta.getTemplate().get(0);
+
+		List<Location> locations = template.getLocation();
+		assertLocations(locations, Arrays.asList("A", "B", "B"));
+		assertTransition(template.getTransition(), locations.get(0), locations.get(1));
+		assertTransition(template.getTransition(), locations.get(0), locations.get(2));
+	}
+
+	@Test
+	public void longChain() throws Exception {
+		State first = createInitialState("S0");
+		State previous = first;
+		for (int i = 1; i < 100000; i++) {
+			State state = createState("S" + i);
+			createEdge(previous, state);
+			previous = state;
+		}
+
+		Hta hta = generator.generateModel(first);
+		Template template = hta.getTemplate().get(0);
+
+		assertEquals(100000, template.getLocation().size());
+		assertEquals(99999, template.getTransition().size());
+		assertEquals("S99999", template.getLocation().get(99999).getName().getvalue());
+	}
+
 	@Test
 	public void cyclicWithConnectors() throws Exception {
 		State stateA = createInitialState("A");
@@ -365,36 +413,4 @@ public class HtaGeneratorTest {
 			}
 		}));
 	}
-
-	private State createInitialState(String value) {
-		State state = createState(value);
-		state.setInitial(true);
-		return state;
-	}
-
-	private State createState(String value) {
-		State state = EditorFactory.eINSTANCE.createState();
-		state.setName(value);
-		return state;
-	}
-
-	private Edge createEdge(EndPoint start, EndPoint end) {
-		Edge edge = EditorFactory.eINSTANCE.createEdge();
-		edge.setStart(start);
-		edge.setEnd(end);
-		return edge;
-	}
-
-	private Connector createConnector(Diagram diagram, String name) {
-		Connector connector = EditorFactory.eINSTANCE.createConnector();
-		connector.setName(name);
-		connector.setDiagram(diagram);
-		return connector;
-	}
-
-	private Diagram createDiagram(String name) {
-		Diagram d = EditorFactory.eINSTANCE.createDiagram();
-		d.setName(name);
-		return d;
-	}
 }
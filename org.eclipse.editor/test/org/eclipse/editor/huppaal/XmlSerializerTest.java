@@ -2,6 +2,7 @@ package org.eclipse.editor.huppaal;
 
 import static org.junit.Assert.assertEquals;
 
+import java.io.ByteArrayOutputStream;
 import java.io.StringWriter;
 
 import org.eclipse.editor.huppaal.model.Hta;
@@ -22,4 +23,20 @@ public class XmlSerializerTest {
 		xmlSerializer.toXml(new Hta(), sw);
 		assertEquals("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<!DOCTYPE hta SYSTEM \"huppaal-0.6.dtd\">\n<hta/>", sw.toString());
 	}
+
+	@Test
+	public void toXmlStream() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		xmlSerializer.toXml(new Hta(), out);
+		assertEquals("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<!DOCTYPE hta SYSTEM \"huppaal-0.6.dtd\">\n<hta/>", out.toString("UTF-8"));
+	}
+
+	@Test
+	public void toXmlRepeatedly() throws Exception {
+		for (int i = 0; i < 3; i++) {
+			StringWriter sw = new StringWriter();
+			new XmlSerializer().toXml(new Hta(), sw);
+			assertEquals("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<!DOCTYPE hta SYSTEM \"huppaal-0.6.dtd\">\n<hta/>", sw.toString());
+		}
+	}
 }
@@ -0,0 +1,487 @@
+// -*- mode: JDE; c-basic-offset: 2; -*-
+// /////////////////////////////////////////////////////////////
+// Flatten many hierarchical Uppaal definitions in one JVM
+//
+// Synopsis:
+//  Huppaal
+// /////////////////////////////////////////////////////////////
+// @TABLE OF CONTENTS:
+//
+//  [1] MAIN METHOD (STATIC)
+//  [2] Collecting the input files
+//  [3] Translating one file
+//  [4] Parser setup
+// ==========================================================
+// @FILE:    BatchFlatten.java
+// @FORMAT:  java
+// @AUTHOR:  agent     <agent@local>
+// @BEGUN:   Sat Oct 17 11:40:05 2026
+// @VERSION: Vanilla-1                  Sat Oct 17 11:40:05 2026
+// /////////////////////////////////////////////////////////////
+//
+
+import java.lang.*;
+import java.io.*;
+
+import java.util.Vector;
+import java.util.Enumeration;
+import java.util.Hashtable;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.xml.parsers.SAXParserFactory;
+import javax.xml.parsers.SAXParser;
+
+//**** from internal API packages
+import org.apache.crimson.tree.XmlDocument;
+//****************************************
+
+/**
+ * <H3>Batch mode of {@link Flatten}</H3>
+ * Translates a whole directory (or a list of files) of hierarchical
+ * documents in one JVM:
+ * <UL>
+ *   <LI>there is one (validating) parser factory; every worker thread
+ *       keeps its own parser. The input is read in one streaming pass by
+ *       a {@link HierarchicalDocumentLoader}</LI>
+ *   <LI>the huppaal DTDs are read once and served from memory by a
+ *       {@link DTDCache}; if the parser supports a grammar pool (Xerces),
+ *       also the parsed DTD grammar is shared</LI>
+ *   <LI>the files are translated in parallel on a fixed number of
+ *       threads, each one in a {@link Flatten} session of its own</LI>
+ *   <LI>like {@link Flatten#main}, every translation is validated
+ *       against the flat DTD (from memory, not read back from disk); an
+ *       invalid one is written, but reported as failed</LI>
+ *   <LI>for every file, the time for parsing, translating, writing and
+ *       validating is reported (on <TT>System.err</TT>)</LI>
+ * </UL>
+ * The translation of <TT>name.xml</TT> is written to
+ * <TT>name.flat.xml</TT> (in the same directory, unless <TT>-out</TT> is
+ * given); of several inputs with the same output file, only the first is
+ * translated, the others are reported as failed.<BR>
+ * <BR>
+ * <PRE>
+ * Usage: BatchFlatten [-threads n] [-joinThreads n] [-layoutThreads n]
+ *                     [-headless] [-out dir] [-dtd dir]
+ *                     [-verbose] (directory | file | -list listfile)...
+ * </PRE>
+ * <TT>-joinThreads</TT> sets the threads planning the global joins of 
+ * each translation (see {@link Flatten#setGlobalJoinThreads}), 
+ * <TT>-layoutThreads</TT> the threads laying out its templates (see 
+ * {@link Flatten#setLayoutThreads}). <TT>-headless</TT> writes translations
+ * without any layout, for the verifier only (see {@link 
+ * FlatDocumentWriter#setHeadless}).
+ *
+ * @see Flatten DTDCache
+ * @author <A HREF="MAILTO:agent@local?subject=BatchFlatten.java%20(Vanilla-1%20Sat%20Oct%2017%2011:40:05%202026)">agent</A>
+ * @version Vanilla-1                  Sat Oct 17 11:40:05 2026
+ */
+public class BatchFlatten  {
+
+  // //////////////////////////////////////////////////////////////////////
+  // ////////////////////////////// FIELDS ////////////////////////////////
+  // //////////////////////////////////////////////////////////////////////
+
+  /**
+   * Postfix of written translations; files ending like this are not
+   * taken as input when a directory is scanned.
+   */
+  public static final String OUTPUT_POSTFIX = ".flat.xml";
+
+  /**
+   * Xerces property for sharing parsed grammars between parsers
+   */
+  private static final String GRAMMAR_POOL_PROPERTY =
+    "http://apache.org/xml/properties/internal/grammar-pool";
+
+  /**
+   * Grammar pool implementations tried, in this order
+   */
+  private static final String[] grammarPoolClasses = {
+    "org.apache.xerces.util.XMLGrammarPoolImpl",
+    "com.sun.org.apache.xerces.internal.util.XMLGrammarPoolImpl" };
+
+  /**
+   * The one (validating) parser factory
+   */
+  private SAXParserFactory saxFactory;
+
+  /**
+   * Resolves the huppaal DTDs from memory
+   */
+  private DTDCache dtdCache;
+
+  /**
+   * One parser per worker thread
+   * (<TT>SAXParser</TT>s must not be shared)
+   */
+  private ThreadLocal parsers;
+
+  /**
+   * Parsed DTD grammars shared by all parsers;
+   * <TT>null</TT>, if the parser does not support it
+   */
+  private Object grammarPool;
+
+  /**
+   * Directory for the translations; <TT>null</TT>: next to the input
+   */
+  private File outputDirectory;
+
+  /**
+   * Threads per translation for planning global joins
+   */
+  private int joinThreads = 1;
+
+  /**
+   * Threads per translation for laying out the templates
+   */
+  private int layoutThreads = 1;
+
+  /**
+   * Headless translations (no coordinates, no layout)
+   */
+  private boolean headless = false;
+
+  // //////////////////////////////////////////////////////////////////////
+  // //////////////////////////  CONSTRUCTORS  ////////////////////////////
+  // //////////////////////////////////////////////////////////////////////
+
+  /**
+   * Default Constructor: set up the parser factory.<BR>
+   * The DTDs are searched in <TT>dtdDirectory</TT> (if not
+   * <TT>null</TT>) and in the current directory.
+   */
+  public BatchFlatten(File dtdDirectory, File theOutputDirectory){
+
+    outputDirectory = theOutputDirectory;
+
+    if(null == dtdDirectory)
+      dtdCache = new DTDCache(new File[]{ new File(".") });
+    else
+      dtdCache = new DTDCache(new File[]{ dtdDirectory, new File(".") });
+
+    saxFactory = SAXParserFactory.newInstance();
+    saxFactory.setValidating(true);
+    grammarPool = createGrammarPool();
+
+    parsers = new ThreadLocal();
+  }
+
+  // //////////////////////////////////////////////////////////////////////
+  // ///////////////////////////// METHODS  ///////////////////////////////
+  // //////////////////////////////////////////////////////////////////////
+
+  /**
+   * Plan the global joins of every translation on <TT>n</TT> threads
+   */
+  public void setJoinThreads(int n){
+    joinThreads = n;
+  }
+
+  /**
+   * Lay out the templates of every translation on <TT>n</TT> threads
+   */
+  public void setLayoutThreads(int n){
+    layoutThreads = n;
+  }
+
+  /**
+   * Write every translation without layout (see {@link 
+   * Flatten#setHeadless})
+   */
+  public void setHeadless(boolean on){
+    headless = on;
+  }
+
+  // =================================================================
+  // [1] MAIN METHOD (STATIC)
+  // =================================================================
+
+  public static void main (String argv [])
+  {
+    int threads = Runtime.getRuntime().availableProcessors();
+    int joinThreads = 1;
+    int layoutThreads = 1;
+    boolean headless = false;
+    File outDir = null;
+    File dtdDir = null;
+    boolean verbose = false;
+    Vector inputs = new Vector();
+
+    try {
+      for(int i = 0; i < argv.length; i++){
+	if(argv[i].equals("-threads") && (i + 1 < argv.length))
+	  threads = Integer.parseInt(argv[++i]);
+	else if(argv[i].equals("-joinThreads") && (i + 1 < argv.length))
+	  joinThreads = Integer.parseInt(argv[++i]);
+	else if(argv[i].equals("-layoutThreads") && (i + 1 < argv.length))
+	  layoutThreads = Integer.parseInt(argv[++i]);
+	else if(argv[i].equals("-out") && (i + 1 < argv.length))
+	  outDir = new File(argv[++i]);
+	else if(argv[i].equals("-dtd") && (i + 1 < argv.length))
+	  dtdDir = new File(argv[++i]);
+	else if(argv[i].equals("-list") && (i + 1 < argv.length))
+	  addListedFiles(new File(argv[++i]), inputs);
+	else if(argv[i].equals("-headless"))
+	  headless = true;
+	else if(argv[i].equals("-verbose"))
+	  verbose = true;
+	else
+	  addInputFiles(new File(argv[i]), inputs);
+      }
+    } catch (Exception e) {
+      System.err.println("ERROR: " + e.getMessage());
+      inputs = new Vector();
+    }
+
+    if(inputs.size() == 0 || threads < 1 || joinThreads < 1 || layoutThreads < 1){
+      System.err.println("Usage: BatchFlatten [-threads n] [-joinThreads n] [-layoutThreads n]\n" +
+			 "                    [-headless] [-out dir] [-dtd dir]\n" +
+			 "                    [-verbose] (directory | file | -list listfile)...");
+      System.exit(1);
+    }
+
+    Flatten.setDebug(verbose);
+
+    BatchFlatten batch = new BatchFlatten(dtdDir, outDir);
+    batch.setJoinThreads(joinThreads);
+    batch.setLayoutThreads(layoutThreads);
+    batch.setHeadless(headless);
+    int failures = batch.flattenAll(inputs, threads);
+
+    System.exit(failures == 0 ? 0 : 2);
+  }
+
+  /**
+   * Translate all files (<TT>File</TT> objects) on <TT>threads</TT>
+   * workers; the report is printed in the order of the input.<BR>
+   * A file whose translation would go to the same output file as the 
+   * one of an earlier file (e.g., <TT>a/x.xml</TT> and <TT>b/x.xml</TT>
+   * with <TT>-out</TT>) is not translated, but reported as failed.<BR>
+   * Returns the number of failed translations.
+   */
+  public int flattenAll(Vector files, int threads){
+
+    long start = System.currentTimeMillis();
+    ExecutorService pool = Executors.newFixedThreadPool(threads);
+    Vector results = new Vector();
+    Hashtable outputsToInputs = new Hashtable();
+
+    for(Enumeration e = files.elements(); e.hasMoreElements(); ){
+      final File file = (File)e.nextElement();
+      String output = pathOf(outputFileFor(file));
+      File earlier = (File)outputsToInputs.get(output);
+      if(null != earlier){
+	results.addElement("FAILED  " + file + ": would overwrite " + output +
+			   ", the translation of " + earlier);
+	continue;
+      }
+      outputsToInputs.put(output, file);
+
+      results.addElement(pool.submit(new Callable(){
+	  public Object call(){
+	    return flattenOne(file);
+	  }
+	}));
+    }
+
+    int failures = 0;
+    for(Enumeration e = results.elements(); e.hasMoreElements(); ){
+      Object result = e.nextElement();
+      String line;
+      try {
+	if(result instanceof Future)
+	  line = (String)((Future)result).get();
+	else
+	  line = (String)result;
+      } catch (Exception ex) {
+	line = "FAILED  " + ex.toString();
+      }
+      if(line.startsWith("FAILED"))
+	failures++;
+      System.err.println(line);
+    }
+    pool.shutdown();
+
+    System.err.println("%%% " + files.size() + " file(s), " + failures +
+		       " failed, " + threads + " thread(s): " +
+		       (System.currentTimeMillis() - start) + " ms");
+    return failures;
+  }
+
+  // =================================================================
+  // [2] Collecting the input files
+  // =================================================================
+
+  /**
+   * A directory contributes all its <TT>.xml</TT> files (but no
+   * translations), in alphabetical order; anything else is taken as
+   * a file.
+   */
+  private static void addInputFiles(File f, Vector inputs)
+    throws Exception {
+
+    if(!f.isDirectory()){
+      if(!f.isFile())
+	throw new Exception("no such file: " + f);
+      inputs.addElement(f);
+      return;
+    }
+
+    String[] names = f.list();
+    java.util.Arrays.sort(names);
+    for(int i = 0; i < names.length; i++){
+      if(names[i].endsWith(".xml") && !names[i].endsWith(OUTPUT_POSTFIX))
+	inputs.addElement(new File(f, names[i]));
+    }
+  }
+
+  /**
+   * Every (non-empty) line of the list file is a file or directory
+   */
+  private static void addListedFiles(File list, Vector inputs)
+    throws Exception {
+
+    BufferedReader in = new BufferedReader(new FileReader(list));
+    try {
+      String line;
+      while(null != (line = in.readLine())){
+	line = line.trim();
+	if(line.length() > 0)
+	  addInputFiles(new File(line), inputs);
+      }
+    } finally {
+      in.close();
+    }
+  }
+
+  // =================================================================
+  // [3] Translating one file
+  // =================================================================
+
+  /**
+   * Parse, translate and write one file.<BR>
+   * Returns the line for the report; it starts with <TT>FAILED</TT>, if
+   * the translation did not succeed.
+   */
+  public String flattenOne(File input){
+
+    long t0 = System.currentTimeMillis();
+    long t1 = t0;
+    long t2 = t0;
+    try {
+      HierarchicalDocumentReader reader =
+	HierarchicalDocumentLoader.load(getParser(), input, dtdCache);
+      t1 = System.currentTimeMillis();
+
+      Flatten session = new Flatten();
+      session.setGlobalJoinThreads(joinThreads);
+      session.setLayoutThreads(layoutThreads);
+      session.setHeadless(headless);
+      XmlDocument translatedDoc = session.constructFlatDoc(reader);
+      t2 = System.currentTimeMillis();
+
+      // -- serialized in memory: written and validated from the same bytes
+      File output = outputFileFor(input);
+      byte[] serialized = Flatten.serialize(translatedDoc);
+      OutputStream out = new FileOutputStream(output);
+      try {
+	out.write(serialized);
+      } finally {
+	out.close();
+      }
+      long t3 = System.currentTimeMillis();
+
+      Flatten.validate(getParser(), dtdCache, serialized, output);
+      long t4 = System.currentTimeMillis();
+
+      return "OK      " + input +
+	"  parse " + (t1 - t0) + " ms" +
+	"  flatten " + (t2 - t1) + " ms" +
+	"  write " + (t3 - t2) + " ms" +
+	"  validate " + (t4 - t3) + " ms" +
+	"  total " + (t4 - t0) + " ms";
+
+    } catch (Exception e) {
+      return "FAILED  " + input + "  after " +
+	(System.currentTimeMillis() - t0) + " ms: " + e.toString();
+    }
+  }
+
+  /**
+   * <TT>name.xml</TT> is translated to <TT>name.flat.xml</TT>
+   */
+  private File outputFileFor(File input){
+
+    String name = input.getName();
+    if(name.endsWith(".xml"))
+      name = name.substring(0, name.length() - 4);
+    name = name + OUTPUT_POSTFIX;
+
+    if(null == outputDirectory)
+      return new File(input.getParentFile(), name);
+    else
+      return new File(outputDirectory, name);
+  }
+
+  /**
+   * The canonical path of <TT>f</TT> (if it can be determined), to
+   * compare output files
+   */
+  private static String pathOf(File f){
+    try {
+      return f.getCanonicalPath();
+    } catch (IOException ioe) {
+      return f.getAbsolutePath();
+    }
+  }
+
+  // =================================================================
+  // [4] Parser setup
+  // =================================================================
+
+  /**
+   * The parser of the current thread (created on first use)
+   */
+  private SAXParser getParser()
+    throws Exception {
+
+    SAXParser parser = (SAXParser)parsers.get();
+    if(null == parser){
+      synchronized(saxFactory){
+	parser = saxFactory.newSAXParser();
+      }
+      if(null != grammarPool)
+	parser.setProperty(GRAMMAR_POOL_PROPERTY, grammarPool);
+      parsers.set(parser);
+    }
+    return parser;
+  }
+
+  /**
+   * Returns a pool to share parsed DTD grammars between all parsers, if
+   * the underlying implementation is Xerces (<TT>null</TT> otherwise, 
+   * then only the DTD text is cached).
+   */
+  private Object createGrammarPool(){
+
+    for(int i = 0; i < grammarPoolClasses.length; i++){
+      try {
+	Object pool = Class.forName(grammarPoolClasses[i])
+	  .getDeclaredConstructor().newInstance();
+	synchronized(saxFactory){
+	  saxFactory.newSAXParser().setProperty(GRAMMAR_POOL_PROPERTY, pool);
+	}
+	return pool;
+      } catch (Exception e) {
+	// -- not available: try the next one
+      }
+    }
+    return null;
+  }
+
+}
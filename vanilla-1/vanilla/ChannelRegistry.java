@@ -22,6 +22,8 @@ import java.util.Vector;
 import java.util.Hashtable;
 import java.util.Enumeration;
 import java.util.Stack;
+import java.util.SortedMap;
+import java.util.TreeMap;
 
 
 import org.w3c.dom.Element;
@@ -41,7 +43,16 @@ import org.w3c.dom.Element;
  * <TT>!</TT> or <TT>?</TT></LI>
  *  <LI> a <TT>chan</TT> is only the channel name
  * </UL>
- * 
+ * Internally, syncs are kept as {@link Sync}s; the methods taking the 
+ * text parse it once.<BR>
+ * <BR>
+ * Queries (&quot;which transitions carry the sync outside/below a 
+ * tinst&quot;) are answered from a per-sync index: the textual 
+ * instantiations carrying the sync, ordered by their pre-order number in
+ * the instantiation tree (see <TT>{@link InstantiationTree#numberNodes}</TT>).
+ * Since the nodes of a subtree form an interval of numbers, each query is a
+ * range lookup. The index is built on the first query, so the tree
+ * has to be complete by then.
  * 
  * @author <A HREF="MAILTO:omoeller@brics.dk?subject=ChannelRegistry.java%20(Vanilla-1%20Mon%20Apr%209%2011:43:58%202001)">M. Oliver M&ouml;ller</A>
  * @version Vanilla-1 Mon Apr  9 13:44:10 2001
@@ -60,18 +71,41 @@ public class ChannelRegistry  {
 
   /**
    * Maps Textual instantiations to hashtables, that contain
-   * the syncs occuring in <EM>this</EM> particular tinst as keys
-   * and Vectors of transitions as elements
+   * the syncs ({@link Sync}s) occuring in <EM>this</EM> particular tinst 
+   * as keys and Vectors of transitions as elements
    */
   private Hashtable mapTinstToHashtable;
 
+  /**
+   * Maps syncs ({@link Sync}s) to the textual instantiations where they occur, as a
+   * <TT>SortedMap</TT> from pre-order numbers (<TT>Integer</TT>s) to 
+   * textual instantiations.<BR>
+   * Entries are never removed (as in <TT>{@link #mapTinstToHashtable}</TT>).
+   * <BR>
+   * <TT>null</TT>, until the index is built.
+   */
+  private Hashtable mapSyncToOccurrences;
+
 
   /**
-   * Stack of synchronisations that might cause conflicts.<BR>
-   * Use method <TT>{@link #addConflict}</TT> to access it.
+   * Stack of synchronisations that might cause conflicts
+   * ({@link SyncTransTinstTriple}s).<BR>
+   * Use methods <TT>{@link #addConflict}</TT> and 
+   * <TT>{@link #nextConflict}</TT> to access it.
    */
   protected Stack possibleConflicts;
 
+  /**
+   * All conflicts ever added (as keys), so that none is added twice
+   */
+  private Hashtable queuedConflicts;
+
+  /**
+   * Maps syncs to the Vector of conflicts for them that are still on
+   * <TT>{@link #possibleConflicts}</TT> (bottommost first)
+   */
+  private Hashtable mapSyncToQueuedConflicts;
+
   // ===================================
   // AUX
   // ===================================
@@ -84,9 +118,9 @@ public class ChannelRegistry  {
   private static final String uniquePostfix = "XCR";
 
   /**
-   * Counter used for @{link newPostfix}
+   * Counters of the flattening session, used for @{link newPostfix}
    */
-  private static long channelCopyCounter = 0L;
+  private NameAllocator names;
 
   // //////////////////////////////////////////////////////////////////////
   // //////////////////////////  CONSTRUCTORS  ////////////////////////////
@@ -95,11 +129,14 @@ public class ChannelRegistry  {
   /**
    * Default Constructor: Needs references
    */
-  public ChannelRegistry(InstantiationTree theInstTree){
+  public ChannelRegistry(InstantiationTree theInstTree, NameAllocator theNames){
     rootOfInstTree = theInstTree;
+    names = theNames;
 
     mapTinstToHashtable = new Hashtable();
     possibleConflicts = new Stack();
+    queuedConflicts = new Hashtable();
+    mapSyncToQueuedConflicts = new Hashtable();
   }
 
   // //////////////////////////////////////////////////////////////////////
@@ -108,29 +145,48 @@ public class ChannelRegistry  {
 
   /**
    * Checks, whether there exist an entry for <TT>sync</TT> in the
-   * textual instantiation or in any descendand of it
+   * textual instantiation or in any descendand of it<BR>
+   * <BR>
+   * Throws exception, if <TT>tinst</TT> is not in the instantiation tree
+   * or if <TT>sync</TT> is not a sync.
    */
-  public boolean occursInOrBelow(String sync, TextualInstantiation tinst){
+  public boolean occursInOrBelow(String sync, TextualInstantiation tinst)
+    throws Exception {
+    return occursInOrBelow(Sync.parse(sync), tinst);
+  }
 
-    if (occursIn(sync, tinst))
-      return true;
-    
-    for(Enumeration e = (rootOfInstTree.findNodeWithContent(tinst)).enumChildren(); e.hasMoreElements(); ){
-      
-      if(occursIn(sync, ((InstantiationTree)e.nextElement()).content))
-	return true;
-    }
+  public boolean occursInOrBelow(Sync sync, TextualInstantiation tinst)
+    throws Exception {
+    buildIndex();
+
+    InstantiationTree node = rootOfInstTree.findNodeWithContent(tinst);
+    if(null == node)
+      throw new Exception("ERROR: " + tinst.toString() + 
+			  "\n -- not in the instantiation tree.");
+
+    SortedMap occurrences = (SortedMap)mapSyncToOccurrences.get(sync);
+    if(null == occurrences)
+      return false;
     
-    return false;
+    return !(occurrences.subMap(Integer.valueOf(node.preOrder),
+				Integer.valueOf(node.subtreeEnd + 1))).isEmpty();
   }
 
   /**
    * Regiser a sync occuring on a specific transition 
    * in a specific texual instantiation<BR>
    * <BR>
-   * (I.e., create appropriate hashtable entries)
+   * (I.e., create appropriate hashtable entries)<BR>
+   * <BR>
+   * Text that is not a sync is never asked for, hence not entered.
    */
   public void registerSync(String sync, Element transition, TextualInstantiation tinst){
+    Sync parsed = Sync.parseIfValid(sync);
+    if(null != parsed)
+      registerSync(parsed, transition, tinst);
+  }
+
+  public void registerSync(Sync sync, Element transition, TextualInstantiation tinst){
     Object hashed = mapTinstToHashtable.get(tinst);
     if(null == hashed){
       Hashtable newHash = new Hashtable();
@@ -149,6 +205,8 @@ public class ChannelRegistry  {
       else 
 	((Vector)transitions).addElement(transition);
     }
+    if(null != mapSyncToOccurrences)
+      indexOccurrence(sync, tinst);
   }
   /**
    * <B>UN</B>Regiser a sync occuring on a specific transition 
@@ -160,6 +218,11 @@ public class ChannelRegistry  {
    */
   public void unregisterSync(String sync, Element transition, TextualInstantiation tinst)
     throws Exception {
+    unregisterSync(Sync.parse(sync), transition, tinst);
+  }
+
+  public void unregisterSync(Sync sync, Element transition, TextualInstantiation tinst)
+    throws Exception {
 
     Object hashed = mapTinstToHashtable.get(tinst);
     if(null == hashed)
@@ -187,8 +250,12 @@ public class ChannelRegistry  {
    */
   public Enumeration enumTransitionsWithSyncOusideTinst(String sync, TextualInstantiation tinst){
     Vector result = new Vector();
-    for(Enumeration e = enumTinstsOutsideTinst(tinst); e.hasMoreElements();){
-      result.addAll(allTransitionsWithSyncInTinst(sync,
+    Sync parsed = Sync.parseIfValid(sync);
+    if(null == parsed)
+      return result.elements();
+
+    for(Enumeration e = tinstsWithSyncOutsideTinst(parsed, tinst).elements(); e.hasMoreElements();){
+      result.addAll(allTransitionsWithSyncInTinst(parsed,
 						  (TextualInstantiation)e.nextElement()));
     }
     
@@ -201,30 +268,87 @@ public class ChannelRegistry  {
    * <BR>
    * Note that the TextualInstantiaton handed over is
    * <EM>not</EM> where the transition lives in, but the tinst of the 
-   * component, where it originates from.
+   * component, where it originates from.<BR>
+   * <BR>
+   * Throw Exception, if <TT>sync</TT> is not a <TT>sync</TT>.
    */
   public void addConflict(String sync, 
 			  Element transition,
-			  TextualInstantiation tinst){
-    possibleConflicts.push(new SyncTransTinstTriple(sync, transition, tinst));
+			  TextualInstantiation tinst)
+    throws Exception {
+    addConflict(Sync.parse(sync), transition, tinst);
+  }
+
+  /**
+   * Adds a conflict, unless the same one (same sync, transition and 
+   * tinst) was added before.<BR>
+   * <BR>
+   * Returns <TT>false</TT>, if it was not added.
+   */
+  public boolean addConflict(Sync sync, 
+			     Element transition,
+			     TextualInstantiation tinst){
+    SyncTransTinstTriple conflict = new SyncTransTinstTriple(sync, transition, tinst);
+    if(queuedConflicts.containsKey(conflict))
+      return false;
+
+    queuedConflicts.put(conflict, conflict);
+    possibleConflicts.push(conflict);
+
+    Vector sameSync = (Vector)mapSyncToQueuedConflicts.get(sync);
+    if(null == sameSync){
+      sameSync = new Vector();
+      mapSyncToQueuedConflicts.put(sync, sameSync);
+    }
+    sameSync.addElement(conflict);
+    return true;
+  }
+
+  /**
+   * Are there conflicts left?
+   */
+  public boolean hasConflicts(){
+    return !possibleConflicts.empty();
+  }
+
+  /**
+   * Take the topmost conflict from the stack.<BR>
+   * Throws exception, if there is none.
+   */
+  public SyncTransTinstTriple nextConflict()
+    throws Exception {
+    if(possibleConflicts.empty())
+      throw new Exception("ERROR: no conflicts left.");
+
+    SyncTransTinstTriple conflict = (SyncTransTinstTriple)possibleConflicts.pop();
+    // -- it was the last one pushed for its sync as well ------------------
+    Vector sameSync = (Vector)mapSyncToQueuedConflicts.get(conflict.sync);
+    sameSync.removeElementAt(sameSync.size() - 1);
+    if(sameSync.isEmpty())
+      mapSyncToQueuedConflicts.remove(conflict.sync);
+    return conflict;
   }
   
   /**
-   * Go through the conflicts;<BR>
+   * Go through the conflicts still on the stack;<BR>
    * <BR>
    * If there was a conflict entry for <TT>oldSync</TT>,
-   * add a new conflict entry for  <TT>newSync</TT>
+   * add a new conflict entry for  <TT>newSync</TT> (in the order of the
+   * stack, bottommost first)
    * <BR>
    * <BR>
    * (Necessary, see ChannelManager Handnotes)
    */
-  public void addConflictsForNewSync(String oldSync,
-				     String newSync){
-    for(Enumeration e = possibleConflicts.elements(); e.hasMoreElements(); ){
-      SyncTransTinstTriple sttt = (SyncTransTinstTriple)e.nextElement();
-      if(oldSync.equals(sttt.sync))
-	possibleConflicts.push(new
-	  SyncTransTinstTriple(newSync, sttt.trans, sttt.tinst));
+  public void addConflictsForNewSync(Sync oldSync,
+				     Sync newSync){
+    Vector sameSync = (Vector)mapSyncToQueuedConflicts.get(oldSync);
+    if(null == sameSync)
+      return;
+
+    Object[] conflicts = sameSync.toArray();
+    for(int i = 0; i < conflicts.length; i++){
+      SyncTransTinstTriple sttt = (SyncTransTinstTriple)conflicts[i];
+      addConflict(newSync, sttt.trans, sttt.tinst);
     }
   }
 
@@ -238,17 +362,7 @@ public class ChannelRegistry  {
    */
   public static String matchingSync(String sync)
     throws Exception {
-    int firstShriek = sync.indexOf('!');
-    int firstQuery  = sync.indexOf('?');
-    if( ( (firstShriek < 0) && (firstQuery < 0)) ||
-	( (firstShriek >= 0) && (firstQuery >= 0)) ||
-	( max(firstShriek, firstQuery) != (sync.length() -1) ) )
-      throw new Exception("ERROR: not a valid sync: >>" + sync + "<<");
-
-    if(firstQuery > firstShriek)
-      return sync.substring(0, sync.length() -1) + "!";
-    else
-      return sync.substring(0, sync.length() -1) + "?";
+    return Sync.parse(sync).matching().toString();
   }
   /**
    * Return channel of sync (handshake)<BR>
@@ -256,14 +370,7 @@ public class ChannelRegistry  {
    */
   public static String chanOfSync(String sync)
     throws Exception {
-    int firstShriek = sync.indexOf('!');
-    int firstQuery  = sync.indexOf('?');
-    if( ( (firstShriek < 0) && (firstQuery < 0)) ||
-	( (firstShriek >= 0) && (firstQuery >= 0)) ||
-	( max(firstShriek, firstQuery) != (sync.length() -1) ) )
-      throw new Exception("ERROR: not a valid sync: >>" + sync + "<<");
-    
-    return sync.substring(0, sync.length() -1);
+    return Sync.parse(sync).channel;
   }
 
   /**
@@ -272,14 +379,7 @@ public class ChannelRegistry  {
    */
   public static String typeOfSync(String sync)
     throws Exception {
-    int firstShriek = sync.indexOf('!');
-    int firstQuery  = sync.indexOf('?');
-    if( ( (firstShriek < 0) && (firstQuery < 0)) ||
-	( (firstShriek >= 0) && (firstQuery >= 0)) ||
-	( max(firstShriek, firstQuery) != (sync.length() -1) ) )
-      throw new Exception("ERROR: not a valid sync: >>" + sync + "<<");
-    
-    return sync.substring(sync.length() -1);
+    return String.valueOf(Sync.parse(sync).direction);
   }
   
 
@@ -296,53 +396,77 @@ public class ChannelRegistry  {
   /**
    * New (uniquifying) postfix to keep track of channel copies
    */
-  public static String newPostfix(){
-    channelCopyCounter++;
-    return uniquePostfix + channelCopyCounter;
+  public String newPostfix(){
+    return uniquePostfix + names.next(NameAllocator.CHANNEL_COPY);
   }
   
   // =================================================================
   // Auxillary Methods (internal)
   // =================================================================
-  
+
   /**
-   * Check Hashtable for entry
+   * Build the index (once): number the instantiation tree and enter the
+   * syncs registered so far.
    */
-  private boolean occursIn(String sync, TextualInstantiation tinst){
-
-    Object hashed = mapTinstToHashtable.get(tinst);
+  private void buildIndex(){
+    if(null != mapSyncToOccurrences)
+      return;
+
+    mapSyncToOccurrences = new Hashtable();
+    rootOfInstTree.numberNodes();
+    for(Enumeration e = mapTinstToHashtable.keys(); e.hasMoreElements(); ){
+      TextualInstantiation tinst = (TextualInstantiation)e.nextElement();
+      for(Enumeration f = ((Hashtable)mapTinstToHashtable.get(tinst)).keys(); f.hasMoreElements(); )
+	indexOccurrence((Sync)f.nextElement(), tinst);
+    }
+  }
 
-    if(null == hashed)
-      return false;
-    else 
-      return ((Hashtable)hashed).containsKey(sync);
+  /**
+   * Enter that <TT>sync</TT> occurs in <TT>tinst</TT> into the index.
+   * Textual instantiations outside the tree are never looked for, hence 
+   * not entered.
+   */
+  private void indexOccurrence(Sync sync, TextualInstantiation tinst){
+    InstantiationTree node = rootOfInstTree.findNodeWithContent(tinst);
+    if(null == node)
+      return;
+
+    SortedMap occurrences = (SortedMap)mapSyncToOccurrences.get(sync);
+    if(null == occurrences){
+      occurrences = new TreeMap();
+      mapSyncToOccurrences.put(sync, occurrences);
+    }
+    occurrences.put(Integer.valueOf(node.preOrder), tinst);
   }
 
   /**
-   * Enumerate textual Instantiations (including root) outside a specific 
-   * one,
-   * i.e., above and incomparable to it.
+   * Textual Instantiations (including root) carrying <TT>sync</TT> 
+   * outside a specific one,
+   * i.e., above and incomparable to it; in pre-order.
    */
-  private Enumeration enumTinstsOutsideTinst(TextualInstantiation tinst){
-    Stack treeNodes = new Stack();
-    treeNodes.push(rootOfInstTree);
-    Vector result = new Vector();
+  private Vector tinstsWithSyncOutsideTinst(Sync sync,
+					    TextualInstantiation tinst){
+    buildIndex();
 
-    while(!treeNodes.empty()){
-      InstantiationTree it = (InstantiationTree)treeNodes.pop();
-      if(tinst != it.content){
-	result.addElement(it.content);
-	treeNodes.addAll(it.children);
-      }
+    Vector result = new Vector();
+    SortedMap occurrences = (SortedMap)mapSyncToOccurrences.get(sync);
+    if(null == occurrences)
+      return result;
+
+    InstantiationTree node = rootOfInstTree.findNodeWithContent(tinst);
+    if(null == node){
+      result.addAll(occurrences.values());
+      return result;
     }
-
-    return result.elements();
+    result.addAll((occurrences.headMap(Integer.valueOf(node.preOrder))).values());
+    result.addAll((occurrences.tailMap(Integer.valueOf(node.subtreeEnd + 1))).values());
+    return result;
   }
 
   /**
    * Return vector of entires, of empty vector if there are none.
    */
-  private Vector allTransitionsWithSyncInTinst(String sync,
+  private Vector allTransitionsWithSyncInTinst(Sync sync,
 					       TextualInstantiation tinst){
     Object hashed = mapTinstToHashtable.get(tinst);
     
@@ -363,15 +487,27 @@ public class ChannelRegistry  {
    */
   public Enumeration enumTinstTransitionsWithSyncOutsideTinst(String sync,
 							       TextualInstantiation tinst){
+    Sync parsed = Sync.parseIfValid(sync);
+    if(null == parsed)
+      return (new Vector()).elements();
+    return tinstTransitionsWithSyncOutsideTinst(parsed, tinst).elements();
+  }
+
+  /**
+   * The transitions OUTSIDE a tinst, as a Vector of TinstElementPairs
+   * (in pre-order of their tinst, each tinst in order of registration)
+   */
+  public Vector tinstTransitionsWithSyncOutsideTinst(Sync sync,
+						     TextualInstantiation tinst){
     Vector result = new Vector();
     
-    for(Enumeration e = enumTinstsOutsideTinst(tinst); e.hasMoreElements(); ){
+    for(Enumeration e = tinstsWithSyncOutsideTinst(sync, tinst).elements(); e.hasMoreElements(); ){
       TextualInstantiation transTinst = (TextualInstantiation)e.nextElement();
       for(Enumeration f = allTransitionsWithSyncInTinst(sync, transTinst ).elements(); f.hasMoreElements(); ){
 	result.addElement(new TinstElementPair(transTinst,
 					       (Element)f.nextElement()));
       }
     }
-    return result.elements();
+    return result;
   }
 }
@@ -0,0 +1,140 @@
+// -*- mode: JDE; c-basic-offset: 2; -*-
+// /////////////////////////////////////////////////////////////
+// Phase III: duplication of channels
+//
+// Synopsis:
+//  Huppaal
+// /////////////////////////////////////////////////////////////
+// @FILE:    ChannelSplitter.java
+// @FORMAT:  java
+// @AUTHOR:  agent     <agent@local>
+// @BEGUN:   Sat Oct 17 18:20:12 2026
+// @VERSION: Vanilla-1                  Sat Oct 17 18:20:12 2026
+// /////////////////////////////////////////////////////////////
+//
+
+import java.lang.*;
+
+import java.util.Vector;
+
+import org.w3c.dom.Element;
+
+//**** from other packages
+
+//****************************************
+
+/**
+ * <TT>Phase III</TT> of translation: works off the conflicts of the
+ * {@link ChannelRegistry} until none is left.<BR>
+ * <BR>
+ * A conflict (sync, transition, tinst) is a synchronisation on the
+ * translation of a global join, leaving the component <TT>tinst</TT>. If
+ * the matching sync occurs in or below <TT>tinst</TT>, the transition gets
+ * a fresh copy of the channel, and all transitions with the matching sync
+ * outside <TT>tinst</TT> are cloned onto the fresh channel (all at once).
+ * <BR>
+ * The registry never queues the same conflict twice.
+ *
+ * @see Flatten ChannelRegistry Sync
+ * @author <A HREF="MAILTO:agent@local?subject=ChannelSplitter.java%20(Vanilla-1%20Sat%20Oct%2017%2018:20:12%202026)">agent</A>
+ * @version Vanilla-1                  Sat Oct 17 18:20:12 2026
+ */
+public class ChannelSplitter  {
+
+  // //////////////////////////////////////////////////////////////////////
+  // ////////////////////////////// FIELDS ////////////////////////////////
+  // //////////////////////////////////////////////////////////////////////
+
+  private ChannelRegistry cr;
+
+  private FlatDocumentWriter fdw;
+
+  /**
+   * For Spamming out information
+   */
+  public static boolean debug = false;
+
+  // //////////////////////////////////////////////////////////////////////
+  // //////////////////////////  CONSTRUCTORS  ////////////////////////////
+  // //////////////////////////////////////////////////////////////////////
+
+  /**
+   * Default Constructor: Needs references
+   */
+  public ChannelSplitter(ChannelRegistry theChannelRegistry,
+			 FlatDocumentWriter theFlatDocumentWriter){
+    cr = theChannelRegistry;
+    fdw = theFlatDocumentWriter;
+  }
+
+  // //////////////////////////////////////////////////////////////////////
+  // ///////////////////////////// METHODS  ///////////////////////////////
+  // //////////////////////////////////////////////////////////////////////
+
+  /**
+   * Resolve all conflicts.<BR>
+   * <BR>
+   * Returns the number of channel copies made.
+   */
+  public int run()
+    throws Exception {
+    int copies = 0;
+    while(cr.hasConflicts())
+      if(split(cr.nextConflict()))
+	copies++;
+
+    if(debug)
+      System.out.println("==] Phase III: " + copies + " channel copies");
+    return copies;
+  }
+
+  /**
+   * Resolve one conflict.<BR>
+   * <BR>
+   * Returns <TT>false</TT>, if there was nothing to do.
+   */
+  private boolean split(SyncTransTinstTriple conflict)
+    throws Exception {
+    Sync sync = conflict.sync;
+    Element trans = conflict.trans;
+    TextualInstantiation tinst = conflict.tinst; // tinst of sub-component
+    Sync match = sync.matching();
+
+    if(!cr.occursInOrBelow(match, tinst))
+      return false;
+
+    // -- fresh channel for the transition itself ------------------------
+    String newChan = sync.channel + cr.newPostfix();
+    fdw.copyChannelDeclaration(sync.channel, newChan);
+    Sync changedSync = sync.onChannel(newChan);
+    if(debug)
+      System.out.println("==] splitting " + sync + " into " + changedSync);
+
+    cr.unregisterSync(sync, trans, tinst.father);
+    fdw.changeSyncTextAtTransition(trans, changedSync.toString());
+    cr.registerSync(changedSync, trans, tinst.father);
+
+    // -- clone all matching transitions outside -------------------------
+    Vector matches = cr.tinstTransitionsWithSyncOutsideTinst(match, tinst);
+    if(matches.isEmpty())
+      return true;
+
+    Sync changedMatch = changedSync.matching();
+    String changedMatchText = changedMatch.toString();
+    Element[] clones = new Element[matches.size()];
+    for(int i = 0; i < clones.length; i++){
+      TinstElementPair tip = (TinstElementPair)matches.elementAt(i);
+      clones[i] = fdw.cloneTransition(tip.element);
+      fdw.changeSyncTextAtTransition(clones[i], changedMatchText);
+    }
+    for(int i = 0; i < clones.length; i++)
+      cr.registerSync(changedMatch, clones[i],
+		      ((TinstElementPair)matches.elementAt(i)).tinst);
+
+    // -- other conflicts on the old sync also have to be checked for the new one
+    cr.addConflictsForNewSync(sync, changedSync);
+
+    return true;
+  }
+
+}
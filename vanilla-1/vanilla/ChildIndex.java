@@ -0,0 +1,171 @@
+// -*- mode: JDE; c-basic-offset: 2; -*-
+// /////////////////////////////////////////////////////////////
+// Index of child elements by tag name
+//
+// Synopsis:
+//  Huppaal
+// /////////////////////////////////////////////////////////////
+// @TABLE OF CONTENTS:
+//
+//  [1] Building (while loading)
+//  [2] Lookup
+//  [3] Invalidation
+// ==========================================================
+// @FILE:    ChildIndex.java
+// @FORMAT:  java
+// @AUTHOR:  agent     <agent@local>
+// @BEGUN:   Sat Oct 17 14:31:02 2026
+// @VERSION: Vanilla-1                  Sat Oct 17 14:31:02 2026
+// /////////////////////////////////////////////////////////////
+//
+
+import java.lang.*;
+
+import java.util.Hashtable;
+import java.util.Vector;
+import java.util.Enumeration;
+
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+//**** from other packages
+
+//****************************************
+
+/**
+ * Index of the child elements of the elements of one document, by tag
+ * name; used by the lookup methods of a {@link DocumentReader} session.
+ * <BR>
+ * <BR>
+ * The index is built by the {@link HierarchicalDocumentLoader} while it
+ * reads the document: an element is {@link #addChild}ed to its parent
+ * and {@link #seal}ed, when its end tag is read. Afterwards the index is
+ * only read (also by several threads at once), and every lookup of a
+ * sealed element returns the same (read-only) list.<BR>
+ * <BR>
+ * The index does not notice changes of the document: whoever changes
+ * the children of an element has to {@link #invalidate} it (see
+ * {@link DocumentReader#appendChild}). Elements that are not indexed
+ * (created later, or invalidated) are looked up by the reader with a
+ * linear scan.
+ *
+ * @see DocumentReader ImmutableNodeListImpl
+ * @author <A HREF="MAILTO:agent@local?subject=ChildIndex.java%20(Vanilla-1%20Sat%20Oct%2017%2014:31:02%202026)">agent</A>
+ * @version Vanilla-1                  Sat Oct 17 14:31:02 2026
+ */
+public class ChildIndex  {
+
+  // //////////////////////////////////////////////////////////////////////
+  // ////////////////////////////// FIELDS ////////////////////////////////
+  // //////////////////////////////////////////////////////////////////////
+
+  /**
+   * Tag table of the elements without child elements (shared, never
+   * changed)
+   */
+  private static final Hashtable noChildren = new Hashtable();
+
+  /**
+   * Maps sealed elements to Hashtables that map tag names to
+   * {@link ImmutableNodeListImpl}s of children
+   */
+  private Hashtable hashElementsToTagTables;
+
+  /**
+   * Maps open elements (start tag read, end tag not yet) to Hashtables
+   * that map tag names to Vectors of the children read so far
+   */
+  private Hashtable hashOpenElementsToChildren;
+
+  // //////////////////////////////////////////////////////////////////////
+  // //////////////////////////  CONSTRUCTORS  ////////////////////////////
+  // //////////////////////////////////////////////////////////////////////
+
+  /**
+   * Default Constructor: nothing is indexed yet
+   */
+  public ChildIndex(){
+    hashElementsToTagTables = new Hashtable();
+    hashOpenElementsToChildren = new Hashtable();
+  }
+
+  // //////////////////////////////////////////////////////////////////////
+  // ///////////////////////////// METHODS  ///////////////////////////////
+  // //////////////////////////////////////////////////////////////////////
+
+  // =================================================================
+  // [1] Building (while loading)
+  // =================================================================
+
+  /**
+   * <TT>child</TT> was appended to the (open) element <TT>parent</TT>
+   */
+  public void addChild(Element parent, Element child){
+    Hashtable children = (Hashtable)hashOpenElementsToChildren.get(parent);
+    if(null == children){
+      children = new Hashtable();
+      hashOpenElementsToChildren.put(parent, children);
+    }
+    Vector withTag = (Vector)children.get(child.getTagName());
+    if(null == withTag){
+      withTag = new Vector();
+      children.put(child.getTagName(), withTag);
+    }
+    withTag.addElement(child);
+  }
+
+  /**
+   * All children of <TT>el</TT> have been added: from now on, it is
+   * answered by the index
+   */
+  public void seal(Element el){
+    Hashtable children = (Hashtable)hashOpenElementsToChildren.remove(el);
+    if(null == children){
+      hashElementsToTagTables.put(el, noChildren);
+      return;
+    }
+
+    Hashtable tagTable = new Hashtable();
+    for(Enumeration e = children.keys(); e.hasMoreElements(); ){
+      String tag = (String)e.nextElement();
+      Vector withTag = (Vector)children.get(tag);
+      Node[] nodes = new Node[withTag.size()];
+      withTag.copyInto(nodes);
+      tagTable.put(tag, new ImmutableNodeListImpl(nodes, nodes.length));
+    }
+    hashElementsToTagTables.put(el, tagTable);
+  }
+
+  // =================================================================
+  // [2] Lookup
+  // =================================================================
+
+  /**
+   * All child elements of <TT>el</TT> with tag <TT>label</TT>, in
+   * document order; <TT>null</TT>, if <TT>el</TT> is not indexed.<BR>
+   * The list must not be changed.
+   */
+  public NodeList childrenWithLabel(Element el, String label){
+    Hashtable tagTable = (Hashtable)hashElementsToTagTables.get(el);
+    if(null == tagTable)
+      return null;
+
+    NodeList result = (NodeList)tagTable.get(label);
+    if(null == result)
+      return ImmutableNodeListImpl.EMPTY;
+    return result;
+  }
+
+  // =================================================================
+  // [3] Invalidation
+  // =================================================================
+
+  /**
+   * The children of <TT>el</TT> were changed: forget about it
+   */
+  public void invalidate(Element el){
+    hashElementsToTagTables.remove(el);
+  }
+
+}
@@ -17,8 +17,6 @@
 
 import java.lang.*;
 
-import java.util.Hashtable;
-
 import org.w3c.dom.Element;
 
 //**** from other packages 
@@ -46,13 +44,19 @@ public class ComponentMapper  {
 
 
   /**
-   * Maps (basic) hierarchical components to another hashtable, that
-   * TextualInstantiation to TextualInstantiation, namely those
+   * Maps pairs (hierarchical component, TextualInstantiation) to 
+   * TextualInstantiations, namely those
    * that correspond to the instantiation of the component in this context.
    * 
    * @see GlobalJoin
    */
-  private Hashtable hashHierarchicalComponentsToHashtable;
+  private CompositeKeyMap hashComponentsToTextualInstantiations;
+
+  /**
+   * Counters of the flattening session, for newly created
+   * TextualInstantiations
+   */
+  private NameAllocator names;
 
   // ===================================
   // Auxillary
@@ -68,11 +72,12 @@ public class ComponentMapper  {
   // //////////////////////////////////////////////////////////////////////
 
   /**
-   * Default Constructor
+   * Default Constructor: Needs the counters of the flattening session
    */
-  public ComponentMapper(){
+  public ComponentMapper(NameAllocator theNames){
     
-    hashHierarchicalComponentsToHashtable = new Hashtable();
+    names = theNames;
+    hashComponentsToTextualInstantiations = new CompositeKeyMap();
   }
 
   // //////////////////////////////////////////////////////////////////////
@@ -102,11 +107,9 @@ public class ComponentMapper  {
     if(debug)
       System.out.println("$$$$ ComponentMapper Retrieving: \n" + component.toString() + "\n" + tinst.toString());
 
-    Object hashed = hashHierarchicalComponentsToHashtable.get(component);
-    Object mem;
-    if( (null == hashed) ||
-	(null == (mem = ((Hashtable)hashed).get(tinst)))  ){
-      TextualInstantiation result = new TextualInstantiation();
+    Object mem = hashComponentsToTextualInstantiations.get(component, tinst);
+    if(null == mem){
+      TextualInstantiation result = new TextualInstantiation(names);
       enterTextualInstantiation(component, tinst, result);
     
       if(debug)
@@ -138,14 +141,6 @@ public class ComponentMapper  {
       System.out.println("$$$$ ComponentMapper entry: \n" + component.toString() + "\nx " + tinst.toString() + "\n-> " + subTinst.toString());
 
     
-    Object hashed = hashHierarchicalComponentsToHashtable.get(component);
-    if(null == hashed){
-      Hashtable subHash = new Hashtable();
-      hashHierarchicalComponentsToHashtable.put(component, subHash);
-      subHash.put(tinst, subTinst);
-    }
-    else { 
-      ((Hashtable)hashed).put(tinst, subTinst);
-    }
+    hashComponentsToTextualInstantiations.put(component, tinst, subTinst);
   }
 }
@@ -0,0 +1,175 @@
+// -*- mode: JDE; c-basic-offset: 2; -*-
+// /////////////////////////////////////////////////////////////
+// Map with keys made of two or three parts
+//
+// Synopsis:
+//  Huppaal
+// /////////////////////////////////////////////////////////////
+// @FILE:    CompositeKeyMap.java
+// @FORMAT:  java
+// @AUTHOR:  agent     <agent@local>
+// @BEGUN:   Sat Oct 17 18:51:07 2026
+// @VERSION: Vanilla-1                  Sat Oct 17 18:51:07 2026
+// /////////////////////////////////////////////////////////////
+//
+
+import java.lang.*;
+
+//**** from other packages
+
+//****************************************
+
+/**
+ * Maps keys <TT>(first, second)</TT> or <TT>(first, second, third)</TT> to
+ * values, e.g. <TT>Location * TextualInstantiation -> Location</TT>.<BR>
+ * <BR>
+ * The parts are compared with <TT>equals</TT> (as in a <TT>Hashtable</TT>);
+ * <TT>first</TT> and <TT>second</TT> must not be <TT>null</TT>. No key
+ * object is built: the parts are stored side by side in an open
+ * addressing table, so a lookup hashes once and allocates nothing.<BR>
+ * <BR>
+ * <B>NOTE:</B> not synchronized. Concurrent <TT>get</TT>s are fine, as long
+ * as nobody <TT>put</TT>s meanwhile.
+ *
+ * @see LocationMapper ComponentMapper
+ * @author <A HREF="MAILTO:agent@local?subject=CompositeKeyMap.java%20(Vanilla-1%20Sat%20Oct%2017%2018:51:07%202026)">agent</A>
+ * @version Vanilla-1                  Sat Oct 17 18:51:07 2026
+ */
+public class CompositeKeyMap  {
+
+  // //////////////////////////////////////////////////////////////////////
+  // ////////////////////////////// FIELDS ////////////////////////////////
+  // //////////////////////////////////////////////////////////////////////
+
+  private Object[] firsts;
+  private Object[] seconds;
+  private Object[] thirds;
+  private Object[] values;
+
+  /**
+   * Number of entries
+   */
+  private int size;
+
+  /**
+   * <TT>firsts.length - 1</TT> (the length is a power of 2)
+   */
+  private int mask;
+
+  // //////////////////////////////////////////////////////////////////////
+  // //////////////////////////  CONSTRUCTORS  ////////////////////////////
+  // //////////////////////////////////////////////////////////////////////
+
+  /**
+   * Default Constructor: empty map
+   */
+  public CompositeKeyMap(){
+    allocate(16);
+  }
+
+  // //////////////////////////////////////////////////////////////////////
+  // ///////////////////////////// METHODS  ///////////////////////////////
+  // //////////////////////////////////////////////////////////////////////
+
+  /**
+   * The value for <TT>(first, second)</TT>; <TT>null</TT>, if there is none
+   */
+  public Object get(Object first, Object second){
+    return get(first, second, null);
+  }
+
+  /**
+   * The value for <TT>(first, second, third)</TT>; <TT>null</TT>, if there
+   * is none
+   */
+  public Object get(Object first, Object second, Object third){
+    int i = slot(first, second, third);
+    return (null == firsts[i]) ? null : values[i];
+  }
+
+  /**
+   * Enter <TT>value</TT> for <TT>(first, second)</TT>; returns the old
+   * value (or <TT>null</TT>)
+   */
+  public Object put(Object first, Object second, Object value){
+    return put(first, second, null, value);
+  }
+
+  /**
+   * Enter <TT>value</TT> for <TT>(first, second, third)</TT>; returns the
+   * old value (or <TT>null</TT>)
+   */
+  public Object put(Object first, Object second, Object third, Object value){
+    int i = slot(first, second, third);
+    if(null != firsts[i]){
+      Object old = values[i];
+      values[i] = value;
+      return old;
+    }
+    firsts[i] = first;
+    seconds[i] = second;
+    thirds[i] = third;
+    values[i] = value;
+    if(2 * (++size) > firsts.length)
+      rehash();
+    return null;
+  }
+
+  public int size(){
+    return size;
+  }
+
+  // =================================================================
+  // Auxillary Methods (internal)
+  // =================================================================
+
+  /**
+   * The slot holding the key, or the empty slot where it belongs
+   */
+  private int slot(Object first, Object second, Object third){
+    int h = first.hashCode();
+    h = 31 * h + second.hashCode();
+    if(null != third)
+      h = 31 * h + third.hashCode();
+    h ^= (h >>> 16);
+
+    for(int i = h & mask; ; i = (i + 1) & mask){
+      Object f = firsts[i];
+      if( (null == f) ||
+	  ( f.equals(first) &&
+	    seconds[i].equals(second) &&
+	    ( (null == third) ? (null == thirds[i]) : third.equals(thirds[i]) ) ) )
+	return i;
+    }
+  }
+
+  /**
+   * Double the capacity
+   */
+  private void rehash(){
+    Object[] oldFirsts = firsts;
+    Object[] oldSeconds = seconds;
+    Object[] oldThirds = thirds;
+    Object[] oldValues = values;
+
+    allocate(2 * oldFirsts.length);
+    for(int j = 0; j < oldFirsts.length; j++){
+      if(null != oldFirsts[j]){
+	int i = slot(oldFirsts[j], oldSeconds[j], oldThirds[j]);
+	firsts[i] = oldFirsts[j];
+	seconds[i] = oldSeconds[j];
+	thirds[i] = oldThirds[j];
+	values[i] = oldValues[j];
+      }
+    }
+  }
+
+  private void allocate(int capacity){
+    firsts = new Object[capacity];
+    seconds = new Object[capacity];
+    thirds = new Object[capacity];
+    values = new Object[capacity];
+    mask = capacity - 1;
+  }
+
+}
@@ -0,0 +1,156 @@
+// -*- mode: JDE; c-basic-offset: 2; -*-
+// /////////////////////////////////////////////////////////////
+// Keeps the huppaal DTDs in memory
+//
+// Synopsis:
+//  Huppaal
+// /////////////////////////////////////////////////////////////
+// @FILE:    DTDCache.java
+// @FORMAT:  java
+// @AUTHOR:  agent     <agent@local>
+// @BEGUN:   Sat Oct 17 11:12:40 2026
+// @VERSION: Vanilla-1                  Sat Oct 17 11:12:40 2026
+// /////////////////////////////////////////////////////////////
+//
+
+import java.lang.*;
+import java.io.*;
+
+import java.util.Hashtable;
+
+import org.xml.sax.EntityResolver;
+import org.xml.sax.InputSource;
+
+//**** from other packages
+
+//****************************************
+
+/**
+ * Entity resolver that serves the DTDs of hierarchical documents
+ * (<TT>huppaal-0.6.dtd</TT>, <TT>huppaal-1.3.dtd</TT>) and of flat ones
+ * (<TT>uppaal-1.4.dtd</TT>) from memory.<BR>
+ * <BR>
+ * A DTD is recognized by the last path component of its system ID, so
+ * also a remote DOCTYPE like
+ * <TT>http://www.brics.dk/~omoeller/hta/xml/huppaal-0.6.dtd</TT> is
+ * resolved locally. Every DTD is read from disk at most once; the object
+ * can be shared by several parsing threads.<BR>
+ * <BR>
+ * Unknown system IDs are left to the parser (<TT>null</TT> is returned).
+ *
+ * @see BatchFlatten
+ * @author <A HREF="MAILTO:agent@local?subject=DTDCache.java%20(Vanilla-1%20Sat%20Oct%2017%2011:12:40%202026)">agent</A>
+ * @version Vanilla-1                  Sat Oct 17 11:12:40 2026
+ */
+public class DTDCache
+  implements EntityResolver {
+
+  // //////////////////////////////////////////////////////////////////////
+  // ////////////////////////////// FIELDS ////////////////////////////////
+  // //////////////////////////////////////////////////////////////////////
+
+  /**
+   * The DTDs that are served from memory (the flat one is needed to
+   * validate translations)
+   */
+  public static final String[] knownDTDs = { HierarchicalDocumentReader.huppaalDTD,
+					     "huppaal-1.3.dtd",
+					     FlatDocumentWriter.uppaalDTD };
+
+  /**
+   * Directories searched for the DTD files, in this order
+   */
+  private File[] searchPath;
+
+  /**
+   * Maps DTD file names to their contents (byte arrays)
+   */
+  private Hashtable hashNamesToContents;
+
+  // //////////////////////////////////////////////////////////////////////
+  // //////////////////////////  CONSTRUCTORS  ////////////////////////////
+  // //////////////////////////////////////////////////////////////////////
+
+  /**
+   * Default Constructor: the DTD files are searched in the given
+   * directories
+   */
+  public DTDCache(File[] theSearchPath){
+    searchPath = theSearchPath;
+    hashNamesToContents = new Hashtable();
+  }
+
+  // //////////////////////////////////////////////////////////////////////
+  // ///////////////////////////// METHODS  ///////////////////////////////
+  // //////////////////////////////////////////////////////////////////////
+
+  /**
+   * Returns the cached DTD, if <TT>systemId</TT> names one of the
+   * {@link #knownDTDs} and the file can be found; <TT>null</TT> otherwise.
+   */
+  public InputSource resolveEntity(String publicId, String systemId)
+    throws IOException {
+
+    if(null == systemId)
+      return null;
+
+    String name = systemId.substring(systemId.lastIndexOf('/') + 1);
+    byte[] contents = getContents(name);
+    if(null == contents)
+      return null;
+
+    InputSource source = new InputSource(new ByteArrayInputStream(contents));
+    source.setPublicId(publicId);
+    source.setSystemId(systemId);
+    return source;
+  }
+
+  /**
+   * Returns the contents of the DTD with this file name, reading it on
+   * first request.<BR>
+   * <TT>null</TT>, if it is not a known DTD or not found.
+   */
+  private synchronized byte[] getContents(String name)
+    throws IOException {
+
+    byte[] contents = (byte[])hashNamesToContents.get(name);
+    if(null != contents)
+      return contents;
+
+    boolean known = false;
+    for(int i = 0; i < knownDTDs.length; i++)
+      known = known || knownDTDs[i].equals(name);
+    if(!known)
+      return null;
+
+    for(int i = 0; (null == contents) && (i < searchPath.length); i++){
+      File file = new File(searchPath[i], name);
+      if(file.isFile())
+	contents = readFile(file);
+    }
+    if(null != contents)
+      hashNamesToContents.put(name, contents);
+
+    return contents;
+  }
+
+  /**
+   * Reads a whole file
+   */
+  private static byte[] readFile(File file)
+    throws IOException {
+
+    InputStream in = new BufferedInputStream(new FileInputStream(file));
+    try {
+      ByteArrayOutputStream buf = new ByteArrayOutputStream((int)file.length());
+      byte[] chunk = new byte[4096];
+      int n;
+      while((n = in.read(chunk)) > 0)
+	buf.write(chunk, 0, n);
+      return buf.toByteArray();
+    } finally {
+      in.close();
+    }
+  }
+
+}
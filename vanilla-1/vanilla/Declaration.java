@@ -0,0 +1,98 @@
+// -*- mode: JDE; c-basic-offset: 2; -*-
+// /////////////////////////////////////////////////////////////
+// One declared name of the global declarations
+//
+// Synopsis:
+//  Huppaal
+// /////////////////////////////////////////////////////////////
+// @FILE:    Declaration.java
+// @FORMAT:  java
+// @AUTHOR:  agent     <agent@local>
+// @BEGUN:   Sat Oct 17 15:20:11 2026
+// @VERSION: Vanilla-1                  Sat Oct 17 15:20:11 2026
+// /////////////////////////////////////////////////////////////
+//
+
+import java.lang.*;
+
+//**** from other packages
+
+//****************************************
+
+/**
+ * Entry of a {@link DeclarationTable}: a declared name together with its
+ * type, e.g. <TT>VPace</TT> declared by <TT>urgent chan VPace;</TT>.
+ *
+ * @see DeclarationTable
+ * @author <A HREF="MAILTO:agent@local?subject=Declaration.java%20(Vanilla-1%20Sat%20Oct%2017%2015:20:11%202026)">agent</A>
+ * @version Vanilla-1                  Sat Oct 17 15:20:11 2026
+ */
+public class Declaration  {
+
+  // //////////////////////////////////////////////////////////////////////
+  // ////////////////////////////// FIELDS ////////////////////////////////
+  // //////////////////////////////////////////////////////////////////////
+
+  /**
+   * The declared name
+   */
+  public final String name;
+
+  /**
+   * The type keyword, e.g. <TT>chan</TT>, <TT>int</TT>, <TT>clock</TT>,
+   * <TT>const</TT>
+   */
+  public final String type;
+
+  /**
+   * The text in front of the name, as written (prefixes, type and range,
+   * with the whitespace), e.g. <TT>"urgent chan "</TT> or
+   * <TT>"int[0,1] "</TT>
+   */
+  public final String typeText;
+
+  /**
+   * Declared <TT>urgent</TT>
+   */
+  public final boolean urgent;
+
+  /**
+   * Declared <TT>broadcast</TT>
+   */
+  public final boolean broadcast;
+
+  // //////////////////////////////////////////////////////////////////////
+  // //////////////////////////  CONSTRUCTORS  ////////////////////////////
+  // //////////////////////////////////////////////////////////////////////
+
+  /**
+   * Default Constructor
+   */
+  public Declaration(String theName,
+		     String theType,
+		     String theTypeText,
+		     boolean isUrgent,
+		     boolean isBroadcast){
+    name = theName;
+    type = theType;
+    typeText = theTypeText;
+    urgent = isUrgent;
+    broadcast = isBroadcast;
+  }
+
+  // //////////////////////////////////////////////////////////////////////
+  // ///////////////////////////// METHODS  ///////////////////////////////
+  // //////////////////////////////////////////////////////////////////////
+
+  /**
+   * Is this (an array of) channel(s)?
+   */
+  public boolean isChannel(){
+    return type.equals("chan");
+  }
+
+  public String toString(){
+    return typeText + name;
+  }
+
+}
@@ -0,0 +1,342 @@
+// -*- mode: JDE; c-basic-offset: 2; -*-
+// /////////////////////////////////////////////////////////////
+// Symbol table of the global declarations of a flat document
+//
+// Synopsis:
+//  Huppaal
+// /////////////////////////////////////////////////////////////
+// @TABLE OF CONTENTS:
+//
+//  [1] Adding declarations
+//  [2] Lookup
+//  [3] Text
+//  [4] Parsing
+// ==========================================================
+// @FILE:    DeclarationTable.java
+// @FORMAT:  java
+// @AUTHOR:  agent     <agent@local>
+// @BEGUN:   Sat Oct 17 15:24:37 2026
+// @VERSION: Vanilla-1                  Sat Oct 17 15:24:37 2026
+// /////////////////////////////////////////////////////////////
+//
+
+import java.lang.*;
+
+import java.util.Vector;
+import java.util.Hashtable;
+import java.util.Enumeration;
+
+//**** from other packages
+
+//****************************************
+
+/**
+ * The global declarations of a flat document: the text pieces in the
+ * order they were added, plus a table of all declared names
+ * ({@link Declaration}s).<BR>
+ * <BR>
+ * Every piece of text is parsed once, when it is added; comments
+ * (<TT>//</TT> and <TT>/* ... *&#47;</TT>) are skipped, so commented
+ * declarations are not entered. A statement may be split over several
+ * pieces.<BR>
+ * <BR>
+ * The text is put together only once, by <TT>{@link #getText}</TT>.
+ *
+ * @see FlatDocumentWriter Declaration
+ * @author <A HREF="MAILTO:agent@local?subject=DeclarationTable.java%20(Vanilla-1%20Sat%20Oct%2017%2015:24:37%202026)">agent</A>
+ * @version Vanilla-1                  Sat Oct 17 15:24:37 2026
+ */
+public class DeclarationTable  {
+
+  // //////////////////////////////////////////////////////////////////////
+  // ////////////////////////////// FIELDS ////////////////////////////////
+  // //////////////////////////////////////////////////////////////////////
+
+  /**
+   * Prefixes that may stand in front of the type
+   */
+  private static final String[] typePrefixes = { "urgent", "broadcast", "meta" };
+
+  /**
+   * The text pieces (<TT>String</TT>s), in order
+   */
+  private Vector pieces;
+
+  /**
+   * Maps the declared names to their {@link Declaration}s
+   */
+  private Hashtable hashNamesToDeclarations;
+
+  // -- parsing state (carried over from piece to piece) -------------------
+
+  /**
+   * The current statement (without comments), up to the next <TT>';'</TT>
+   */
+  private StringBuffer statement;
+
+  /**
+   * Inside a <TT>//</TT> comment
+   */
+  private boolean inLineComment;
+
+  /**
+   * Inside a <TT>/* *&#47;</TT> comment
+   */
+  private boolean inBlockComment;
+
+  /**
+   * The last character seen, if it might start or end a comment
+   * (<TT>'/'</TT> or <TT>'*'</TT>); <TT>0</TT> otherwise
+   */
+  private char pending;
+
+  /**
+   * For Spamming out information
+   */
+  public static boolean debug = false;
+
+  // //////////////////////////////////////////////////////////////////////
+  // //////////////////////////  CONSTRUCTORS  ////////////////////////////
+  // //////////////////////////////////////////////////////////////////////
+
+  /**
+   * Default Constructor: no declarations
+   */
+  public DeclarationTable(){
+    pieces = new Vector();
+    hashNamesToDeclarations = new Hashtable();
+    statement = new StringBuffer();
+  }
+
+  // //////////////////////////////////////////////////////////////////////
+  // ///////////////////////////// METHODS  ///////////////////////////////
+  // //////////////////////////////////////////////////////////////////////
+
+  // =================================================================
+  // [1] Adding declarations
+  // =================================================================
+
+  /**
+   * Append some declaration text (used as it is)
+   */
+  public void addText(String s){
+    pieces.addElement(s);
+    parse(s);
+  }
+
+  /**
+   * Declare a new channel of the same kind as <TT>oldChanName</TT>
+   * (<TT>chan</TT>, <TT>urgent chan</TT>, ...).<BR>
+   * <BR>
+   * Returns <TT>false</TT>, if there is no (uncommented) declaration of
+   * <TT>oldChanName</TT> as a channel.
+   */
+  public boolean copyChannel(String oldChanName, String newChanName){
+    Declaration old = lookup(oldChanName);
+    if( (null == old) || !old.isChannel() )
+      return false;
+
+    addText(old.typeText + " " + newChanName + ";\n");
+    return true;
+  }
+
+  // =================================================================
+  // [2] Lookup
+  // =================================================================
+
+  /**
+   * The declaration of <TT>name</TT>; <TT>null</TT>, if not declared
+   */
+  public Declaration lookup(String name){
+    return (Declaration)hashNamesToDeclarations.get(name);
+  }
+
+  /**
+   * Is <TT>name</TT> declared as a channel?
+   */
+  public boolean isChannel(String name){
+    Declaration d = lookup(name);
+    return (null != d) && d.isChannel();
+  }
+
+  // =================================================================
+  // [3] Text
+  // =================================================================
+
+  /**
+   * All declaration text, in the order it was added
+   */
+  public String getText(){
+    int length = 0;
+    for(Enumeration e = pieces.elements(); e.hasMoreElements(); )
+      length += ((String)e.nextElement()).length();
+
+    StringBuffer result = new StringBuffer(length);
+    for(Enumeration e = pieces.elements(); e.hasMoreElements(); )
+      result.append((String)e.nextElement());
+    return result.toString();
+  }
+
+  public String toString(){
+    return getText();
+  }
+
+  // =================================================================
+  // [4] Parsing
+  // =================================================================
+
+  /**
+   * Run through the characters of a new piece; every complete statement
+   * is entered.
+   */
+  private void parse(String s){
+    for(int i = 0; i < s.length(); i++){
+      char c = s.charAt(i);
+
+      if(inLineComment){
+	if(c == '\n' || c == '\r'){
+	  inLineComment = false;
+	  statement.append(c);
+	}
+	continue;
+      }
+      if(inBlockComment){
+	if(pending == '*' && c == '/'){
+	  inBlockComment = false;
+	  pending = 0;
+	  statement.append(' ');
+	}
+	else
+	  pending = (c == '*') ? c : 0;
+	continue;
+      }
+
+      if(pending == '/'){
+	pending = 0;
+	if(c == '/'){
+	  inLineComment = true;
+	  continue;
+	}
+	if(c == '*'){
+	  inBlockComment = true;
+	  continue;
+	}
+	statement.append('/');
+      }
+
+      if(c == '/')
+	pending = c;
+      else if(c == ';'){
+	enterStatement(statement.toString());
+	statement.setLength(0);
+      }
+      else
+	statement.append(c);
+    }
+  }
+
+  /**
+   * Enter the names declared by one statement (without the <TT>';'</TT>),
+   * e.g. <TT>urgent chan a, b</TT> or <TT>int[0,1] x := 1, y</TT>.
+   * Anything not looking like a declaration is ignored.
+   */
+  private void enterStatement(String s){
+    int start = skipWhitespace(s, 0);
+    int i = start;
+    boolean urgent = false;
+    boolean broadcast = false;
+
+    // -- prefixes and type ------------------------------------------------
+    String type = null;
+    while(null == type){
+      int end = skipIdentifier(s, i);
+      if(end == i)
+	return;
+      String word = s.substring(i, end);
+      i = skipWhitespace(s, end);
+      if(word.equals("urgent"))
+	urgent = true;
+      else if(word.equals("broadcast"))
+	broadcast = true;
+      else if(!isTypePrefix(word))
+	type = word;
+    }
+    if( (i < s.length()) && (s.charAt(i) == '[') ){ // -- range, e.g. int[0,1]
+      i = skipBracketed(s, i);
+      i = skipWhitespace(s, i);
+    }
+    String typeText = s.substring(start, i);
+
+    // -- the declared names -----------------------------------------------
+    while(i < s.length()){
+      int end = skipIdentifier(s, i);
+      if(end == i)
+	return;
+      String name = s.substring(i, end);
+      hashNamesToDeclarations.put(name, new Declaration(name, type, typeText,
+							urgent, broadcast));
+      if(debug)
+	System.out.println("::::::::::::::::::::declared: " + typeText + name);
+
+      i = skipToNextDeclarator(s, end);
+    }
+  }
+
+  /**
+   * Returns the position after the next <TT>','</TT> (outside of brackets
+   * and braces) and the following whitespace; the length, if there is
+   * none.
+   */
+  private static int skipToNextDeclarator(String s, int i){
+    int depth = 0;
+    for( ; i < s.length(); i++){
+      char c = s.charAt(i);
+      if(c == '[' || c == '(' || c == '{')
+	depth++;
+      else if(c == ']' || c == ')' || c == '}')
+	depth--;
+      else if(c == ',' && depth == 0)
+	return skipWhitespace(s, i + 1);
+    }
+    return i;
+  }
+
+  /**
+   * Returns the position after the <TT>']'</TT> matching the one at
+   * <TT>i</TT>
+   */
+  private static int skipBracketed(String s, int i){
+    int depth = 0;
+    for( ; i < s.length(); i++){
+      char c = s.charAt(i);
+      if(c == '[')
+	depth++;
+      else if(c == ']' && --depth == 0)
+	return i + 1;
+    }
+    return i;
+  }
+
+  private static int skipWhitespace(String s, int i){
+    while( (i < s.length()) && Character.isWhitespace(s.charAt(i)) )
+      i++;
+    return i;
+  }
+
+  private static int skipIdentifier(String s, int i){
+    if( (i < s.length()) && Character.isJavaIdentifierStart(s.charAt(i)) ){
+      i++;
+      while( (i < s.length()) && Character.isJavaIdentifierPart(s.charAt(i)) )
+	i++;
+    }
+    return i;
+  }
+
+  private static boolean isTypePrefix(String word){
+    for(int i = 0; i < typePrefixes.length; i++)
+      if(typePrefixes[i].equals(word))
+	return true;
+    return false;
+  }
+
+}
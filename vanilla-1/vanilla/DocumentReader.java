@@ -8,6 +8,7 @@
 // @TABLE OF CONTENTS:		       [TOCD: 13:47 19 Mar 2001]
 //
 //  [1] Simple Reading
+//      [1.1] Indexed Reading (per session)
 //  [2] Access
 //          [2.0.1] Really auxillary aux
 // ==========================================================
@@ -32,6 +33,10 @@ import org.w3c.dom.Node;
 import org.w3c.dom.Element;
 import org.w3c.dom.Text;
 
+//**** from internal API packages
+import org.apache.crimson.tree.XmlDocument;
+//****************************************
+
 //**** from other packages 
 
 //****************************************
@@ -61,9 +66,25 @@ public class DocumentReader  {
   // -- Access -------------------------------------------------------------
 
   /**
-   * Store once for every translation
+   * Store once for every translation: numbers the IDs and maps them to
+   * their elements<BR>
+   * Built by one scan of the document (unless handed over), then kept up
+   * to date by {@link #registerID}.
    */
-  protected Hashtable hashOriginalIDsToElements;
+  protected IDNumbering originalIDs;
+
+  /**
+   * IDs that were looked up, but do not exist<BR>
+   * Maps the ID to the error message.
+   */
+  protected Hashtable hashMissingIDs = new Hashtable();
+
+  /**
+   * Children of the elements by tag name, if the document was read by a
+   * {@link HierarchicalDocumentLoader}; <TT>null</TT> otherwise.<BR>
+   * Kept up to date by {@link #appendChild}.
+   */
+  protected ChildIndex childIndex;
 
 
   /**
@@ -169,14 +190,9 @@ public class DocumentReader  {
    */      
   public static Element getFirstChildWithLabel(Element el, String label)
     throws Exception {
-    NodeList childNodes = el.getChildNodes();
-    for(int i = 0; i < childNodes.getLength(); i++){
-      Node node = childNodes.item(i);
-      if( (node instanceof Element) &&
-	  (((Element)node).getTagName()).equals(label) ){
-	return (Element)node;
-      }
-    }
+    Element result = getFirstChildWithLabelIfExists(el, label);
+    if(null != result)
+      return result;
     throw new Exception("ERROR: no child element with label >>" +
 			label +
 			"<< found in \n" +
@@ -206,21 +222,7 @@ public class DocumentReader  {
    */      
   public static Element getTheChildWithLabel(Element el, String label)
     throws Exception {
-    NodeList childNodes = el.getChildNodes();
-    Element result = null;
-    for(int i = 0; i < childNodes.getLength(); i++){
-      Node node = childNodes.item(i);
-      if( (node instanceof Element) &&
-	  (((Element)node).getTagName()).equals(label) ){
-	if(result == null){
-	  result = (Element)node;
-	}
-	else 
-	  throw new Exception("ERROR: the element " +
-			      el.toString() +
-			      "  has more than one child with label " + label);
-      }
-    }
+    Element result = getTheChildWithLabelIfExists(el, label);
     if (result == null){
       throw new Exception("ERROR: no child element with label >>" +
 			  label +
@@ -264,7 +266,7 @@ public class DocumentReader  {
   public long getXCoordinate(Element e){
     String xs = e.getAttribute("x").trim();
 
-    return new Long(xs).longValue();
+    return Long.parseLong(xs);
   }
   /**
    * Read y coordinate (as long).<BR>
@@ -274,9 +276,76 @@ public class DocumentReader  {
   public long getYCoordinate(Element e){
     String ys = e.getAttribute("y").trim();
 
-    return new Long(ys).longValue();
+    return Long.parseLong(ys);
   }
   
+  // =================================================================
+  // [1.1] Indexed Reading (per session)
+  // =================================================================
+
+  /**
+   * Return all child elements that have a specific label, from the
+   * {@link #childIndex} if <TT>el</TT> is indexed (then the result is
+   * shared and must not be changed).
+   */
+  public NodeList childrenWithLabel(Element el, String label){
+    if(null != childIndex){
+      NodeList result = childIndex.childrenWithLabel(el, label);
+      if(null != result)
+	return result;
+    }
+    return getAllChildrenWithLabel(el, label);
+  }
+  /**
+   * As {@link #getFirstChildWithLabel}, from the {@link #childIndex}
+   */
+  public Element firstChildWithLabel(Element el, String label)
+    throws Exception {
+    Element result = (Element)childrenWithLabel(el, label).item(0);
+    if(null != result)
+      return result;
+    throw new Exception("ERROR: no child element with label >>" +
+			label +
+			"<< found in \n" +
+			el.toString());
+  }
+  /**
+   * As {@link #getTheChildWithLabel}, from the {@link #childIndex}
+   */
+  public Element theChildWithLabel(Element el, String label)
+    throws Exception {
+    Element result = theChildWithLabelIfExists(el, label);
+    if (result == null){
+      throw new Exception("ERROR: no child element with label >>" +
+			  label +
+			  "<< found in \n" +
+			  el.toString());
+    }
+    return result;
+  }
+  /**
+   * As {@link #getTheChildWithLabelIfExists}, from the 
+   * {@link #childIndex}
+   */
+  public Element theChildWithLabelIfExists(Element el, String label)
+    throws Exception {
+    NodeList children = childrenWithLabel(el, label);
+    if(children.getLength() > 1)
+      throw new Exception("ERROR: the element " +
+			  el.toString() +
+			  "  has more than one child with label " + label);
+    return (Element)children.item(0);
+  }
+  /**
+   * Append <TT>child</TT> to <TT>parent</TT>.<BR>
+   * Every change of the document read goes through here, so the 
+   * {@link #childIndex} stays valid.
+   */
+  protected void appendChild(Element parent, Node child){
+    parent.appendChild(child);
+    if( (null != childIndex) && (child instanceof Element) )
+      childIndex.invalidate(parent);
+  }
   
 
   // =================================================================
@@ -297,24 +366,86 @@ public class DocumentReader  {
   public Element getElementByID(String id)
     throws Exception {
     
-    if(null == hashOriginalIDsToElements)
+    Element res = getElementByIDIfExists(id);
+
+    if(null == res)
+      throw new Exception((String)hashMissingIDs.get(id));
+    
+    return res;
+  }
+
+  /**
+   * Same as <TT>{@link #getElementByID}</TT>, but returns <TT>null</TT>, 
+   * if there is no such element.<BR>
+   * <BR>
+   * The document is <B>not</B> searched again on a miss: every element 
+   * that gets an ID after the first scan is entered via 
+   * <TT>{@link #registerID}</TT>. Misses are remembered (for the error
+   * message of <TT>{@link #getElementByID}</TT>).<BR>
+   * <BR>
+   * Hits take no lock, so several (reading) threads may look up IDs at
+   * once; only a miss goes through the synchronized 
+   * <TT>{@link #hashMissingIDs}</TT>.
+   */
+  public Element getElementByIDIfExists(String id)
+    throws Exception {
+
+    if(null == originalIDs)
       memorizeIDsOfOriginalDocument();
 
-    Object res = hashOriginalIDsToElements.get(id);
+    Element res = originalIDs.element(id);
+
+    if(null == res)
+      hashMissingIDs.put(id, "ERROR: ID \"" + id + "\" not found in original document.");
+
+    return res;
+  }
 
-    if (null == res){
+  /**
+   * True, if several threads may read the document and look up IDs at
+   * the same time (as long as nobody changes it): the IDs are already 
+   * collected, and the DOM does not change anything while it is read
+   * (Crimson keeps the children of a node in an array; e.g. Xerces
+   * caches node lists on access, which is not safe).
+   */
+  public boolean isSafeForConcurrentReading(){
+    return (null != originalIDs) && (origDoc instanceof XmlDocument);
+  }
+
+  /**
+   * Enter (or re-enter) an element with its ID in 
+   * <TT>{@link #originalIDs}</TT>; has to be called by 
+   * everyone setting an <TT>id</TT> attribute after the document was 
+   * read.<BR>
+   * <BR>
+   * The element need not be attached to the document (yet).
+   */
+  protected void registerID(String id, Element el)
+    throws Exception {
+
+    if(null == originalIDs)
       memorizeIDsOfOriginalDocument();
-      res = hashOriginalIDsToElements.get(id);
-      
-      if(null == res)
-	throw new Exception("ERROR: ID \"" + id + "\" not found in original document.");
-    }
-    
-    return (Element)res;
+
+    originalIDs.setElement(id, el);
+    hashMissingIDs.remove(id);
   }
 
   /**
-   * Enter IDs in the hashtable <TT>{@link #hashOriginalIDsToElements}</TT><BR>
+   * Forget the ID of an element (e.g., since it is changed); nothing 
+   * happens, if the ID belongs to another element.
+   */
+  protected void unregisterID(String id, Element el){
+
+    if( (null != originalIDs) &&
+	(el == originalIDs.element(id)) )
+      originalIDs.setElement(id, null);
+  }
+
+  /**
+   * Enter IDs in <TT>{@link #originalIDs}</TT><BR>
+   * <BR>
+   * Done once, on the first lookup; later changes are entered by 
+   * <TT>{@link #registerID}</TT>.<BR>
    * <BR>
    * Throws exception, if document is not set properly
    */
@@ -324,15 +455,16 @@ public class DocumentReader  {
     if(null == origDoc)
       throw new Exception("ERROR: document is (still) null");
 
-    hashOriginalIDsToElements = new Hashtable();
+    originalIDs = new IDNumbering();
+    hashMissingIDs.clear();
 
     NodeList allNodes = origDoc.getElementsByTagName("*");
     for(int i=0; i < allNodes.getLength(); i++){
       Node node = allNodes.item(i);
       if( ( node instanceof Element) &&
 	  ( ((Element)node).hasAttribute("id")) ){
-	hashOriginalIDsToElements.put(((Element)node).getAttribute("id"),
-				      node);
+	originalIDs.setElement(((Element)node).getAttribute("id"),
+			       (Element)node);
       }
     }
   }
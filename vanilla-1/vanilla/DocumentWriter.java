@@ -25,11 +25,10 @@
 // /////////////////////////////////////////////////////////////
 // 
 
-import DocumentReader;
-
 import java.lang.*;
 
 import java.util.Vector;
+import java.util.Hashtable;
 
 import org.w3c.dom.Node;
 import org.w3c.dom.Element;
@@ -107,25 +106,11 @@ public class DocumentWriter
   // ===============================================
 
   /**
-   * Counter to make introduced location names unique
-   */
-  static long locationNameCount = 0L;
-  
-  /**
-   * Counter to make introduced channel names unique
-   */
-  static long synchronisationNameCount = 0L;
-  
-  /**
-   * Counter to make introduced ID names unique
+   * Counters to make introduced template, location, channel and ID names
+   * unique.<BR>
+   * Shared by all writers and readers of one flattening session.
    */
-  static long idNameCount = 0L;
-  
-  
-  /**
-   * Counter to make introduced template names unique
-   */
-  static long templateNameCount = 0L;
+  protected NameAllocator names;
 
   // ===============================================
   // [0.3] Global Elements
@@ -160,6 +145,13 @@ public class DocumentWriter
    */
   public long geoCount = 0L;
 
+  /**
+   * If false, no coordinates are generated at all: the methods below 
+   * leave <TT>x</TT> and <TT>y</TT> unset (headless output, see {@link 
+   * FlatDocumentWriter#setHeadless})
+   */
+  protected boolean withCoordinates = true;
+
   // --------------------------------------------------
  
   // //////////////////////////////////////////////////////////////////////
@@ -168,14 +160,27 @@ public class DocumentWriter
 
   /**
    * Default Constructor:
-   * Creates the (global) document
+   * Creates the (global) document, with counters of its own
    */
   public DocumentWriter(){
+    this(new NameAllocator());
+  }
+
+  /**
+   * Creates the (global) document; fresh names are drawn from
+   * <TT>theNames</TT>
+   */
+  public DocumentWriter(NameAllocator theNames){
     super(null);
 
+    names = theNames;
+
     XmlDocumentBuilder xmlDocBuilder = new XmlDocumentBuilder();
     doc = xmlDocBuilder.createDocument();
     origDoc = doc;
+
+    // -- new document: all IDs are entered by addIDToElement -------------
+    originalIDs = new IDNumbering();
   }
 
   // //////////////////////////////////////////////////////////////////////
@@ -190,33 +195,28 @@ public class DocumentWriter
   /**
    * Return a new, unique template name
    */
-  protected static String freshTemplateName(){
-    templateNameCount++;
-    return ".TMP." + templateNameCount;
+  protected String freshTemplateName(){
+    return ".TMP." + names.next(NameAllocator.TEMPLATE);
   }
   /**
    * Return a new, unique location name
    */
-  protected static String freshLocationName()
+  protected String freshLocationName()
     throws Exception {
-    locationNameCount++;
-    
-    return "L." + locationNameCount;
+    return "L." + names.next(NameAllocator.LOCATION);
   }
   /**
    * Return a new, unique channel name (without !/?)
    */
-  protected static String freshSynchronisationName(){
-    synchronisationNameCount++;
-    return "sync" + CHANNEL_SEPARATOR + synchronisationNameCount;
+  protected String freshSynchronisationName(){
+    return "sync" + CHANNEL_SEPARATOR + names.next(NameAllocator.SYNCHRONISATION);
   }
   /**
    * Return a unique ID string<BR>
    * <H3>!! might enter the ID in some list at some point !!</H3>
    */
-  protected static String inventFreshID(){
-    idNameCount++;
-    return makeIDSafe("X-ID-" + idNameCount);
+  protected String inventFreshID(){
+    return makeIDSafe("X-ID-" + names.next(NameAllocator.ID));
   }
   
   // ===============================================
@@ -315,6 +315,8 @@ public class DocumentWriter
 	throw new Exception("ERROR: tried to add location coordinates to non-location\n" +
 			    location.toString());
     }
+    if(!withCoordinates)
+      return;
 
     long diag = 0L;
     long size = 1L; // size of THIS diagonal
@@ -372,14 +374,18 @@ public class DocumentWriter
    * <H3>!! Can be the default layout at some point !!</H3>
    * (Currently, everything is "0")
    */
-  protected static void addCoordinatesToElement(Element el){
+  protected void addCoordinatesToElement(Element el){
+    if(!withCoordinates)
+      return;
     el.setAttribute("x","0");
     el.setAttribute("y","0");
   }
   /**
    * Set x and y to specified values.<BR>
    */
-  protected static void addCoordinatesToElement(Element el, long x, long y){
+  protected void addCoordinatesToElement(Element el, long x, long y){
+    if(!withCoordinates)
+      return;
     el.setAttribute("x","" + x);
     el.setAttribute("y","" + y);
   }
@@ -387,8 +393,11 @@ public class DocumentWriter
    * Invent a fresh unique ID for this element.<BR>
    * <H3>!! Could take an optional argument, hinting at the origin</H3>
     */
-  protected static void addIDToElement(Element el){
-    el.setAttribute("id",inventFreshID());
+  protected void addIDToElement(Element el)
+    throws Exception {
+    String id = inventFreshID();
+    el.setAttribute("id", id);
+    registerID(id, el);
    }
   /**
    * Insert a child node containing a supplided name<BR>
@@ -402,23 +411,25 @@ public class DocumentWriter
   protected Element addNameToElement(Element el, String name){
     Element nameNode = createNameElement(name);
     
-    long x = 0L;
-    long y = 0L;
-    
-    try {
-       x = max(Long.parseLong(el.getAttribute("x")) + locNameXOffset,
-	       0L);
-       y = max(Long.parseLong(el.getAttribute("y")) + locNameYOffset,
-	       0L);
-    } catch (Exception e) {
-      // on fail: assume UNSET coordinates, i.e. set to (0,0)
-      x = 0L;
-      y = 0L;
+    if(withCoordinates){
+      long x = 0L;
+      long y = 0L;
+
+      try {
+	x = max(Long.parseLong(el.getAttribute("x")) + locNameXOffset,
+		0L);
+	y = max(Long.parseLong(el.getAttribute("y")) + locNameYOffset,
+		0L);
+      } catch (Exception e) {
+	// on fail: assume UNSET coordinates, i.e. set to (0,0)
+	x = 0L;
+	y = 0L;
+      }
+
+      nameNode.setAttribute("x", "" + x);
+      nameNode.setAttribute("y", "" + y);
     }
     
-    nameNode.setAttribute("x", "" + x);
-    nameNode.setAttribute("y", "" + y);
-    
     Node first = el.getFirstChild();
     if(null == first)
       el.appendChild(nameNode);
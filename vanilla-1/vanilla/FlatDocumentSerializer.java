@@ -0,0 +1,347 @@
+// -*- mode: JDE; c-basic-offset: 2; -*-
+// /////////////////////////////////////////////////////////////
+// Write the flat document (buffered, one template at a time)
+//
+// Synopsis:
+//  Huppaal
+// /////////////////////////////////////////////////////////////
+// @FILE:    FlatDocumentSerializer.java
+// @FORMAT:  java
+// @AUTHOR:  agent     <agent@local>
+// @BEGUN:   Sat Oct 17 20:58:03 2026
+// @VERSION: Vanilla-1                  Sat Oct 17 20:58:03 2026
+// /////////////////////////////////////////////////////////////
+//
+
+import java.lang.*;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+import org.w3c.dom.Attr;
+import org.w3c.dom.Document;
+import org.w3c.dom.DocumentType;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.w3c.dom.ProcessingInstruction;
+
+//**** from other packages
+
+//****************************************
+
+/**
+ * Writes a (flat) document to a stream, through a buffer, using only the
+ * DOM interfaces (no parser specific <TT>write</TT> method).<BR>
+ * <BR>
+ * The layout is the one of the documents written so far: the children of
+ * an element that has element children go on lines of their own, indented
+ * by 2 more blanks; an element with only text stays on one line.<BR>
+ * <BR>
+ * With <TT>{@link #setRelease}</TT>, every child of the document element
+ * (i.e. every template) is removed from the document as soon as it is
+ * written, so it can be garbage collected while the rest is written.
+ *
+ * @see Flatten BatchFlatten
+ * @author <A HREF="MAILTO:agent@local?subject=FlatDocumentSerializer.java%20(Vanilla-1%20Sat%20Oct%2017%2020:58:03%202026)">agent</A>
+ * @version Vanilla-1                  Sat Oct 17 20:58:03 2026
+ */
+public class FlatDocumentSerializer  {
+
+  // //////////////////////////////////////////////////////////////////////
+  // ////////////////////////////// FIELDS ////////////////////////////////
+  // //////////////////////////////////////////////////////////////////////
+
+  /**
+   * Encoding, unless another one is given
+   */
+  public static final String defaultEncoding = "UTF-8";
+
+  /**
+   * Size of the output buffer (in chars)
+   */
+  public static final int bufferSize = 64 * 1024;
+
+  private static final String eol = System.getProperty("line.separator", "\n");
+
+  /**
+   * Number of blanks per level of indentation
+   */
+  private static final int indentStep = 2;
+
+  private Writer out;
+
+  private String encoding;
+
+  /**
+   * Remove the children of the document element, once written
+   */
+  private boolean release = false;
+
+  // //////////////////////////////////////////////////////////////////////
+  // //////////////////////////  CONSTRUCTORS  ////////////////////////////
+  // //////////////////////////////////////////////////////////////////////
+
+  /**
+   * Default Constructor: write to <TT>os</TT> in the {@link
+   * #defaultEncoding}
+   */
+  public FlatDocumentSerializer(OutputStream os)
+    throws IOException {
+    this(os, defaultEncoding);
+  }
+
+  /**
+   * Write to <TT>os</TT> in <TT>theEncoding</TT> (an IANA name, such as
+   * <TT>UTF-8</TT>; it is also given in the XML declaration)
+   */
+  public FlatDocumentSerializer(OutputStream os, String theEncoding)
+    throws IOException {
+    encoding = theEncoding;
+    out = new BufferedWriter(new OutputStreamWriter(os, theEncoding), bufferSize);
+  }
+
+  // //////////////////////////////////////////////////////////////////////
+  // ///////////////////////////// METHODS  ///////////////////////////////
+  // //////////////////////////////////////////////////////////////////////
+
+  /**
+   * If <TT>on</TT>, the children of the document element are removed
+   * from the document, once they are written
+   */
+  public void setRelease(boolean on){
+    release = on;
+  }
+
+  /**
+   * Write <TT>doc</TT> and flush (the stream is not closed)
+   */
+  public void write(Document doc)
+    throws IOException {
+
+    out.write("<?xml version=\"1.0\" encoding=\"" + encoding + "\"?>");
+    out.write(eol);
+    out.write(eol);
+
+    for(Node node = doc.getFirstChild(); null != node; node = node.getNextSibling()){
+      if(node instanceof Element)
+	writeDocumentElement((Element)node);
+      else
+	writeNode(node, 0);
+      out.write(eol);
+      out.write(eol);
+    }
+    out.flush();
+  }
+
+  /**
+   * Write the root; release its children, if wanted
+   */
+  private void writeDocumentElement(Element root)
+    throws IOException {
+    if(!root.hasChildNodes()){
+      writeNode(root, 0);
+      return;
+    }
+    writeStartTag(root);
+
+    boolean pureText = true;
+    Node child = root.getFirstChild();
+    while(null != child){
+      Node next = child.getNextSibling();
+      if(Node.TEXT_NODE != child.getNodeType()){
+	writeIndent(indentStep);
+	pureText = false;
+      }
+      writeNode(child, indentStep);
+      if(release)
+	root.removeChild(child);
+      child = next;
+    }
+    if(!pureText)
+      writeIndent(0);
+
+    writeEndTag(root);
+  }
+
+  // =================================================================
+  // Auxillary Methods (internal)
+  // =================================================================
+
+  /**
+   * Write a node, whose line is indented by <TT>indent</TT> blanks
+   */
+  private void writeNode(Node node, int indent)
+    throws IOException {
+    switch(node.getNodeType()){
+    case Node.ELEMENT_NODE:
+      writeElement((Element)node, indent);
+      break;
+    case Node.TEXT_NODE:
+      writeEscaped(node.getNodeValue(), false);
+      break;
+    case Node.CDATA_SECTION_NODE:
+      out.write("<![CDATA[");
+      out.write(node.getNodeValue());
+      out.write("]]>");
+      break;
+    case Node.COMMENT_NODE:
+      writeComment(node.getNodeValue());
+      break;
+    case Node.PROCESSING_INSTRUCTION_NODE:
+      ProcessingInstruction pi = (ProcessingInstruction)node;
+      out.write("<?" + pi.getTarget());
+      if(pi.getData().length() > 0)
+	out.write(" " + pi.getData());
+      out.write("?>");
+      break;
+    case Node.DOCUMENT_TYPE_NODE:
+      writeDoctype((DocumentType)node);
+      break;
+    case Node.ENTITY_REFERENCE_NODE:
+      out.write("&" + node.getNodeName() + ";");
+      break;
+    default:
+      throw new IOException("ERROR: cannot write node " + node.toString());
+    }
+  }
+
+  private void writeElement(Element el, int indent)
+    throws IOException {
+    if(!el.hasChildNodes()){
+      out.write('<');
+      out.write(el.getTagName());
+      writeAttributes(el);
+      out.write(" />");
+      return;
+    }
+    writeStartTag(el);
+
+    boolean pureText = true;
+    for(Node child = el.getFirstChild(); null != child; child = child.getNextSibling()){
+      if(Node.TEXT_NODE != child.getNodeType()){
+	writeIndent(indent + indentStep);
+	pureText = false;
+      }
+      writeNode(child, indent + indentStep);
+    }
+    if(!pureText)
+      writeIndent(indent);
+
+    writeEndTag(el);
+  }
+
+  private void writeStartTag(Element el)
+    throws IOException {
+    out.write('<');
+    out.write(el.getTagName());
+    writeAttributes(el);
+    out.write('>');
+  }
+
+  private void writeEndTag(Element el)
+    throws IOException {
+    out.write("</");
+    out.write(el.getTagName());
+    out.write('>');
+  }
+
+  /**
+   * The (specified) attributes, in the order of the element
+   */
+  private void writeAttributes(Element el)
+    throws IOException {
+    NamedNodeMap attributes = el.getAttributes();
+    for(int i = 0; i < attributes.getLength(); i++){
+      Attr attribute = (Attr)attributes.item(i);
+      if(!attribute.getSpecified())
+	continue;
+      out.write(' ');
+      out.write(attribute.getName());
+      out.write("=\"");
+      writeEscaped(attribute.getValue(), true);
+      out.write('"');
+    }
+  }
+
+  /**
+   * <TT>--</TT> is not allowed in comments: a blank is put in between
+   * (and before the final <TT>--&gt;</TT>, if the text ends with
+   * <TT>-</TT>)
+   */
+  private void writeComment(String text)
+    throws IOException {
+    out.write("<!--");
+    int length = text.length();
+    for(int i = 0; i < length; i++){
+      char c = text.charAt(i);
+      if( (c == '-') && (i > 0) && (text.charAt(i - 1) == '-') )
+	out.write(' ');
+      out.write(c);
+    }
+    if( (length > 0) && (text.charAt(length - 1) == '-') )
+      out.write(' ');
+    out.write("-->");
+  }
+
+  private void writeDoctype(DocumentType doctype)
+    throws IOException {
+    String name = doctype.getName();
+    if(null == name)	// not every DOM sets it: it is the root's tag
+      name = doctype.getOwnerDocument().getDocumentElement().getTagName();
+    out.write("<!DOCTYPE ");
+    out.write(name);
+    if(null != doctype.getSystemId()){
+      if(null != doctype.getPublicId())
+	out.write(" PUBLIC '" + doctype.getPublicId() + "' '");
+      else
+	out.write(" SYSTEM '");
+      out.write(doctype.getSystemId());
+      out.write("'");
+    }
+    if(null != doctype.getInternalSubset()){
+      out.write(eol);
+      out.write("[");
+      out.write(doctype.getInternalSubset());
+      out.write("]");
+    }
+    out.write(">");
+  }
+
+  /**
+   * Escape <TT>&lt; &gt; &amp;</TT> (and quotes in attribute values)
+   */
+  private void writeEscaped(String text, boolean inAttribute)
+    throws IOException {
+    int length = text.length();
+    int start = 0;
+    for(int i = 0; i < length; i++){
+      String entity;
+      switch(text.charAt(i)){
+      case '<':  entity = "&lt;";  break;
+      case '>':  entity = "&gt;";  break;
+      case '&':  entity = "&amp;"; break;
+      case '\'': entity = inAttribute ? "&apos;" : null; break;
+      case '"':  entity = inAttribute ? "&quot;" : null; break;
+      default:   entity = null;
+      }
+      if(null != entity){
+	out.write(text, start, i - start);
+	out.write(entity);
+	start = i + 1;
+      }
+    }
+    out.write(text, start, length - start);
+  }
+
+  private void writeIndent(int indent)
+    throws IOException {
+    out.write(eol);
+    for(int i = 0; i < indent; i++)
+      out.write(' ');
+  }
+
+}
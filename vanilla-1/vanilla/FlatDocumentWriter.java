@@ -32,11 +32,6 @@
 // /////////////////////////////////////////////////////////////
 // 
 
-import DocumentReader;
-import HierarchicalDocumentReader;
-import DocumentWriter;
-import TextualInstantiation;
-
 
 import java.io.*;
 
@@ -47,6 +42,14 @@ import java.util.Hashtable;
 import java.util.Stack;
 import java.util.Enumeration;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 import java.text.DateFormat;
 
@@ -117,6 +120,12 @@ public class FlatDocumentWriter
    */
   Layouter layouter;
 
+  /**
+   * Number of threads laying out the templates; 1: one after the other 
+   * (see {@link #recomputeAllTemplateLayouts})
+   */
+  private int layoutThreads = 1;
+
 
   // ===============================================
   // [0.1] Global Elements
@@ -191,7 +200,7 @@ public class FlatDocumentWriter
    * !!</H3>
    * @see TextualInstantiation
    */
-  static Stack slackInstantiations;
+  Stack slackInstantiations;
   
   /**
    * Text describing the Instantiations of templates
@@ -200,14 +209,14 @@ public class FlatDocumentWriter
    * <h3>Currently, every template is instantiated exactly <I>once</I>
    * </h3>
    */
-  static StringBuffer instantiationText;
+  StringBuffer instantiationText;
 
   /**
-   * Text inserted in the (flat) declaration label.<BR><BR>
+   * Declarations inserted in the (flat) declaration label.<BR><BR>
    * Contains original global variables plus
    * <I>flattening slack</I> like newly introduced channels etc.
    */
-  static StringBuffer declarationText;
+  DeclarationTable declarations;
   
 
   /**
@@ -227,12 +236,41 @@ public class FlatDocumentWriter
   // [0.4] Hash Tables
   // ===============================================
 
+  // -- the following are indexed by the numbers of the IDs in 
+  // -- originalIDs; entries may be null
+
   /**
    * Store all newly generated (flat) locations.<BR>
    * Requires the use of the methods <TT>{@link #inventLocation}</TT> and 
    * <TT>{@link #changeLocationID}</TT> in order to work properly.
    */
-  private static Hashtable hashIDsToNewLocationElements;
+  private Vector newLocationElements;
+
+  /**
+   * Adjacency index: for every location ID the <TT>Vector</TT> of
+   * transitions whose <TT>target</TT> refers to it.<BR>
+   * Kept up to date by <TT>{@link #addTransitionToTemplate}</TT>,
+   * <TT>{@link #cloneTransition}</TT>, 
+   * <TT>{@link #addSourceToTransition}</TT> and
+   * <TT>{@link #addTargetToTransition}</TT>.
+   */
+  private Vector incomingTransitions;
+
+  /**
+   * Adjacency index: for every location ID the <TT>Vector</TT> of
+   * transitions whose <TT>source</TT> refers to it.
+   * @see #incomingTransitions
+   */
+  private Vector outgoingTransitions;
+
+  // -- 
+
+  /**
+   * Maps the transitions to their {@link TransitionLabels}: the labels
+   * are collected there while translating and only become children of 
+   * the transition at <TT>{@link #complete}</TT>.
+   */
+  private HashMap transitionLabels;
 
 
   // //////////////////////////////////////////////////////////////////////
@@ -240,10 +278,19 @@ public class FlatDocumentWriter
   // //////////////////////////////////////////////////////////////////////
 
   /**
-   * Default Constructor
+   * Default Constructor, with counters of its own
    */
   public FlatDocumentWriter(){
-    
+    this(new NameAllocator());
+  }
+
+  /**
+   * Constructor used by a flattening session: fresh names are drawn 
+   * from <TT>theNames</TT>
+   */
+  public FlatDocumentWriter(NameAllocator theNames){
+    super(theNames);
+
     if(debug)
       System.out.println("%%% -- new flat Document: create ------------------------------");
     
@@ -287,9 +334,13 @@ public class FlatDocumentWriter
     systemComponents = new Stack();
     slackInstantiations = new Stack();
 
-    declarationText = new StringBuffer();
+    declarations = new DeclarationTable();
+
+    newLocationElements = new Vector();
+    incomingTransitions = new Vector();
+    outgoingTransitions = new Vector();
 
-    hashIDsToNewLocationElements = new Hashtable();
+    transitionLabels = new HashMap();
 
     layouter = new SkewedGridLayouter(this);
 
@@ -321,7 +372,7 @@ public class FlatDocumentWriter
 
     // -- Processing Declarations ------------------------------------------
       
-    addTextualContentToElement(declaration, declarationText.toString());
+    addTextualContentToElement(declaration, declarations.getText());
 
 
     // -- Processing Instantiations ----------------------------------------
@@ -357,9 +408,58 @@ public class FlatDocumentWriter
     // ---------------------------------------------------------------------
     generateEndTemplateSemaphores();
     // ---------------------------------------------------------------------
+    materializeTransitionLabels();
     completed = true;
   }
 
+  /**
+   * Turn the collected {@link TransitionLabels} into label children: 
+   * guard, synchronisation, assignment (in this order), leaving out 
+   * empty ones. The labels get the coordinates of their transition.
+   */
+  private void materializeTransitionLabels()
+    throws Exception {
+    for(Iterator i = transitionLabels.entrySet().iterator(); i.hasNext(); ){
+      Map.Entry entry = (Map.Entry)i.next();
+      Element transition = (Element)entry.getKey();
+      TransitionLabels labels = (TransitionLabels)entry.getValue();
+
+      String text = labels.guardText();
+      if( (null != text) && ((text.trim()).length() > 0) )
+	addTextualContentToElement(createGuardInheritingCoordinates(transition), text);
+      text = labels.synchronisationText();
+      if( (null != text) && ((text.trim()).length() > 0) )
+	addTextualContentToElement(createSynchronisationInheritingCoordinates(transition), text);
+      text = labels.assignmentText();
+      if( (null != text) && ((text.trim()).length() > 0) )
+	addTextualContentToElement(createAssignmentInheritingCoordinates(transition), text);
+    }
+    transitionLabels.clear();
+  }
+
+  /**
+   * The labels of <TT>transition</TT> (new ones, if it has none yet).<BR>
+   * Throws an exception, if not called on a transition, or after 
+   * <TT>{@link #complete}</TT>.
+   */
+  private TransitionLabels labelsOf(Element transition)
+    throws Exception {
+    if( sanityChecks &&
+	(!(transition.getTagName()).equals("transition")))
+      throw new Exception("ERROR: not a <transition> Element: \n" +
+			  transition.toString());
+    if(completed)
+      throw new Exception("ERROR: labels of a transition changed after completion:\n" +
+			  transition.toString());
+
+    TransitionLabels labels = (TransitionLabels)transitionLabels.get(transition);
+    if(null == labels){
+      labels = new TransitionLabels();
+      transitionLabels.put(transition, labels);
+    }
+    return labels;
+  }
+
   /**
    * Return the (completed) XMLDocument
    */
@@ -380,8 +480,8 @@ public class FlatDocumentWriter
 
   
   /**
-   * Append some declaration (purely textual)<BR>
-   * <H3>!! This might be more sophisticated at some point</H3>
+   * Append some declaration text; the declared names are entered in
+   * <TT>{@link #declarations}</TT>.
    */
   public void addDeclarationText(String s)
     throws Exception{
@@ -390,7 +490,7 @@ public class FlatDocumentWriter
     if(debug)
       System.out.println("::::::::::::::::::::new declaration: " + s);
 
-    declarationText.append(s);
+    declarations.addText(s);
   }
   
   /**
@@ -404,56 +504,24 @@ public class FlatDocumentWriter
   }
   
   /**
-   * Search declarations (Existing text) for declaration of a channel old
+   * Look up the declaration of a channel old
    * (<TT>chan</TT> or <TT>urgent chan</TT>) and declare a channel of the
    * same type, with new name.<BR>
    * <BR>
-   * Throws exception, if declaration of the old channel is not found.
-   *    !!! <B>BUG:</B> also finds <PRE>/* ...</PRE> commented declarations !!!
+   * Throws exception, if declaration of the old channel is not found
+   * (commented declarations do not count).
    */
   public void copyChannelDeclaration(String oldChanName, String newChanName)
     throws Exception {
-    String decSoFar = declarationText.toString();
-    
+    if(completed)throw new Exception("ERROR: document already completed.");
+
     if(debug)
       System.out.println("## Duplicating channel: " + oldChanName + "   [" + newChanName + "]");
 
-    int i;
-    int len = decSoFar.length();
-    int patLen = oldChanName.length();
-    int lineStart = -1;
-
-    for(i = 1; i+patLen < len; i++){
-      if( decSoFar.regionMatches(false,i,oldChanName,0,patLen) &&
-	  Character.isWhitespace(decSoFar.charAt(i-1)) &&
-	  ( Character.isWhitespace(decSoFar.charAt(i+patLen)) ||
-	    decSoFar.charAt(i+patLen) == ';' )  &&
-	  notACommentedLine(decSoFar.substring(lineStart = 1+ max(decSoFar.lastIndexOf('\n', i), decSoFar.lastIndexOf('\r', i))))
-	  ) {
-	;
-	addDeclaration(decSoFar.substring(lineStart, i) + " " + newChanName );
-
-	return;
-      }
-    }
-    throw new Exception("ERROR: no declaration of >>" + oldChanName + "<< found in \n" + decSoFar);
-  }
-  
-  /**
-   * Check in  String, whether the first line is a commented line
-   * (in terms of Uppaal Declarations)<BR>
-   * Currently, every line where the first non-whitespace character is a 
-   * <TT>'/'</TT> is consiered a comment line.
-   * <BR>
-   * Assumes that the first line contains characters other than whitespace
-   */
-  private boolean notACommentedLine(String s){
-    int i = 0;
-    while(Character.isWhitespace(s.charAt(i)))
-      i++;
-    
-    return ( s.charAt(i) != '/' );
+    if(!declarations.copyChannel(oldChanName, newChanName))
+      throw new Exception("ERROR: no declaration of >>" + oldChanName + "<< found in \n" + declarations.getText());
   }
+
   // ==================================================
   // [1.1] Templates and Instantiation
   // ==================================================
@@ -502,21 +570,10 @@ Change synchronization text of a transtion.<BR>
    */
   protected void changeSyncTextAtTransition(Element transition, String newText)
   throws Exception {
-    if( sanityChecks &&
-	(!(transition.getTagName()).equals("transition")))
-      throw new Exception("ERROR: not a <transition> Element: \n" +
-			  transition.toString());
     if(debug)
       System.out.println("///// changing synchronization text in transition " + transition.toString() + " to >>" + newText + "<<");
 
-    Element syncElement = getTheChildThatIsSynchronisationIfExists(transition);
-    if(null == syncElement)
-      throw new Exception("ERROR: no syncronisatio declared in " + transition.toString());
-
-    while(syncElement.hasChildNodes())
-      syncElement.removeChild(syncElement.getFirstChild());
-
-    addTextualContentToElement(syncElement, newText);      	
+    labelsOf(transition).changeSynchronisation(newText);
   }
 
   /**
@@ -530,13 +587,7 @@ Change synchronization text of a transtion.<BR>
   protected void addSendSynchronisationToTransition(String channelName,
 						    Element el)
     throws Exception {
-    if( sanityChecks &&
-	(!(el.getTagName()).equals("transition")))
-      throw new Exception("ERROR: not a <transition> Element: \n" +
-			  el.toString());
-
-    Element sync = createSynchronisationInheritingCoordinates(el);
-    addTextualContentToElement(sync, channelName + "!");
+    labelsOf(el).addSynchronisation(channelName + "!");
   }
   /**
    * Add a ?-synchronisation (without caring about graphical 
@@ -548,113 +599,34 @@ Change synchronization text of a transtion.<BR>
   protected void addReceiveSynchronisationToTransition(String channelName,
 						       Element el)
     throws Exception {
-    if( sanityChecks &&
-	(!(el.getTagName()).equals("transition")))
-      throw new Exception("ERROR: not a <transition> Element: \n" +
-			  el.toString());
-
-    Element sync = createSynchronisationInheritingCoordinates(el);
-    addTextualContentToElement(sync, channelName + "?");
+    labelsOf(el).addSynchronisation(channelName + "?");
   }
   /**
-   * Add an assigment to a transition (as a child).<BR>
-   * Returns the assignment Element.
+   * Add an assigment to a transition, including some initial text.<BR>
+   * It becomes a child at <TT>{@link #complete}</TT>.
    */
-  protected Element addAssignmentToTransition(Element el)
+  protected void addAssignmentToTransition(Element el, String assText)
     throws Exception {
-    if( sanityChecks &&
-	(!(el.getTagName()).equals("transition")))
-      throw new Exception("ERROR: not a <transition> Element: \n" +
-			  el.toString());
-
-    Element res = createAssignmentInheritingCoordinates(el);
-    el.appendChild(res);
-
-    return res;
-  }
-  /**
-   * Add an assigment to a transition (as a child), including some initial 
-   * text<BR>
-   * Returns the assignment Element.
-   */
-  protected Element addAssignmentToTransition(Element el, String assText)
-    throws Exception {
-    if( sanityChecks &&
-	(!(el.getTagName()).equals("transition")))
-      throw new Exception("ERROR: not a <transition> Element: \n" +
-			  el.toString());
-
-    Element res = addAssignmentToTransition(el);
-    addTextualContentToElement(res, assText);
-
-    return res;
+    labelsOf(el).addAssignment(assText);
   }
   
   /**
-   * Add a guard to a transition (as a child).<BR>
-   * Returns the guard Element.
+   * Add a guard to a transition, including some guard text.<BR>
+   * It becomes a child at <TT>{@link #complete}</TT>.
    */
-  protected Element addGuardToTransition(Element el)
+  protected void addGuardToTransition(Element el, String guardText)
     throws Exception {
-    if( sanityChecks &&
-	(!(el.getTagName()).equals("transition")))
-      throw new Exception("ERROR: not a <transition> Element: \n" +
-			  el.toString());
-
-    Element res = createGuardInheritingCoordinates(el);
-    el.appendChild(res);
-
-    return res;
-  }
-  /**
-   * Add a guard to a transition (as a child), including some guard text<BR>
-   * Returns the guard Element.
-   */
-  protected Element addGuardToTransition(Element el, String guardText)
-    throws Exception {
-    if( sanityChecks &&
-	(!(el.getTagName()).equals("transition")))
-      throw new Exception("ERROR: not a <transition> Element: \n" +
-			  el.toString());
-    Element result = addGuardToTransition(el);
-    addTextualContentToElement(result, guardText);
-
-    return result;
+    labelsOf(el).addGuard(guardText);
   }
   
-
   /**
-   * Add a synchronisation to a transition (as a child).<BR>
-   * Returns the synchronisation Element.
+   * Add a synchronisation to a transition, including some initial 
+   * text.<BR>
+   * It becomes a child at <TT>{@link #complete}</TT>.
    */
-  protected Element addSynchronisationToTransition(Element el)
+  protected void addSynchronisationToTransition(String syncText, Element el)
     throws Exception {
-    if( sanityChecks &&
-	(!(el.getTagName()).equals("transition")))
-      throw new Exception("ERROR: not a <transition> Element: \n" +
-			  el.toString());
-
-    Element res = createSynchronisationInheritingCoordinates(el);
-    el.appendChild(res);
-
-    return res;
-  }
-  /**
-   * Add a synchronisation to a transition (as a child), including some 
-   * initial text.<BR>
-   * Returns the synchronisation Element.
-   */
-  protected Element addSynchronisationToTransition(String syncText, Element el)
-    throws Exception {
-    if( sanityChecks &&
-	(!(el.getTagName()).equals("transition")))
-      throw new Exception("ERROR: not a <transition> Element: \n" +
-			  el.toString());
-
-    Element result = addSynchronisationToTransition(el);
-    addTextualContentToElement(result, syncText);
-
-    return result;
+    labelsOf(el).addSynchronisation(syncText);
   }
   
 
@@ -726,51 +698,23 @@ Change synchronization text of a transtion.<BR>
 
   /**
    * Adds some guard text to a transition, i.e. builds the <EM>logical 
-   * AND</EM> with its existing guard.<BR>
-   * If no guard Element exists jet, one is created.
+   * AND</EM> with its existing guard (if any).<BR>
+   * Only the conjunct is recorded; the text is joined at <TT>{@link 
+   * #complete}</TT>.
    */
   public void conjunctTextualGuardToTransition(Element transition, String text)
     throws Exception {
-    if ( sanityChecks &&
-	 (!(transition.getTagName()).equals("transition")))
-      throw new Exception("ERROR: element " +
-			  transition.toString() +
-			  "  is not a <transition>.");
-
-    Element guard = getTheChildThatIsGuardIfExists(transition);
-    if(guard == null){
-      addGuardToTransition(transition , text);
-    }
-    else {
-      if((getCdataOfElement(guard).trim()).equals(""))
-	appendTextToTextualContentOfElement(guard, text);
-      else
-	appendTextToTextualContentOfElement(guard, ", " + text);
-    }
+    labelsOf(transition).conjunctGuard(text);
   }
   /**
    * Adds some assignment text to a transition, i.e. append it to the
    * (possibly empty) textual list of existing assignments.<BR>
-   * If no assignement Element exists jet, one is created.
+   * Only the part is recorded; the text is joined at <TT>{@link 
+   * #complete}</TT>.
    */
   public void conjunctTextualAssignmentToTransition(Element transition, String text)
     throws Exception {
-    if ( sanityChecks &&
-	 (!(transition.getTagName()).equals("transition")))
-      throw new Exception("ERROR: element " +
-			  transition.toString() +
-			  "  is not a <transition>.");
-
-    Element assignment = getTheChildThatIsAssignmentIfExists(transition);
-    if(assignment == null){
-      addAssignmentToTransition(transition , text);
-    }
-    else {
-      if((getCdataOfElement(assignment).trim()).equals(""))
-	appendTextToTextualContentOfElement(assignment, text);
-      else
-	appendTextToTextualContentOfElement(assignment, ", " + text);
-    }
+    labelsOf(transition).conjunctAssignment(text);
   }
   
 
@@ -802,11 +746,12 @@ Change synchronization text of a transtion.<BR>
    */
   public void addTransitionToTemplate(Element transition, Element template){
       template.appendChild(transition);
+      indexTransition(transition);
   }
   
   /**
    * Create a clone of a transition Element and add it in the appropriate 
-   * template.<BR>
+   * template; it gets a copy of the labels.<BR>
    * Returns the clone.     <BR>
    * <BR>
    * Throws exception, if attempted to clone something different.
@@ -820,6 +765,11 @@ Change synchronization text of a transtion.<BR>
 
     Element clone = (Element)transition.cloneNode(true); // deep clone
     (transition.getParentNode()).insertBefore(clone, transition);
+    indexTransition(clone);
+
+    TransitionLabels labels = (TransitionLabels)transitionLabels.get(transition);
+    if(null != labels)
+      transitionLabels.put(clone, new TransitionLabels(labels));
 
     if(debug)
       System.out.println("//////////////// Created clone: " + clone.toString());
@@ -837,6 +787,9 @@ Change synchronization text of a transtion.<BR>
       transition.appendChild(source);
     else
       transition.insertBefore(source, first);
+
+    if(null != transition.getParentNode()) // -- else: when it is added
+      indexTransitionEnd(outgoingTransitions, source, transition);
   }
   /**
    * Add a target to a transition in the right place.
@@ -859,6 +812,9 @@ Change synchronization text of a transtion.<BR>
 	  transition.insertBefore(target, second);
       }
     }
+
+    if(null != transition.getParentNode()) // -- else: when it is added
+      indexTransitionEnd(incomingTransitions, target, transition);
   }
   
   /**
@@ -962,10 +918,12 @@ Change synchronization text of a transtion.<BR>
     Element invariant = getTheChildThatIsInvariantIfExists(loc);
     if(null == invariant){// -- find right place to add --------------------
       Element newInvariant = createInvariant();
-      int x = (new Integer(loc.getAttribute("x"))).intValue() - 20;
-      int y = (new Integer(loc.getAttribute("y"))).intValue() - 20;
-      newInvariant.setAttribute("x", String.valueOf(x));
-      newInvariant.setAttribute("y", String.valueOf(y));
+      if(withCoordinates){
+	int x = Integer.parseInt(loc.getAttribute("x")) - 20;
+	int y = Integer.parseInt(loc.getAttribute("y")) - 20;
+	newInvariant.setAttribute("x", String.valueOf(x));
+	newInvariant.setAttribute("y", String.valueOf(y));
+      }
       appendTextToTextualContentOfElement(newInvariant, invariantText);
       Element urgent = getFirstChildWithLabelIfExists(loc, "urgent");
       if( null != urgent)
@@ -1276,14 +1234,14 @@ Change synchronization text of a transtion.<BR>
     res.appendChild(createSource(sourceID));
     res.appendChild(createTarget(targetID));
     
-    if(inventNewGoegraphicalLocations){
+    if(inventNewGoegraphicalLocations && withCoordinates){
       try {
       long middleX = 
-	(Long.parseLong(((Element)hashIDsToNewLocationElements.get(sourceID)).getAttribute("x")) +
-	 Long.parseLong(((Element)hashIDsToNewLocationElements.get(targetID)).getAttribute("x")) ) / 2L;
+	(Long.parseLong(newLocationElement(sourceID).getAttribute("x")) +
+	 Long.parseLong(newLocationElement(targetID).getAttribute("x")) ) / 2L;
       long middleY = 
-	(Long.parseLong(((Element)hashIDsToNewLocationElements.get(sourceID)).getAttribute("y")) +
-	 Long.parseLong(((Element)hashIDsToNewLocationElements.get(targetID)).getAttribute("y")) ) / 2L;
+	(Long.parseLong(newLocationElement(sourceID).getAttribute("y")) +
+	 Long.parseLong(newLocationElement(targetID).getAttribute("y")) ) / 2L;
       res.setAttribute("x", "" + middleX);
       res.setAttribute("y", "" + middleY);
 
@@ -1352,7 +1310,8 @@ Change synchronization text of a transtion.<BR>
     addIDToElement(res);
     addNameToElement(res, makeNameSafe(name));
 
-    hashIDsToNewLocationElements.put(DocumentReader.getElementID(res), res);
+    setAtNumber(newLocationElements,
+		originalIDs.number(DocumentReader.getElementID(res)), res);
 
     return res;
   }
@@ -1389,7 +1348,7 @@ Change synchronization text of a transtion.<BR>
 
   /**
    * Changes the id-attribute of the location, but also updates the 
-   * hashtable <TT>{@link #hashIDsToNewLocationElements}</TT>
+   * table <TT>{@link #newLocationElements}</TT>
    */
   protected void changeLocationID(Element el, String newID)
     throws Exception {
@@ -1402,8 +1361,10 @@ Change synchronization text of a transtion.<BR>
       System.out.print("!!! overwriting ID - was: " + el.getAttribute("id"));
 
 
+    unregisterID(el.getAttribute("id"), el);
     el.setAttribute("id", newID);
-    hashIDsToNewLocationElements.put(newID, el);
+    registerID(newID, el);
+    setAtNumber(newLocationElements, originalIDs.number(newID), el);
 
     if(debug)
       System.out.println(" --> NEW: " + newID);
@@ -1528,7 +1489,8 @@ Change synchronization text of a transtion.<BR>
     addSendSynchronisationToTransition(channelName, hurryTransition);
     
     TextualInstantiation inst = 
-      new TextualInstantiation(instantiationName,
+      new TextualInstantiation(names,
+			       instantiationName,
 			       new Vector(), null, null, null, null );
     
     addNameToElement(hurryTemplate, inst.objectName );
@@ -1589,7 +1551,8 @@ Change synchronization text of a transtion.<BR>
     // -- Enter in lists to be processed finally ----------------------- 
     
     TextualInstantiation inst = 
-      new TextualInstantiation(instantiationName,
+      new TextualInstantiation(names,
+			       instantiationName,
 			       new Vector(), null, null, null, null );
     
     
@@ -1660,84 +1623,98 @@ Change synchronization text of a transtion.<BR>
   }
   
 
+  /**
+   * Use <TT>theLayouter</TT> for {@link #recomputeAllTemplateLayouts}
+   * (default: {@link SkewedGridLayouter})
+   */
+  public void setLayouter(Layouter theLayouter){
+    layouter = theLayouter;
+  }
+
+  /**
+   * <H3>Headless output profile</H3>
+   * For translations that are only read by the verifier, never by an 
+   * editor: no coordinates are generated (for locations, transitions, 
+   * names and labels), and the layout postprocessing (<TT>{@link 
+   * #recomputeAllTemplateLayouts}</TT>) is left out by {@link Flatten}, 
+   * which also does not copy nails. Anonymous locations stay anonymous.
+   * The result is still a valid <TT>nta</TT> document (all coordinates
+   * are optional).<BR>
+   * <BR>
+   * Has to be set before the translation starts.
+   */
+  public void setHeadless(boolean on){
+    withCoordinates = !on;
+  }
+
+  public boolean isHeadless(){
+    return !withCoordinates;
+  }
+
+  /**
+   * Lay out the templates on <TT>n</TT> threads
+   */
+  public void setLayoutThreads(int n){
+    layoutThreads = n;
+  }
+
   /**
    * Browse through all templates (the ones already in the documnent),<BR>
-   * and call the Layouter method on them
+   * and call the Layouter method on them<BR>
+   * <BR>
+   * With <TT>{@link #layoutThreads}</TT> &gt; 1, all templates are 
+   * prepared first, in document order (this is where the tree changes); 
+   * then they are placed in parallel on a fork-join pool. Templates do 
+   * not share locations, so the result is the same as with one thread.
    */
   public void recomputeAllTemplateLayouts()
     throws Exception {
     
     NodeList allTemplates = getAllChildrenWithLabel(root, "template");
-    for(int i=0; i < allTemplates.getLength(); i++){
-      Element template = (Element)allTemplates.item(i);
 
-      if(debug)
-	System.out.println("... layouting: " + getElementName(template));
+    if(layoutThreads <= 1){
+      for(int i=0; i < allTemplates.getLength(); i++){
+	Element template = (Element)allTemplates.item(i);
+
+	if(debug)
+	  System.out.println("... layouting: " + getElementName(template));
 
-      layouter.layoutTemplate(template);
+	layouter.layoutTemplate(template);
+      }
+      return;
     }
-  }
-  /**
-   * Browse through all transitions (the ones already in the document),<BR>
-   * and 
-   * <UL>
-   *  <LI>remove empty labels</LI>
-   *  <LI>sort labels in guard-sync-assignment</LI>
-   * </UL>
-   */
-  public void cleanupTransitionLabels()
-    throws Exception {
-    
-    if(debug)
-      System.out.println(">>> CLEANING UP TRANSITION LABELS");
 
-    NodeList allTemplates = getAllChildrenWithLabel(root, "template");
+    Vector tasks = new Vector();
     for(int i=0; i < allTemplates.getLength(); i++){
-      Element template = (Element)allTemplates.item(i);
+      final Element template = (Element)allTemplates.item(i);
 
       if(debug)
-	System.out.println("... cleaning: " + getElementName(template));
-
-      NodeList allTransitions = getAllChildrenWithLabel(template, "transition");
-      for(int j=0; j < allTransitions.getLength(); j++){
-	Element transition = (Element)allTransitions.item(j);
-	
-	NodeList allLabels = getAllChildrenWithLabel(transition, "label");
-	Element guardLabel = null;
-	Element synchronisationLabel = null;
-	Element assignmentLabel = null;
-	for(int k=0; k < allLabels.getLength(); k++){
-	  Element label = (Element)allLabels.item(k);
-	  String kind = (label.getAttribute("kind")).trim();
-	  if(kind.equals("guard")){
-	    if(null != guardLabel)
-	      throw new Exception("ERROR: double guards \n" + guardLabel.toString() + "\n" + label.toString());
-	    if((getCdataOfElement(label).trim()).length() >0)
-	      guardLabel = label;
-	  }
-	  else if(kind.equals("synchronisation")){
-	    if(null != synchronisationLabel)
-	      throw new Exception("ERROR: double synchronisations \n" + synchronisationLabel.toString() + "\n" + label.toString());
-	    if((getCdataOfElement(label).trim()).length() >0)
-	      synchronisationLabel = label;
-	  }
-	  else if(kind.equals("assignment")){
-	    if(null != assignmentLabel)
-	      throw new Exception("ERROR: double assignments \n" + assignmentLabel.toString() + "\n" + label.toString());
-	    if((getCdataOfElement(label).trim()).length() >0)
-	      assignmentLabel = label;
+	System.out.println("... layouting: " + getElementName(template));
+
+      layouter.prepareTemplate(template);
+      tasks.addElement(new Callable(){
+	  public Object call()
+	    throws Exception {
+	    layouter.placeTemplate(template);
+	    return template;
 	  }
-	  else
-	    throw new Exception("ERROR: unexpected label: \n" + label.toString());
-	  transition.removeChild(label);
+	});
+    }
+
+    ForkJoinPool pool = new ForkJoinPool(layoutThreads);
+    try {
+      List futures = pool.invokeAll(tasks);
+      for(Iterator i = futures.iterator(); i.hasNext(); ){
+	try {
+	  ((Future)i.next()).get();
+	} catch (ExecutionException ee) {
+	  if(ee.getCause() instanceof Exception)
+	    throw (Exception)ee.getCause();
+	  throw ee;
 	}
-	if(null != guardLabel)
-	  transition.appendChild(guardLabel);
-	if(null != synchronisationLabel)
-	  transition.appendChild(synchronisationLabel);
-	if(null != assignmentLabel)
-	  transition.appendChild(assignmentLabel);
       }
+    } finally {
+      pool.shutdown();
     }
   }
 
@@ -1749,7 +1726,8 @@ Change synchronization text of a transtion.<BR>
    * Returns a <TT>Vector</TT>, where all the (immediate) transitions to a 
    * specific location are stored.<BR>
    * <BR>
-   * <B>Should be called only after all transitions are created!</B>
+   * Answered from the adjacency index; transitions created later are 
+   * not contained.
    */
   public Vector getAllTransitionsLeadingToLocation(Element loc)
     throws Exception {
@@ -1758,28 +1736,15 @@ Change synchronization text of a transtion.<BR>
        throw new Exception("ERROR: not a <location> Element: \n" +
 			   loc.toString());
 
-     Vector result = new Vector();
-
-     String locID = getElementID(loc);
-     Element template = (Element)loc.getParentNode();
-     
-     NodeList allTransitions = getAllChildrenWithLabel(template, 
-						       "transition");
-     for(int i=0; i < allTransitions.getLength(); i++){
-       Element transition = (Element)allTransitions.item(i);
-       Element target     = getTheChildWithLabel(transition, "target");
-       if(locID.equals(target.getAttribute("ref")))
-	 result.addElement(transition);
-     }
-     
-     return result;
+     return transitionsInTemplateOf(loc, incomingTransitions);
   }
 
   /**
    * Returns a <TT>Vector</TT>, where all the (immediate) transitions <B>from</B> a 
    * specific location are stored.<BR>
    * <BR>
-   * <B>Should be called only after all transitions are created!</B>
+   * Answered from the adjacency index; transitions created later are 
+   * not contained.
    */
   public Vector getAllTransitionsStartingAtLocation(Element loc)
     throws Exception {
@@ -1788,22 +1753,84 @@ Change synchronization text of a transtion.<BR>
        throw new Exception("ERROR: not a <location> Element: \n" +
 			   loc.toString());
 
+     return transitionsInTemplateOf(loc, outgoingTransitions);
+  }
+
+  /**
+   * The transitions of the adjacency index <TT>table</TT> for the ID of 
+   * <TT>loc</TT> that are in the template of <TT>loc</TT> (in the order 
+   * they were added).
+   */
+  private Vector transitionsInTemplateOf(Element loc, Vector table)
+    throws Exception {
      Vector result = new Vector();
 
-     String locID = getElementID(loc);
-     Element template = (Element)loc.getParentNode();
-     
-     NodeList allTransitions = getAllChildrenWithLabel(template, 
-						       "transition");
-     for(int i=0; i < allTransitions.getLength(); i++){
-       Element transition = (Element)allTransitions.item(i);
-       Element source     = getTheChildWithLabel(transition, "source");
-       if(locID.equals(source.getAttribute("ref")))
+     Vector candidates = (Vector)atNumber(table, originalIDs.numberIfExists(getElementID(loc)));
+     if(null == candidates)
+       return result;
+
+     Node template = loc.getParentNode();
+     for(Enumeration e = candidates.elements(); e.hasMoreElements(); ){
+       Element transition = (Element)e.nextElement();
+       if(template == transition.getParentNode())
 	 result.addElement(transition);
      }
-     
+
      return result;
   }
+
+  /**
+   * Enter a transition that was just added to a template in the 
+   * adjacency indexes, with its source and target (if already present).
+   */
+  private void indexTransition(Element transition){
+    for(Node node = transition.getFirstChild(); null != node; node = node.getNextSibling()){
+      if(node instanceof Element){
+	String tag = ((Element)node).getTagName();
+	if(tag.equals("source"))
+	  indexTransitionEnd(outgoingTransitions, (Element)node, transition);
+	else if(tag.equals("target"))
+	  indexTransitionEnd(incomingTransitions, (Element)node, transition);
+      }
+    }
+  }
+
+  /**
+   * Enter <TT>transition</TT> under the location that <TT>end</TT> (a 
+   * source or target) refers to
+   */
+  private void indexTransitionEnd(Vector table, Element end, Element transition){
+    int n = originalIDs.number(end.getAttribute("ref"));
+    Vector transitions = (Vector)atNumber(table, n);
+    if(null == transitions)
+      setAtNumber(table, n, transitions = new Vector());
+    transitions.addElement(transition);
+  }
+
+  /**
+   * The new location with ID <TT>id</TT>; <TT>null</TT>, if there is none
+   */
+  private Element newLocationElement(String id){
+    return (Element)atNumber(newLocationElements, originalIDs.numberIfExists(id));
+  }
+
+  /**
+   * Entry <TT>n</TT> of a table indexed by ID numbers; <TT>null</TT>, if
+   * there is none (or <TT>n</TT> is negative)
+   */
+  private static Object atNumber(Vector table, int n){
+    return ( (n < 0) || (n >= table.size()) ) ? null : table.elementAt(n);
+  }
+
+  /**
+   * Set entry <TT>n</TT> of a table indexed by ID numbers (growing it, if
+   * necessary)
+   */
+  private static void setAtNumber(Vector table, int n, Object o){
+    if(n >= table.size())
+      table.setSize(n + 1);
+    table.setElementAt(o, n);
+  }
   // -----------------------------------------------------------------------
 
   /**
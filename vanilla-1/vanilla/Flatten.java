@@ -50,12 +50,6 @@
 // 
 
 
-import TextualInstantiation;
-import InstantiationTree;
-import DocumentReader;
-import HierarchicalDocumentReader;
-import GlobalJoin;
-
 import java.io.*;
 
 import org.xml.sax.*;
@@ -64,8 +58,6 @@ import javax.xml.parsers.SAXParserFactory;
 import javax.xml.parsers.ParserConfigurationException;  
 import javax.xml.parsers.SAXParser;  
 
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.DocumentBuilder;
 
 import org.w3c.dom.Document;
 import org.w3c.dom.NodeList;
@@ -87,6 +79,12 @@ import java.util.Hashtable;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Enumeration;
+import java.util.List;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 
 //**** from internal API packages 
@@ -103,6 +101,11 @@ import org.apache.crimson.tree.XmlDocument;
  * the same 
  * behaviour 
  * (modulo some construction slack) as the hierarchical one.<BR>
+ * <BR>
+ * Every Flatten object is one flattening <EM>session</EM>: it owns the 
+ * readers, writers, mappers and counters of one translation. Hence one JVM 
+ * can translate several documents, also concurrently on separate threads, 
+ * with the same result as in a fresh JVM.<BR>
  * 
  * <H2>For a detailled description see <TT>hu.tex</TT></H2>
  * 
@@ -181,38 +184,48 @@ public class Flatten extends DefaultHandler {
   /**
    * The way to access the hierarchical document
    */
-  static HierarchicalDocumentReader hdr;
+  HierarchicalDocumentReader hdr;
 
   /**
    * The way to create the flat document
    */
-  private static FlatDocumentWriter fdw;
+  private FlatDocumentWriter fdw;
   
   /**
    * An entity that translates basic locations and keeps track of them
    */
-  private static LocationMapper lm;
+  private LocationMapper lm;
     
   /**
    * An entity that translates pairs (hierarchial component, textual 
    * instantiation) to the textual instantiation of this compenent.
    */
-  private static ComponentMapper cm;
+  private ComponentMapper cm;
   
   /**
    * Registration of hand-shake communication for Phase III processing
    */
-  private static ChannelRegistry cr;
+  private ChannelRegistry cr;
+
+  /**
+   * All global joins of this translation (Phase II)
+   */
+  private GlobalJoinRegistry joins;
+
+  /**
+   * Counters for all names invented during this translation
+   */
+  private NameAllocator names;
 
   /**
    * The document that the <TT>{@link #fdw}</TT> is writing
    */
-  private static XmlDocument flatDoc;
+  private XmlDocument flatDoc;
   
   /**
    * Textual instantiation corresponding to the root.
    */
-  protected static TextualInstantiation rootInstDummy;
+  protected TextualInstantiation rootInstDummy;
 
   /**
    * Name of variable blocking joins, while other joins are executed
@@ -222,27 +235,27 @@ public class Flatten extends DefaultHandler {
   /**
    * The tree the system is mapped to
    */
-  static InstantiationTree globalInstantiationTree;
+  InstantiationTree globalInstantiationTree;
 
   
-  static org.w3c.dom.Element instantiation;
-  static org.w3c.dom.Element system;
+  org.w3c.dom.Element instantiation;
+  org.w3c.dom.Element system;
   
-  static org.w3c.dom.Element template;
-  static org.w3c.dom.Element location;
-  static org.w3c.dom.Element name;
-  static org.w3c.dom.Element transition;
-  static org.w3c.dom.Element source;
-  static org.w3c.dom.Element target;
-  static org.w3c.dom.Element guard;
-  static org.w3c.dom.Element synchronisation;
-  static org.w3c.dom.Element assignment;
+  org.w3c.dom.Element template;
+  org.w3c.dom.Element location;
+  org.w3c.dom.Element name;
+  org.w3c.dom.Element transition;
+  org.w3c.dom.Element source;
+  org.w3c.dom.Element target;
+  org.w3c.dom.Element guard;
+  org.w3c.dom.Element synchronisation;
+  org.w3c.dom.Element assignment;
   
   // =========================
   // [0.1.1] Lists
   // =========================
   
-  static Vector collectedInstantiations; //!!!! surplus, see slackInstantion
+  Vector collectedInstantiations; //!!!! surplus, see slackInstantion
 
   // =========================
   // [0.1.2] Strings
@@ -251,7 +264,7 @@ public class Flatten extends DefaultHandler {
   /**
    * Prefix that makes the currently translated  Template unique
    */
-  static String currentTemplatePrefix = "";
+  String currentTemplatePrefix = "";
   
   
   /**
@@ -261,7 +274,7 @@ public class Flatten extends DefaultHandler {
    * <h3>In Vanilla-1, every template is instantiated exactly <I>once</I>
    * </h3>
    */
-  static Stack instantiationsToBeTranslated ;
+  Stack instantiationsToBeTranslated ;
   
  
   
@@ -272,41 +285,36 @@ public class Flatten extends DefaultHandler {
   /**
    * Counter to make introduced locations for components unique
    */
-  static long componentCount = 0L;
+  long componentCount = 0L;
   
   /**
    * Counter to make hashing of elements unique
    */
-  static long elementCount = 0L;
+  long elementCount = 0L;
 
   /**
    * Hashtable mapping (original, hierarchical) template names to
    * the corresponding Element nodes, see {@link #memorizeTemplate}
    */
-  private static Hashtable hashTemplateNamesToElements;
+  private Hashtable hashTemplateNamesToElements;
   
 
   /**
    * Hashtable storing the IDs the tranlation of elements corresponds
    * to ?t?
    */
-  private static Hashtable hashElementsToIDs;
+  private Hashtable hashElementsToIDs;
   
   /**
    * Hashtable mapping instantiation/componentID to the
    * {@link TextualInstantiation} it corresponds to.
    */
-  private static Hashtable hashInstComponentToTInst;
+  private Hashtable hashInstComponentToTInst;
   
   // ==================================================
   // [0.2] Other AUX    
   // ==================================================
   
-  /**
-   * Output stream writer
-   */
-  static private Writer  out;
-  
   /**
    * Spam out debuggin information, if <TT>debug</TT> is true
    */
@@ -317,6 +325,24 @@ public class Flatten extends DefaultHandler {
    */
   static boolean sanityChecks = true;
 
+  /**
+   * Number of threads planning the global joins in Phase II; 1: one 
+   * after the other (see {@link #processGlobalJoins})
+   */
+  private int globalJoinThreads = 1;
+
+  /**
+   * Number of threads laying out the templates (see {@link 
+   * FlatDocumentWriter#recomputeAllTemplateLayouts})
+   */
+  private int layoutThreads = 1;
+
+  /**
+   * Headless output: no coordinates, no layout (see {@link 
+   * FlatDocumentWriter#setHeadless})
+   */
+  private boolean headless = false;
+
 
 
   // ////////////////////////////////////////
@@ -324,10 +350,33 @@ public class Flatten extends DefaultHandler {
   // ////////////////////////////////////////
   
   /**
-Default Constructor: missing (only static)
+   * Default Constructor: a new flattening session.<BR>
+   * The state is set up by {@link #constructFlatDoc}.
+   */
+  public Flatten(){
+  }
+
+  /**
+   * Plan the global joins of Phase II on <TT>n</TT> threads
+   */
+  public void setGlobalJoinThreads(int n){
+    globalJoinThreads = n;
+  }
+
+  /**
+   * Lay out the templates of the translation on <TT>n</TT> threads
+   */
+  public void setLayoutThreads(int n){
+    layoutThreads = n;
+  }
+
+  /**
+   * Produce headless output, for the verifier only (see {@link 
+   * FlatDocumentWriter#setHeadless})
    */
-  //    public Flatten(){
-  //  }
+  public void setHeadless(boolean on){
+    headless = on;
+  }
   
   // ////////////////////////////////////////
   // ////////////// METHODS  ////////////////
@@ -339,80 +388,105 @@ Default Constructor: missing (only static)
   
   public static void main (String argv [])
   {
-    if (argv.length != 1) {
-      System.err.println ("Usage: cmd filename");
+    int joinThreads = 1;
+    int layoutThreads = 1;
+    boolean headless = false;
+    int arg = 0;
+    try {
+      for( ; (arg < argv.length - 1) && argv[arg].startsWith("-"); arg++){
+	if(argv[arg].equals("-headless"))
+	  headless = true;
+	else if(argv[arg].equals("-joinThreads"))
+	  joinThreads = Integer.parseInt(argv[++arg]);
+	else if(argv[arg].equals("-layoutThreads"))
+	  layoutThreads = Integer.parseInt(argv[++arg]);
+	else
+	  joinThreads = 0;
+      }
+    } catch (NumberFormatException e) {
+      joinThreads = 0;
+    }
+    if ( ( arg != argv.length - 1 ) ||
+	 ( joinThreads < 1 ) || ( layoutThreads < 1 ) ) {
+      System.err.println ("Usage: cmd [-headless] [-joinThreads n] [-layoutThreads n] filename");
       System.exit (1);
     }
     
+    // -- 0: translated and valid; 2: any error below ----------------------
+    int exitStatus = 0;
     
     try {
       
-      DocumentBuilderFactory domFactory = 
-	DocumentBuilderFactory.newInstance();
-      domFactory.setNamespaceAware(true);
-      domFactory.setValidating(true);
-      
+      File inputFile = new File(argv[argv.length - 1]);
+      File outputFile = new File("output.xml");
+
+      SAXParserFactory saxFactory = SAXParserFactory.newInstance();
+      saxFactory.setValidating(true);
       
       if(debug)
-	System.out.println("** Document Builder Factory validating: "
-			   + domFactory.isValidating());
-      if(debug)
-	System.out.println("** Document Builder Factory namespace aware: "
-			   + domFactory.isNamespaceAware());
+	System.out.println("** Parser Factory validating: "
+			   + saxFactory.isValidating());
       
-      DocumentBuilder dom = domFactory.newDocumentBuilder();
-      dom.setErrorHandler(null); // default error handler
+      SAXParser saxParser = saxFactory.newSAXParser();
+      DTDCache dtds = new DTDCache(new File[]{ inputFile.getAbsoluteFile().getParentFile(),
+					       new File(".") });
 
-      Document doc = dom.parse(new File(argv[0]));
+      // -- the one and only (streaming) parse of the input ----------------
+      HierarchicalDocumentReader reader = 
+	HierarchicalDocumentLoader.load(saxParser, inputFile, dtds);
       
-      /*
-	String tagName = argv[0];
-	NodeList nl = doc.getElementsByTagName(tagName);
-	if(debug)
-	System.out.println("Document contains " + nl.getLength() +
-	" elements with tag " + tagName +
-	":");
-	for(int i=0; i< nl.getLength();i++){
-	Node n = nl.item(i);
-	if(debug)
-	System.out.println("++ Node ++\n" +
-	"NAME:    " + n.getNodeName() + "\n" +
-	"VALUE:   " + n.getNodeValue() + "\n" +
-	"CHILDREN:" + (n.getChildNodes()).getLength()
-	);
-	}
-      */
-      traverse(doc,"hta");
+      if(debug)
+	traverse(reader.origDoc,"hta");
       
       // -- ------------------------------
       if(debug)
-	System.out.println("** Document Builder DONE.");
-      // -- ------------------------------
-      if(false)return;
+	System.out.println("** Document Loader DONE.");
       
-      if(false){
-	
-	// Use the validating parser
-	SAXParserFactory factory = SAXParserFactory.newInstance();
-	factory.setValidating(true);
-	if(debug)
-	  System.out.println("** Parser Factory validating: "
-			     + factory.isValidating());
-	
-	//        factory.setNamespaceAware(true); // trows exception..
-	if(debug)
-	  System.out.println("** Parser Factory namespace-aware: "
-			     + factory.isNamespaceAware());
-	//!o!** begin of modification **** Wed Sep 13 16:11:14 2000 *****
-	
-	// Set up output stream
-	out = new OutputStreamWriter (System.out, "UTF8");
-	
-	// Parse the input
-	SAXParser saxParser = factory.newSAXParser();
-	saxParser.parse( new File(argv [0]), new Flatten() );
+      // ===============================================
+      // [1.1] Now translate it
+      // ===============================================
+
+      Flatten session = new Flatten();
+      session.setGlobalJoinThreads(joinThreads);
+      session.setLayoutThreads(layoutThreads);
+      session.setHeadless(headless);
+      XmlDocument translatedDoc = session.constructFlatDoc(reader);
+      
+      // -------------------------------------------------------------
+      
+      if(debug)
+	System.out.println("%%% %% new flat Document: show %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%");
+      
+      // -- serialized in memory: written and validated from the same bytes
+      byte[] serialized = serialize(translatedDoc);
+      OutputStream fos = new FileOutputStream(outputFile);
+      try {
+	fos.write(serialized);
+      } finally {
+	fos.close();
+      }
+
+      // -- Display Instantiation Tree -------------------------------------
+      if(debug){
+	System.out.println("%%% %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%");
+	System.out.println("%%% Show Instantiation Tree");
+	System.out.println("%%% %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%");
+	System.out.println(session.globalInstantiationTree.showWithOffset(0));
+      }
+
+      // -- Parse it for validation (from memory) --------------------------
+      
+      if(debug){
+	System.out.println("%%% %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%");
+	System.out.println("%%% Parse flat document");
+	System.out.println("%%% %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%");
       }
       
+      validate(saxParser, dtds, serialized, outputFile);
+      
+      if(debug)
+	System.out.println("%%% Validation: OK.\n");
+
     } catch (SAXParseException spe) {
       // Error generated by the parser
       System.out.println ("\n** Parsing error" 
@@ -425,6 +499,7 @@ Default Constructor: missing (only static)
       if (spe.getException() != null)
 	x = spe.getException();
       x.printStackTrace();
+      exitStatus = 2;
       
     } catch (SAXException sxe) {
       // Error generated by this application
@@ -433,82 +508,99 @@ Default Constructor: missing (only static)
       if (sxe.getException() != null)
 	x = sxe.getException();
       x.printStackTrace();
+      exitStatus = 2;
       
     } catch (ParserConfigurationException pce) {
       // Parser with specified options can't be built
       pce.printStackTrace();
+      exitStatus = 2;
       
     } catch (IOException ioe) {
       // I/O error
       ioe.printStackTrace();
+      exitStatus = 2;
     } catch (Exception e) {
       // some other error
       e.printStackTrace();
+      exitStatus = 2;
     }
-    
-    // ===============================================
-    // [1.1] Now translate it
-    // ===============================================
 
-    try{
-
-      DocumentBuilderFactory domFactory = 
-	DocumentBuilderFactory.newInstance();
-      domFactory.setNamespaceAware(true);
-      domFactory.setValidating(true);
-    
-      DocumentBuilder dom = domFactory.newDocumentBuilder();
- 
-      Document theDoc = dom.parse(new File(argv[0]));
-      XmlDocument translatedDoc = constructFlatDoc(new HierarchicalDocumentReader(theDoc));
-      
-      // -------------------------------------------------------------
-      //      if(debug)System.out.println(flatDoc.toString());
-      //  traverse(flatDoc,"nta");
-      
-      if(debug)
-	System.out.println("%%% %% new flat Document: show %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%");
-      
-      // translatedDoc.write(System.out);  // -- write to stdout
-      
-      String fileName = "output.xml";
-      FileWriter fw = new FileWriter(fileName);
-      translatedDoc.write(fw);
-
-
-      // -- Display Instantiation Tree -------------------------------------
-      if(debug){
-	System.out.println("%%% %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%");
-	System.out.println("%%% Show Instantiation Tree");
-	System.out.println("%%% %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%");
-	System.out.println(globalInstantiationTree.showWithOffset(0));
-      }
+    // ---------------------------------------------------------------------
+    //    testGeoCordinates(1000);
+    // ------------------------------------------------------------- THE END
+    System.exit (exitStatus);
+  }
 
-      // -- Parse it for validation ----------------------------------------
-      
-      if(debug){
-	System.out.println("%%% %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%");
-	System.out.println("%%% Parse flat document");
-	System.out.println("%%% %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%");
-      }
-      
-      Document validateDoc = dom.parse(new File("output.xml"));
-      
-      if(debug)
-	System.out.println("%%% Validation: OK.\n");
+  /**
+   * Returns the flat document as it is written to a file (in UTF-8).<BR>
+   * <BR>
+   * The templates are released from <TT>translatedDoc</TT> as they are
+   * written (see <TT>{@link FlatDocumentSerializer#setRelease}</TT>), so
+   * the document is used up afterwards.
+   */
+  public static byte[] serialize(Document translatedDoc)
+    throws IOException {
+    
+    ByteArrayOutputStream buf = new ByteArrayOutputStream();
+    FlatDocumentSerializer serializer = new FlatDocumentSerializer(buf);
+    serializer.setRelease(true);
+    serializer.write(translatedDoc);
+    return buf.toByteArray();
+  }
 
+  /**
+   * Validate a serialized flat document with a (validating) parser, 
+   * without reading it back from disk.<BR>
+   * The DTD is resolved by <TT>resolver</TT> (if not <TT>null</TT>) or
+   * relative to <TT>location</TT> (where the document is, or will be, 
+   * stored).<BR>
+   * Throws an Exception, if the document is not valid.
+   */
+  public static void validate(SAXParser parser, final EntityResolver resolver,
+			      byte[] serialized, File location)
+    throws Exception {
+    
+    InputSource source = new InputSource(new ByteArrayInputStream(serialized));
+    source.setSystemId(location.toURI().toString());
+    validate(parser, resolver, source);
+  }
 
-    } catch (Exception e) {
-      // some other error
-      e.printStackTrace();
-    }
+  private static void validate(SAXParser parser, final EntityResolver resolver,
+			       InputSource source)
+    throws Exception {
+    
+    parser.parse(source, new DefaultHandler(){
+	public InputSource resolveEntity(String publicId, String systemId)
+	  throws IOException, SAXException {
+	  if(null == resolver)
+	    return null;
+	  return resolver.resolveEntity(publicId, systemId);
+	}
+	public void error(SAXParseException spe)
+	  throws SAXException {
+	  throw spe;
+	}
+      });
+  }
 
-    // ---------------------------------------------------------------------
-    //    testGeoCordinates(1000);
-    // ------------------------------------------------------------- THE END
-    System.exit (0);
+  /**
+   * Switch the debugging output of all classes involved in the 
+   * translation on or off.
+   */
+  public static void setDebug(boolean on){
+    debug = on;
+    ChannelSplitter.debug = on;
+    ComponentMapper.debug = on;
+    GlobalJoin.debug = on;
+    GlobalJoinRegistry.debug = on;
+    DeclarationTable.debug = on;
+    HierarchicalDocumentReader.debug = on;
+    LocationMapper.debug = on;
+    SimpleLayouter.debug = on;
+    SkewedGridLayouter.debug = on;
+    TextualInstantiation.debug = on;
   }
-  
+
   /**    
    * <H1>Main Method</H1>
    * Create an nta document that is a translation of the original one<BR>
@@ -516,26 +608,33 @@ Default Constructor: missing (only static)
    * <TT>{@link #flatDoc}</TT>.
    * 
    * Constructs the <TT>{@link #globalInstantiationTree}</TT>, which is 
-   * used to compute the global joins.
-   * 
+   * used to compute the global joins.<BR>
+   * <BR>
+   * All these fields belong to <EM>this</EM> session; translations in 
+   * different Flatten objects do not interfere (they can run on separate 
+   * threads). The reader must not be shared between sessions, for it
+   * adds elements to its document.
    */
-  public static XmlDocument constructFlatDoc(HierarchicalDocumentReader reader)
+  public XmlDocument constructFlatDoc(HierarchicalDocumentReader reader)
     throws Exception {
 
     hdr = reader;
-    fdw = new FlatDocumentWriter();
+    names = new NameAllocator();
+    fdw = new FlatDocumentWriter(names);
+    fdw.setLayoutThreads(layoutThreads);
+    fdw.setHeadless(headless);
     flatDoc = fdw.doc;
     
     lm = new LocationMapper(hdr, fdw);
-    cm = new ComponentMapper();
+    cm = new ComponentMapper(names);
 
-    GlobalJoin.init(cm, hdr);
-    
-    rootInstDummy = new TextualInstantiation("ROOT", null, null, null, null, null);
+    rootInstDummy = new TextualInstantiation(names, "ROOT", null, null, null, null, null);
     rootInstDummy.isANDComponent = true;
     globalInstantiationTree = new InstantiationTree(rootInstDummy);
     
-    cr = new ChannelRegistry(globalInstantiationTree);
+    joins = new GlobalJoinRegistry(hdr, cm, names, rootInstDummy);
+
+    cr = new ChannelRegistry(globalInstantiationTree, names);
     
     System.out.println("%%% %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%");
     System.out.println("%%% Construct flat document");
@@ -557,8 +656,6 @@ Default Constructor: missing (only static)
     // =====================================
 
     instantiationsToBeTranslated = new Stack();
-    
-    GlobalJoin.allGlobalJoins = new Vector();
 
     Vector rootEntrySignals = new Vector();
     Vector rootExitSignals = new Vector();
@@ -643,7 +740,8 @@ Default Constructor: missing (only static)
       System.out.println("ZZ " + parameterString);
       
       TextualInstantiation tinst = 
-	new TextualInstantiation(name,
+	new TextualInstantiation(names,
+				 name,
 				 hdr.splitCommaSeperatedString(parameterString),
 				 null,
 				 templateElement,
@@ -683,7 +781,7 @@ Default Constructor: missing (only static)
       // ----------------------------------------------
 
       // -- adjust global exits -----------------------
-      hdr.createJoinsForGlobalExits(tinst, rootEntry);
+      hdr.createJoinsForGlobalExits(tinst, rootEntry, joins);
     }
     
     // ==================================================
@@ -716,7 +814,7 @@ Default Constructor: missing (only static)
       System.out.println("%% === PHASE II =============================================== \n" +
 			 "%% --- Growing all Global Joins: ------------------------------ ");
 
-    GlobalJoin.growAll();
+    joins.growAll();
 
 
     if(debug)
@@ -726,10 +824,7 @@ Default Constructor: missing (only static)
 
     lm.allEntriesAreCreated = true;
 
-    for(Enumeration e = GlobalJoin.allGlobalJoins.elements();
-	e.hasMoreElements(); ){
-      processGlobalJoin((GlobalJoin)e.nextElement());
-    }
+    processGlobalJoins();
     
     if(debug)
       System.out.println("%% --- Processing Global Joins: ------------------------- DONE");
@@ -744,32 +839,8 @@ Default Constructor: missing (only static)
       System.out.println("%% === PHASE III ============================================== \n" +
 			 "%% duplicating channels, if necessary");
     
-    while(!cr.possibleConflicts.empty()){
-      SyncTransTinstTriple conflict = (SyncTransTinstTriple)cr.possibleConflicts.pop();
-      String sync = conflict.sync;
-      Element trans = conflict.trans;
-      TextualInstantiation tinst = conflict.tinst; // tinst of sub-component
-      if(cr.occursInOrBelow(cr.matchingSync(sync), tinst)){
-	String newChan = cr.chanOfSync(sync) + cr.newPostfix();
-	fdw.copyChannelDeclaration(cr.chanOfSync(sync), newChan);
-	cr.unregisterSync(sync, trans, tinst.father);
-	String changedSync =  newChan + cr.typeOfSync(sync);
-	fdw.changeSyncTextAtTransition(trans, changedSync);
-	cr.registerSync(changedSync, trans, tinst.father);
-	
-	for(Enumeration e = cr.enumTinstTransitionsWithSyncOutsideTinst(cr.matchingSync(sync), tinst); e.hasMoreElements(); ){
-	  TinstElementPair tip = (TinstElementPair)e.nextElement();
-	  TextualInstantiation matchTinst = tip.tinst;
-	  Element matchTransition = tip.element;
-	  Element clone = fdw.cloneTransition(matchTransition);
-	  fdw.changeSyncTextAtTransition(clone, cr.matchingSync(changedSync));
-	  cr.registerSync(cr.matchingSync(changedSync), clone, matchTinst);
-	  // -- check whether this is in the conflict stack -----
-	  cr.addConflictsForNewSync(sync, changedSync);
-	}
-      }
+    new ChannelSplitter(cr, fdw).run();
 
-    }
     if(debug)
       System.out.println("%% --- Phase III processing ----------------------------- DONE");
     
@@ -781,11 +852,10 @@ Default Constructor: missing (only static)
     if(debug)
       System.out.println("%% --- Recomputing Layout: ----------------------------------------------------- ");
 
-    fdw.complete();
+    fdw.complete(); // -- also writes the (sorted, non-empty) transition labels
 
-    fdw.cleanupTransitionLabels();
-
-    fdw.recomputeAllTemplateLayouts();
+    if(!headless)
+      fdw.recomputeAllTemplateLayouts();
 
     if(debug)
       System.out.println("%% --- Recomputing Layout: ----------------------------------------------------- DONE");
@@ -808,7 +878,7 @@ Default Constructor: missing (only static)
   /**
    * Return the node with specified template name
    */
-  public static Element getNodeOfTemplate(String s)
+  public Element getNodeOfTemplate(String s)
     throws Exception {
     
     if(debug)
@@ -890,7 +960,7 @@ Default Constructor: missing (only static)
    * <B>USES GLOBAL FIELD <TT>{@link #currentTemplatePrefix}</TT></B>
    * 
    */
-  private static String translateTemplateInstantiation(TextualInstantiation tinst)
+  private String translateTemplateInstantiation(TextualInstantiation tinst)
     throws Exception {
     
     if(debug)
@@ -910,7 +980,7 @@ Default Constructor: missing (only static)
    *
    * (called from translateTemplateInstantiation)
    */
-  private static String translateXORTemplateInstantiation(TextualInstantiation tinst)
+  private String translateXORTemplateInstantiation(TextualInstantiation tinst)
       throws Exception {
 
 
@@ -948,7 +1018,7 @@ Default Constructor: missing (only static)
     // -- Ordinary Locations -----------------------------------------------
     aTemplate.appendChild(flatDoc.createComment("ordinary locations"));
     
-    NodeList locationNodes = DocumentReader.getAllChildrenWithLabel(originalTemplate,
+    NodeList locationNodes = hdr.childrenWithLabel(originalTemplate,
 								    "location");
     for(int i=0; i < locationNodes.getLength(); i++){
       fdw.addLocationToTemplate(transformLocationToFlat(tinst, (Element)locationNodes.item(i)),
@@ -959,7 +1029,7 @@ Default Constructor: missing (only static)
     
     aTemplate.appendChild(flatDoc.createComment("now the (former) components"));
     
-    NodeList componentNodes = DocumentReader.getAllChildrenWithLabel(originalTemplate,
+    NodeList componentNodes = hdr.childrenWithLabel(originalTemplate,
 								     "component");
     
     // -- Push on Stack -------------------------------
@@ -995,7 +1065,7 @@ Default Constructor: missing (only static)
 
       // -- translate all entries of Component (in parent) -----------------
       String componentID = hdr.getElementID(component);
-      NodeList allEntries = hdr.getAllChildrenWithLabel(subTemplate, "entry");
+      NodeList allEntries = hdr.childrenWithLabel(subTemplate, "entry");
       for(int j=0; j < allEntries.getLength(); j++){
 	Element entry = (Element)allEntries.item(j);
 	String entryref = hdr.getElementID(entry);
@@ -1027,7 +1097,7 @@ Default Constructor: missing (only static)
     
     Stack entryTransitions = new Stack();
     
-    NodeList entryNodes = hdr.getAllChildrenWithLabel(originalTemplate, 
+    NodeList entryNodes = hdr.childrenWithLabel(originalTemplate, 
 						      "entry");
     
     // -- translate entries as transitions from IDLE -----------------------
@@ -1098,14 +1168,14 @@ Default Constructor: missing (only static)
     // -- ordinary transitions --------------------------------------------
     
     aTemplate.appendChild(flatDoc.createComment("ordinary transitions"));
-    NodeList origTransitions = DocumentReader.getAllChildrenWithLabel(originalTemplate,
+    NodeList origTransitions = hdr.childrenWithLabel(originalTemplate,
 								      "transition");
     
     for(int i=0 ; i < origTransitions.getLength(); i++){
       Element transition = (Element)origTransitions.item(i);
       
-      Element source = DocumentReader.getFirstChildWithLabel(transition, "source");
-      Element target = DocumentReader.getFirstChildWithLabel(transition, "target");
+      Element source = hdr.firstChildWithLabel(transition, "source");
+      Element target = hdr.firstChildWithLabel(transition, "target");
       String sourceID = source.getAttribute("ref");
       String targetID = target.getAttribute("ref");
       Element sourceTemplateElement =  hdr.getElementByID(sourceID);
@@ -1121,7 +1191,7 @@ Default Constructor: missing (only static)
 	TextualInstantiation subTinst = 
 	  cm.retrieveTextualInstantiation(sourceTemplateElement, tinst);
 	
-	GlobalJoin gj = GlobalJoin.getGlobalJoin(transition, tinst);
+	GlobalJoin gj = joins.getGlobalJoin(transition, tinst);
 	//	gj.grow(subTinst, 
 	//	hdr.getElementByID(source.getAttribute("exitref")) );
 	
@@ -1190,17 +1260,17 @@ Default Constructor: missing (only static)
     }
     else { // -- treat each exit separately --------------------------------
       
-      NodeList allExits = hdr.getAllChildrenWithLabel(originalTemplate,
+      NodeList allExits = hdr.childrenWithLabel(originalTemplate,
 						      "exit");
       for(int i=0; i < allExits.getLength(); i++){
 	
 	NodeList connections = 
-	  hdr.getAllChildrenWithLabel(((Element)allExits.item(i)),
+	  hdr.childrenWithLabel(((Element)allExits.item(i)),
 				      "connection");
 	
 	for(int j=0; j < connections.getLength(); j++){
 	  Element connection = (Element)connections.item(j);
-	  Element source = hdr.getTheChildWithLabel(connection, "source");
+	  Element source = hdr.theChildWithLabel(connection, "source");
 	  String sourceID = source.getAttribute("ref");
 	  Element sourceTemplateElement =  hdr.getElementByID(sourceID);
 	  if((sourceTemplateElement.getTagName()).equals("component")){
@@ -1229,7 +1299,7 @@ Default Constructor: missing (only static)
    *
    * (called from translateTemplateInstantiation)
    */
-  private static String translateANDTemplateInstantiation(TextualInstantiation tinst)
+  private String translateANDTemplateInstantiation(TextualInstantiation tinst)
     throws Exception {
 
     String instantiationName = tinst.objectName;
@@ -1268,7 +1338,7 @@ Default Constructor: missing (only static)
     
     aTemplate.appendChild(flatDoc.createComment("parallel components"));
     
-    NodeList componentNodes = DocumentReader.getAllChildrenWithLabel(originalTemplate,
+    NodeList componentNodes = hdr.childrenWithLabel(originalTemplate,
 								     "component");
     
     // -- Push on Stack -------------------------------
@@ -1300,7 +1370,7 @@ Default Constructor: missing (only static)
 	System.out.println("+++ translating forks...");
 
     Stack entryTransitions = new Stack();
-    NodeList entryNodes = DocumentReader.getAllChildrenWithLabel(originalTemplate, 
+    NodeList entryNodes = hdr.childrenWithLabel(originalTemplate, 
 								 "entry");
     
     aTemplate.appendChild(flatDoc.createComment("translation of entries + forks"));
@@ -1371,7 +1441,7 @@ Default Constructor: missing (only static)
     
     // -- process the exit points (to declare the signals) ---------------
     
-    NodeList exitNodes = DocumentReader.getAllChildrenWithLabel(originalTemplate, 
+    NodeList exitNodes = hdr.childrenWithLabel(originalTemplate, 
 								"exit");
     
     for(int i=0; i < exitNodes.getLength(); i++){
@@ -1440,23 +1510,176 @@ Default Constructor: missing (only static)
    * conflicts
    * 
    */
-  private static void processGlobalJoin(GlobalJoin gj)
+  private void processGlobalJoin(GlobalJoin gj)
     throws Exception {
-    System.out.print(gj.toString());
-    System.out.println("---------------------------------------------------------------------- PROCESSING");
+    applyGlobalJoinEdit(planGlobalJoin(gj));
+  }
 
-    // -- basic parameters ------------------------------------------
+  /**
+   * Process all global joins, in order.<BR>
+   * <BR>
+   * With <TT>{@link #globalJoinThreads}</TT> &gt; 1, all joins are 
+   * planned first, in parallel on a fork-join pool (planning only 
+   * <EM>reads</EM> the hierarchical document, the flat one and the 
+   * location mapping); then the edits are applied one after the other, 
+   * in the order of the joins. The result is the same as with one 
+   * thread.<BR>
+   * Reading is only concurrent, if the hierarchical document is safe for
+   * it (see {@link DocumentReader#isSafeForConcurrentReading}; the flat 
+   * one is always a Crimson document); otherwise the joins are processed
+   * one by one.
+   */
+  private void processGlobalJoins()
+    throws Exception {
+
+    if( (globalJoinThreads <= 1) ||
+	!hdr.isSafeForConcurrentReading() ){
+      if(debug && (globalJoinThreads > 1))
+	System.out.println("** global joins: document not safe for concurrent reading, one thread");
+      for(Enumeration e = joins.elements(); e.hasMoreElements(); ){
+	processGlobalJoin((GlobalJoin)e.nextElement());
+      }
+      return;
+    }
+
+    Vector tasks = new Vector();
+    for(Enumeration e = joins.elements(); e.hasMoreElements(); ){
+      final GlobalJoin gj = (GlobalJoin)e.nextElement();
+      tasks.addElement(new Callable(){
+	  public Object call()
+	    throws Exception {
+	    return planGlobalJoin(gj);
+	  }
+	});
+    }
+
+    Vector edits = new Vector();
+    ForkJoinPool pool = new ForkJoinPool(globalJoinThreads);
+    try {
+      List futures = pool.invokeAll(tasks);
+      for(Iterator i = futures.iterator(); i.hasNext(); ){
+	try {
+	  edits.addElement(((Future)i.next()).get());
+	} catch (ExecutionException ee) {
+	  if(ee.getCause() instanceof Exception)
+	    throw (Exception)ee.getCause();
+	  throw ee;
+	}
+      }
+    } finally {
+      pool.shutdown();
+    }
+
+    for(Enumeration e = edits.elements(); e.hasMoreElements(); ){
+      applyGlobalJoinEdit((GlobalJoinEdit)e.nextElement());
+    }
+  }
+
+  /**
+   * Collect everything the translation of a global join needs from the 
+   * hierarchical document: guards, synchronisations and assignments of 
+   * the root transitions, the flat start locations and the flat sources.
+   * <BR>
+   * <BR>
+   * Only reads; may run concurrently for different joins.
+   */
+  private GlobalJoinEdit planGlobalJoin(GlobalJoin gj)
+    throws Exception {
 
     Element topComponent = gj.getTopmostComponent();
     TextualInstantiation topTinst = 
       (TextualInstantiation)gj.tinstsToExit.elementAt(0);
+
+    boolean globalExit = (gj.rootTinst == rootInstDummy);
+
+    // -- start locations ----------------------------------------------
+    Vector startLocations = new Vector();
+    for(Enumeration e = gj.allHierarchicalStartLocations.elements(); 
+	e.hasMoreElements(); ){
+      TinstElementPair pair = (TinstElementPair)e.nextElement();
+      startLocations.addElement(lm.mapHierachicalLocationToFlatOne(pair.element, 
+								   pair.tinst));
+    }
+
+    // -- root transitions ---------------------------------------------
+    Vector transitionEdits = new Vector();
+    for(Enumeration f = gj.rootTransitions.elements(); f.hasMoreElements(); ){
+      Element connection = (Element)f.nextElement();
+      
+      Vector inAssign = new Vector();
+      Vector inGuard = new Vector();
+      
+      // -- SPECIAL: if global join enters a component ----------------------
+      if((!globalExit) &&
+	 hdr.isComponent(hdr.getElementByID(hdr.theChildWithLabel(connection, "target").getAttribute("ref"))) ){
+	hdr.collectGuardsAndAssignmentsOfTarget(hdr.theChildWithLabel(connection, "target"),
+						inGuard, inAssign, gj.rootTinst);
+      }
+      // -- COLLECT GUARDS --------------------------------------
+      Vector guards = new Vector();
+      String guardText = hdr.getTextualGuardOfTransitionIfPresent(connection);
+      if(null != guardText)
+	guards.addElement(guardText);
+      guards.addAll(gj.allGuards);
+      //!obsolete! guards.addElement(gjBLOCK + " == 0");
+      // -- threshold ---------------------------------
+      guards.addElement(gj.triggerVariable + 
+			" == " +
+			gj.threshold);
+      guards.addAll(inGuard);
+      // -- SYNC (if present) -------------------------
+      String syncText = null;
+      Element sync = hdr.getTheChildSynchronisationIfExists(connection);
+      if( null != sync)
+	syncText = (hdr.getCdataOfElement(sync)).trim();
+      // -- assignments -----------------------------------------
+      Vector assignments = new Vector();
+      String assignmentText = hdr.getTextualAssignmentOfTransitionIfPresent(connection); 
+      if(null != assignmentText)
+	assignments.addElement(assignmentText);
+      assignments.addAll(gj.allAssignments);
+      //!obsolete! assignments.addElement(gjBLOCK + " :=  1");
+      assignments.addAll(inAssign);
+      // -- where the chain starts and ends -------------------
+      String sourceID = null;
+      Element target = null;
+      if(!globalExit){
+	Element activeSubcomponentLocation = 
+	  lm.mapHierachicalLocationToFlatOne(hdr.getElementByID(hdr.theChildWithLabel(connection, "source").getAttribute("ref")),
+					     gj.rootTinst);
+	sourceID = fdw.getElementID(activeSubcomponentLocation);
+	target = hdr.theChildWithLabel(connection, "target");
+      }
+
+      transitionEdits.addElement(new JoinTransitionEdit(guards, syncText, assignments,
+							sourceID, target));
+    }
+
+    return new GlobalJoinEdit(gj, topComponent, topTinst, globalExit,
+			      startLocations, transitionEdits);
+  }
+
+  /**
+   * Write the translation of a (planned) global join to the flat 
+   * document.
+   */
+  private void applyGlobalJoinEdit(GlobalJoinEdit edit)
+    throws Exception {
+    GlobalJoin gj = edit.gj;
+    System.out.print(gj.toString());
+    System.out.println("---------------------------------------------------------------------- PROCESSING");
+
+    // -- basic parameters ------------------------------------------
+
+    Element topComponent = edit.topComponent;
+    TextualInstantiation topTinst = edit.topTinst;
  
     Element gjTemplate;
     Element nextTransition;
     String sourceID;
     String lastTargetID;
 
-    boolean globalExit = (gj.rootTinst == rootInstDummy);
+    boolean globalExit = edit.globalExit;
 
     if(globalExit){ // -- global join ----------------------------
 
@@ -1488,16 +1711,13 @@ Default Constructor: missing (only static)
 
     fdw.addDeclaration("int  " + gj.triggerVariable);
 
+    // -- the transitions to/from the start locations are looked up now, 
+    // -- for the translations of earlier joins add some 
     HashSet incrementSet = new HashSet();
     HashSet decrementSet = new HashSet();
 
-    for(Enumeration e = gj.allHierarchicalStartLocations.elements(); 
-	e.hasMoreElements(); ){
-      TinstElementPair pair = (TinstElementPair)e.nextElement();
-      Element hierLoc = pair.element;
-      TextualInstantiation hierTinst = pair.tinst;
-      Element flatLoc = lm.mapHierachicalLocationToFlatOne(hierLoc, 
-							   hierTinst);
+    for(Enumeration e = edit.startLocations.elements(); e.hasMoreElements(); ){
+      Element flatLoc = (Element)e.nextElement();
       // -- ingoing -----------------------------------
       Vector transitions = fdw.getAllTransitionsLeadingToLocation(flatLoc);
       for(Enumeration plug = transitions.elements(); plug.hasMoreElements(); ){
@@ -1533,82 +1753,42 @@ Default Constructor: missing (only static)
     }
     // -- BROWSE THROUGH ALL ROOT TRANSITIONS ------------------------------
 
-    for(Enumeration f = gj.rootTransitions.elements(); f.hasMoreElements(); ){
-      Element connection = (Element)f.nextElement();
+    for(Enumeration f = edit.transitionEdits.elements(); f.hasMoreElements(); ){
+      JoinTransitionEdit te = (JoinTransitionEdit)f.nextElement();
       
       nextTransition = fdw.createTransitionInTemplate(gjTemplate);
       
-      Vector inAssign = new Vector();
-      Vector inGuard = new Vector();
-      
-      // -- SPECIAL: if global join enters a component ----------------------
-      if((!globalExit) &&
-	 hdr.isComponent(hdr.getElementByID(hdr.getTheChildWithLabel(connection, "target").getAttribute("ref"))) ){
-	hdr.collectGuardsAndAssignmentsOfTarget(hdr.getTheChildWithLabel(connection, "target"),
-						inGuard, inAssign, gj.rootTinst);
-      }
-      // -- COLLECT GUARDS --------------------------------------
-      String guardText = hdr.getTextualGuardOfTransitionIfPresent(connection);
-      if(null != guardText)
-	fdw.conjunctTextualGuardToTransition(nextTransition,
-					     guardText);
-      
-      for(Enumeration e = gj.allGuards.elements(); e.hasMoreElements(); ){
-	fdw.conjunctTextualGuardToTransition(nextTransition,
-					     (String)e.nextElement());
-      }
-      //!obsolete! fdw.conjunctTextualGuardToTransition(nextTransition, gjBLOCK + " == 0");
-      // -- threshold ---------------------------------
-      fdw.conjunctTextualGuardToTransition(nextTransition,
-					   gj.triggerVariable + 
-					   " == " +
-					   gj.threshold);
-      for(Enumeration e = inGuard.elements(); e.hasMoreElements(); ){
+      // -- GUARDS ----------------------------------------------
+      for(Enumeration e = te.guards.elements(); e.hasMoreElements(); ){
 	fdw.conjunctTextualGuardToTransition(nextTransition,
 					     (String)e.nextElement());
       }
       // -- SYNC (if present and non-empty) -----------
-      
-      Element sync = hdr.getTheChildSynchronisationIfExists(connection);
-      if( null != sync){
-	String syncText = (hdr.getCdataOfElement(sync)).trim();
-	if(syncText.length() > 0){
-	  Element newSync = 
-	    addRegisteredSynchronisationToTransition(syncText, nextTransition, gj.rootTinst);
+      if( null != te.syncText){
+	if(te.syncText.length() > 0){
+	  addRegisteredSynchronisationToTransition(te.syncText, nextTransition, gj.rootTinst);
 	  // -- Entry for Phase III -------------------
-	  cr.addConflict(syncText, nextTransition, topTinst);
+	  cr.addConflict(te.syncText, nextTransition, topTinst);
 	}
       }
       else {
 	fdw.appendComment(nextTransition, "STRANGE: no sync found in root transition of global join");
       }
       // -- assignments -----------------------------------------
-      String assignmentText = hdr.getTextualAssignmentOfTransitionIfPresent(connection); 
-      if(null != assignmentText)
-	fdw.conjunctTextualAssignmentToTransition(nextTransition, assignmentText);
-      for(Enumeration e = gj.allAssignments.elements(); e.hasMoreElements(); ){
+      for(Enumeration e = te.assignments.elements(); e.hasMoreElements(); ){
 	fdw.conjunctTextualAssignmentToTransition(nextTransition,
 						  (String)e.nextElement());
       }
-      //!obsolete! fdw.conjunctTextualAssignmentToTransition(nextTransition, gjBLOCK + " :=  1");
-      for(Enumeration e = inAssign.elements(); e.hasMoreElements(); ){
-	  fdw.conjunctTextualAssignmentToTransition(nextTransition,
-						    (String)e.nextElement());
-      }
       // --------------------------------------------------------------------
       if(globalExit){
 	sourceID = fdw.kickOffDoneID;    
 	lastTargetID = fdw.kickOffDoneID;  
       }
       else {
-	Element activeSubcomponentLocation = 
-	  lm.mapHierachicalLocationToFlatOne(hdr.getElementByID(hdr.getTheChildWithLabel(connection, "source").getAttribute("ref")),
-					    gj.rootTinst);
-	 sourceID = fdw.getElementID(activeSubcomponentLocation);
+	 sourceID = te.sourceID;
 	 
 	 Element lastTargetLocation = 
-	   lm.mapTargetToFlatLocation(hdr.getTheChildWithLabel(connection, "target"), 
-				      gj.rootTinst);
+	   lm.mapTargetToFlatLocation(te.target, gj.rootTinst);
 	 lastTargetID = fdw.getElementID(lastTargetLocation);
      }
        
@@ -1645,13 +1825,11 @@ Default Constructor: missing (only static)
    * Browse the children of the original transition, transform them and 
    * add them to the new transition (in the specific instantiation)
    */
-  private static void migrateTransitionChildren(Element origTransition,
+  private void migrateTransitionChildren(Element origTransition,
 						TextualInstantiation tinst,
 						Element newTransition)
     throws Exception {
     
-    Element el;
-
     NodeList childNodes = origTransition.getChildNodes();
     for(int i = 0; i < childNodes.getLength(); i++){
       Node node = childNodes.item(i);
@@ -1659,18 +1837,19 @@ Default Constructor: missing (only static)
 	if(hdr.isSourceElement(node)){        // ignore
 	} else if(hdr.isTargetElement(node)){ // ignore
 	} else if(hdr.isGuardElement(node)){
-	  el = fdw.addGuardToTransition(newTransition,
-					mapGuardText(DocumentReader.getCdataOfElement((Element)node)));
+	  fdw.addGuardToTransition(newTransition,
+				   mapGuardText(DocumentReader.getCdataOfElement((Element)node)));
 	} else if(hdr.isSynchronisationElement(node)){
-	  el = addRegisteredSynchronisationToTransition(mapSynchronisationText(DocumentReader.getCdataOfElement((Element)node)),
-							newTransition,
-							tinst);
+	  addRegisteredSynchronisationToTransition(mapSynchronisationText(DocumentReader.getCdataOfElement((Element)node)),
+						   newTransition,
+						   tinst);
 	  
 	} else if(hdr.isAssignmentElement(node)){
-	  el = fdw.addAssignmentToTransition(newTransition,
-					     mapAssignmentText(DocumentReader.getCdataOfElement((Element)node)));
+	  fdw.addAssignmentToTransition(newTransition,
+					mapAssignmentText(DocumentReader.getCdataOfElement((Element)node)));
 	} else if(hdr.isNailElement(node)){
-	  newTransition.appendChild(mapNail((Element)node));
+	  if(!headless)
+	    newTransition.appendChild(mapNail((Element)node));
 	} else {
 	  throw new Exception("ERROR: transition child " +
 			      node.toString() +
@@ -1704,7 +1883,7 @@ Default Constructor: missing (only static)
    * </UL>
    * Used in translation of locations &ampl; components.<BR><BR>
    */
-  private static String mapName(String name){
+  private String mapName(String name){
     return fdw.makeNameSafe("X-flat." + name);
   }
   /**
@@ -1754,7 +1933,7 @@ Default Constructor: missing (only static)
    * location.<BR>
    * Used in translation of locations &ampl; components.<BR><BR>
    */
-  public static Element mapNail(Element nail)
+  public Element mapNail(Element nail)
     throws Exception {
     Element res = flatDoc.createElement("nail");
     res.setAttribute("x", nail.getAttribute("x"));
@@ -1776,7 +1955,7 @@ Default Constructor: missing (only static)
    *      <B>CHECK THAT THIS IS USED CONSISTENTLY WITH INSTANTIATIONS OF
    *      ENTRIES/EXITS</B>
    */
-  public static String mapSourceToID(String instantiationName,
+  public String mapSourceToID(String instantiationName,
 				     Element source)
     throws Exception {
 
@@ -1798,7 +1977,7 @@ Default Constructor: missing (only static)
    *      <B>CHECK THAT THIS IS USED CONSISTENTLY WITH INSTANTIATIONS OF
    *      ENTRIES/EXITS</B>
    */
-  public static String mapTargetToID(String instantiationName,
+  public String mapTargetToID(String instantiationName,
 				     Element target)
     throws Exception {
     
@@ -1819,7 +1998,7 @@ Default Constructor: missing (only static)
    * Compute the ID of the translation of an <EM>entry</EM>.<BR>
    * A transition in the flat version goes to this ID.
    */
-  public static String mapEntryToID(Element entry)
+  public String mapEntryToID(Element entry)
     throws Exception {
     return "X-enter" + mapElementToID(entry);
   }
@@ -1828,11 +2007,11 @@ Default Constructor: missing (only static)
    * Compute the ID of the translation of an <EM>exit</EM>.<BR>
    * A transition in the flat version goes to this ID.
    */
-  public static String mapExitToID(Element exit)
+  public String mapExitToID(Element exit)
     throws Exception {
     return "X-leave" + mapElementToID(exit);
   }
-  public static String mapComponentToActiveID(Element compt)
+  public String mapComponentToActiveID(Element compt)
     throws Exception {
     return "X-active" + mapElementToID(compt);
   }
@@ -1841,7 +2020,7 @@ Default Constructor: missing (only static)
    * Get/invent the ID an component maps to<BR><BR>
    * <B>USES <TT>{@link #elementCount}</TT></B>
    */
-  private static String mapElementToID(Element el)
+  private String mapElementToID(Element el)
     throws Exception {
     
     if(hashElementsToIDs.containsKey(el)){
@@ -1859,7 +2038,7 @@ Default Constructor: missing (only static)
    * If the component in question is not a enty/exit, an exception 
    * is thrown.
    */
-  private static String getSignal(String instantiationName,
+  private String getSignal(String instantiationName,
 				  Element entryOrExit)
     throws Exception {
     
@@ -1890,7 +2069,7 @@ Default Constructor: missing (only static)
    *  <LI>synchronisation</LI>
    * </UL>
    */
-  private static Element transformLocationToFlat(TextualInstantiation tinst,
+  private Element transformLocationToFlat(TextualInstantiation tinst,
 						 Element loc)
     throws Exception {
     Element res = lm.migrateOrdinaryLocation(loc, tinst);
@@ -1943,7 +2122,7 @@ Default Constructor: missing (only static)
    *      Returns <TT>null</TT>, if the node is not an Element.<BR>
    *      Throws exception if the way to deal with it is unknown.
    */
-  private static Element transformSimpleNode(Node node)
+  private Element transformSimpleNode(Node node)
     throws Exception{
     
     if(node instanceof Element){
@@ -1954,8 +2133,10 @@ Default Constructor: missing (only static)
       if(hdr.isInvariantElement(node)){
 	 res = fdw.createInvariant();
 	 fdw.addTextualContentToElement(res, mapInvariantText(DocumentReader.getCdataOfElement(el)));
-	 res.setAttribute("x", el.getAttribute("x"));
-	 res.setAttribute("y", el.getAttribute("y"));
+	 if(!headless){
+	   res.setAttribute("x", el.getAttribute("x"));
+	   res.setAttribute("y", el.getAttribute("y"));
+	 }
 	 return res;
        }
        if(tagName.equals("urgent")){
@@ -1991,52 +2172,44 @@ Default Constructor: missing (only static)
    * Add synchronization and provide registration in {@see 
    * ChannelRegistry}<BR>
    * <BR>
-   * Returns the synchronisation Element<BR>
-   * <BR>
    *    (only necessary for original (hierarchical) synchronizations)
    */
-  private static Element addRegisteredSynchronisationToTransition(
+  private void addRegisteredSynchronisationToTransition(
                 String syncText,
 		Element transition,
 		TextualInstantiation tinst)
     throws Exception {
-    Element result = fdw.addSynchronisationToTransition(syncText, transition);
+    fdw.addSynchronisationToTransition(syncText, transition);
     cr.registerSync(syncText, transition, tinst);
-
-    return result;
   }
   /**
    * Add SEND synchronization and provide registration in {@see 
    * ChannelRegistry}<BR>
    * <BR>
-   * Returns the synchronisation Element<BR>
-   * <BR>
    *    (only necessary for original (hierarchical) synchronizations)<BR>
    * <BR>
    * ??? necessary ???
    */
-  private static Element addRegisteredSendSynchronisationToTransition(String syncText,
+  private void addRegisteredSendSynchronisationToTransition(String syncText,
 							       Element transition,
 							       TextualInstantiation tinst)
     throws Exception {
-    return addRegisteredSynchronisationToTransition(syncText + "!", transition, tinst);
+    addRegisteredSynchronisationToTransition(syncText + "!", transition, tinst);
   }
   /**
    * Add RECEIVE synchronization and provide registration in {@see 
    * ChannelRegistry}<BR>
    * <BR>
-   * Returns the synchronisation Element<BR>
-   * <BR>
    *    (only necessary for original (hierarchical) synchronizations)
    * <BR>
    * 
    * ??? necessary ???
    */
-  private static Element addRegisteredReceiveSynchronisationToTransition(String syncText,
+  private void addRegisteredReceiveSynchronisationToTransition(String syncText,
 							       Element transition,
 							       TextualInstantiation tinst)
     throws Exception {
-    return addRegisteredSynchronisationToTransition(syncText + "?", transition, tinst);
+    addRegisteredSynchronisationToTransition(syncText + "?", transition, tinst);
   }
   
 
@@ -2055,7 +2228,7 @@ Default Constructor: missing (only static)
    * It is unique, since this version introduces new templates for 
    * everything.
    */
-  private static String getActiveSubcomponentID(TextualInstantiation cpt)
+  private String getActiveSubcomponentID(TextualInstantiation cpt)
     throws Exception {
     
     return DocumentReader.getElementID(lm.mapTextualInstantiationToActiveLocation(cpt));
@@ -2073,7 +2246,7 @@ Default Constructor: missing (only static)
     * <TT>{@link #hashTemplateNamesToElements}</TT><BR><BR>
     * Throws exception, if two templates have the same name
     */
-   public static void memorizeTemplate(Element template)
+   public void memorizeTemplate(Element template)
      throws Exception {
      String name = DocumentReader.getElementName(template);
      if( hashTemplateNamesToElements.containsKey(name) )
@@ -2089,7 +2262,7 @@ Default Constructor: missing (only static)
     * Necessary for computing the target/source-ID of non-elementary 
     * transitions
     */
-    public static void memorizeInstantionAndComponentIDToTextualInstantiation(String instantiationName, String componentID, TextualInstantiation tinst){
+    public void memorizeInstantionAndComponentIDToTextualInstantiation(String instantiationName, String componentID, TextualInstantiation tinst){
 
 	hashInstComponentToTInst.put(instantiationName + ".$$." + componentID,
 				     tinst);
@@ -2100,7 +2273,7 @@ Default Constructor: missing (only static)
      * #memorizeInstantionAndComponentIDToTextualInstantiation}</TT>.<BR>
      * Maps back to the TextualInstantiation
      */
-    public static TextualInstantiation recallInstantionAndComponentIDToTextualInstantiation(String instantiationName, String componentID){
+    public TextualInstantiation recallInstantionAndComponentIDToTextualInstantiation(String instantiationName, String componentID){
 	return (TextualInstantiation)hashInstComponentToTInst.get(instantiationName + ".$$." + componentID);
     }
 
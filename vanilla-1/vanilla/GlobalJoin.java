@@ -71,45 +71,32 @@ public class GlobalJoin
    implements Cloneable {
     
   // ////////////////////////////////////////
-  // ////////  STATIC FIELDS  ///////////////
+  // ////////  SHARED FIELDS  ///////////////
   // ////////////////////////////////////////
 
   /**
-   * The hierarchical document reader
-   */
-  private static HierarchicalDocumentReader hdr;
-
-  /**
-   * ComponentMapper to help access.<BR>
-   * The entries in it are created by Flatten.
-   */
-  private static ComponentMapper cm;
-  
-  /**
-   * The (global) tree of instantiation, these joins are relative to.<BR>
-   * This is not patrticular to one global join.<BR>
+   * The registry (of the flattening session) this join belongs to.<BR>
+   * It provides the (global) Vector all joins are collected in.<BR>
    * 
    * Not copied, when cloned.
    */
-  public static InstantiationTree iTree;
+  private GlobalJoinRegistry registry;
 
+  /**
+   * The hierarchical document reader (the one of the {@link #registry})
+   */
+  private HierarchicalDocumentReader hdr;
 
   /**
-   * The (global) Vector, all joins are collected in<BR><BR>
-   * This is where the additional join is planted to, if the <TT>{@link 
-   * #clone}</TT> method is called.
+   * ComponentMapper to help access (the one of the {@link #registry}).<BR>
+   * The entries in it are created by Flatten.
    */
-  public static Vector allGlobalJoins;
+  private ComponentMapper cm;
 
   // =================================
   // [0.0.1] Auxillary
   // =================================
 
-  /**
-   * To make trigger Variables unique
-   */
-  public static int triggerVariableCounter = 0;
-  
   /**
    * Setting this <IT>true</IT>, slows down but is good for debugging.
    */
@@ -127,9 +114,10 @@ public class GlobalJoin
   /**
    * Contains all the unfinished <B>intermediates nodes</B>, i.e. 
    * {@link TinstElementPair}s.<BR>
-   * They are worked off in the while loop {@link #finishGrowth}.
+   * They are worked off in the while loop {@link #finishGrowth}.<BR>
+   * Shared with clones (see {@link PersistentStack}).
    */
-  public Stack growObligations;
+  private PersistentStack growObligations;
   
   /**
    * Name of the counter associated with the global join.<BR>
@@ -155,11 +143,18 @@ public class GlobalJoin
    * a component B is always <EM>higher</EM> in the stack than B.
    */
   public Stack tinstsToExit;
+
+  /**
+   * {@link #tinstsToExit}, while growing
+   */
+  private PersistentStack exits;
   
   /**
    * A list of transitions, that is taken, after the join has been 
    * transformed.<BR>
    * (i.e. the starting point of these transitions is the root of the join)
+   * <BR>
+   * Only extended before the growth starts; clones share it.
    */
   public Vector rootTransitions;
 
@@ -174,6 +169,11 @@ public class GlobalJoin
    * renaiming), including the one of the root-transition (if present). 
    */
   public Vector allGuards;
+
+  /**
+   * {@link #allGuards}, while growing
+   */
+  private PersistentStack guards;
   
   /**
    * Vector containing all assignments as textual String (with the proper 
@@ -181,6 +181,11 @@ public class GlobalJoin
    */
   public Vector allAssignments;
 
+  /**
+   * {@link #allAssignments}, while growing
+   */
+  private PersistentStack assignments;
+
   /**
    * The (growing) collection of all the (hierarchical) basic 
    * locations, from where the join might start.<BR>
@@ -189,6 +194,16 @@ public class GlobalJoin
    */
   public Vector allHierarchicalStartLocations;
 
+  /**
+   * {@link #allHierarchicalStartLocations}, while growing
+   */
+  private PersistentStack startLocations;
+
+  /**
+   * Set, when the join was split up and is not grown any further
+   */
+  private boolean stopped;
+
   /**
    * The (global) Vector, all joins are collected in<BR><BR>
    * This is where the additional join is planted to, if the <TT>{@link 
@@ -214,26 +229,29 @@ public class GlobalJoin
   // ////////////////////////////////////////
   
   /**
-   * Internal constructor, used for cloning (and of course not setting the
-   * static fields again).<BR><BR>
-   * Needed also, when <TT>{@link #getGlobalJoin}</TT> did not yield an 
-   * existing join.
+   * Internal constructor, used for cloning.<BR><BR>
+   * Needed also, when <TT>{@link GlobalJoinRegistry#getGlobalJoin}</TT> 
+   * did not yield an existing join.
    * <BR>
    * 
    * Does <B>NOT</B> insert the new join in <TT>{@link 
-   * #allGlobalJoins}</TT>.
+   * GlobalJoinRegistry#allGlobalJoins}</TT>.
    */
-  private GlobalJoin(){
+  GlobalJoin(GlobalJoinRegistry theRegistry){
+    registry = theRegistry;
+    hdr = registry.hdr;
+    cm = registry.cm;
+
     // inner-eye-dots
     triggerVariable = inventNewTriggerVariable();
 
-    allGuards = new Vector();
-    allAssignments = new Vector();
-    allHierarchicalStartLocations = new Vector();
+    guards = PersistentStack.EMPTY;
+    assignments = PersistentStack.EMPTY;
+    startLocations = PersistentStack.EMPTY;
     rootTransitions = new Vector();
 
-    growObligations = new Stack();
-    tinstsToExit = new Stack();
+    growObligations = PersistentStack.EMPTY;
+    exits = PersistentStack.EMPTY;
   }
 
   // ////////////////////////////////////////
@@ -241,87 +259,6 @@ public class GlobalJoin
   // ////////////////////////////////////////
 
   
-  /**
-   * Constructor specifying the root transition (in the hierarchical 
-   * version)<BR>
-   * <BR>
-   * Throws Exception, if 
-   * HierarchicalDocumentReader.addGuardsAndAssignmentsOfConnectionInContext
-   * fails.<BR>
-   * <BR>
-   * If the second argument is Flatten.rootInstDummy, then this gobal join 
-   * is
-   *  global exit of a component.
-   */
-  public static GlobalJoin getGlobalJoin(Element theRootTransition,
-					 TextualInstantiation theTinst)
-    throws Exception {
-
-    if(null == hdr)
-      throw new Exception("ERROR: no static HierarchicalDocumentReader provided for GlobalJoin.");
-    if(null == cm)
-      throw new Exception("ERROR: no static ComponentMapper provided for GlobalJoin.");
-
-
-    if(debug)
-      System.out.println("===requested global join in " + theTinst.toString() + " via roo transition:\n" + theRootTransition.toString());
-    
-    GlobalJoin result = null;
-    for(Enumeration e= allGlobalJoins.elements(); (null == result) && e.hasMoreElements(); ){
-      result = (GlobalJoin)e.nextElement();
-      if( ( theTinst != result.rootTinst ) ||
-	  ( hdr.getElementByID((hdr.getTheChildWithLabel(theRootTransition, "source")).getAttribute("ref")) != result.getTopmostComponent() ) ||
-	  ( hdr.getElementByID((hdr.getTheChildWithLabel(theRootTransition, "source")).getAttribute("exitref")) != result.getTopmostExit()) )
-	result = null;
-    }
-
-
-    if(result == null){ // -- create new global join -----------------------
-      result = new GlobalJoin();
-      result.rootTinst = theTinst;
-
-      result.threshold = 1;
-
-      TextualInstantiation tinstOfComponent = cm.retrieveTextualInstantiation(hdr.getElementByID((hdr.getTheChildWithLabel(theRootTransition, "source")).getAttribute("ref")) , theTinst);
-
-      result.growObligations.push(new TinstElementPair(tinstOfComponent,
-						       hdr.getElementByID((hdr.getTheChildWithLabel(theRootTransition, "source")).getAttribute("exitref"))));
-      result.tinstsToExit.push(tinstOfComponent);
-
-      allGlobalJoins.addElement(result);
-      
-      if(debug)
-	System.out.println("---------- GLOBAL JOINS: created!  [" + allGlobalJoins.size() + "]");
-    }
-    else {
-      if(debug){
-	System.out.println("---------- GLOBAL JOINS: extended!  [" + allGlobalJoins.size() + "] : " + result.rootTransitions.size());
-	System.out.println(result.toString());
-      }
-    }
-
-    result.rootTransitions.addElement(theRootTransition);
-
-    //    hdr.addGuardsAndAssignmentsOfConnectionInContext(rootTransition,
-    //						     allGuards,
-    //						     allAssignments,
-    //						     rootTinst);
-
-    // inner-eye-dots
-    //triggerVariable = inventNewTriggerVariable();
-
-    return result;
-  }
-
-
-  /**
-   * Required static setups
-   */
-  public static void init(ComponentMapper theCm, HierarchicalDocumentReader theHdr){
-    cm = theCm;
-    hdr = theHdr;
-  }
-  
   //
 // NOT SURE WHERE/WHETHER WE NEED THIS
 //    /**
@@ -363,7 +300,8 @@ public class GlobalJoin
    * #triggerVariable}</TT></LI>
    *  <LI>if at some point in the growing, the join has several options to
    *  continue, it splits itself according to these options, adds all of 
-   * the new ones to the Vector <TT>{@link #allGlobalJoins}</TT> and calls 
+   * the new ones to the Vector <TT>{@link 
+   * GlobalJoinRegistry#allGlobalJoins}</TT> and calls 
    * grow() on them</LI>
    * </UL>
    *    <H4>Default-Exits</H4>
@@ -388,227 +326,141 @@ public class GlobalJoin
 			  exitOrExitpoint.toString() +
 			  "  is neither <exit> nor <exitpoint>.");
     
-    growObligations.push(new TinstElementPair(tinst, exitOrExitpoint));
+    growObligations = growObligations.push(new TinstElementPair(tinst, exitOrExitpoint));
+
+    if(!exits.contains(tinst))
+      exits = exits.push(tinst);
+
+  }
 
-    if(!tinstsToExit.contains(tinst))
-      tinstsToExit.push(tinst);
+  /**
+   * The join has to grow further beyond <TT>exitOrExitpoint</TT>, which
+   * exits <TT>tinst</TT>
+   */
+  void addGrowObligation(TextualInstantiation tinst,
+			 Element exitOrExitpoint){
+    growObligations = growObligations.push(new TinstElementPair(tinst, exitOrExitpoint));
+    exits = exits.push(tinst);
+  }
 
+  /**
+   * Are there grow obligations left?
+   */
+  boolean isGrowing(){
+    return !growObligations.empty();
   }
 
   /**
-   * Grow loop
+   * Was the join split up (and is to be dropped)?
    */
-  private void finishGrowth()
+  boolean isStopped(){
+    return stopped;
+  }
+
+  /**
+   * Grow loop<BR>
+   * <BR>
+   * What lies behind an exit is looked up in the 
+   * {@link GlobalJoinRegistry#getExpansion registry} (computed once per 
+   * exit and textual instantiation) and replayed here:
+   * <UL>
+   *  <LI>default exit: collect guards/assignments, split off one join per 
+   *      exit of every component, start at all basic locations (stop, if 
+   *      there are none)</LI>
+   *  <LI>exit of an AND component: one new join per join in front of it 
+   *      (grown right away); stop this one</LI>
+   *  <LI>exit of an XOR component: collect guards/assignments and basic 
+   *      locations, split off one join per component exit (then stop this 
+   *      one)</LI>
+   * </UL>
+   */
+  void finishGrowth()
     throws Exception {
     
     if(debug)
       System.out.println("===]] FINNISHING GROWTH OF:\n" + this.toString() );
 
     while( !growObligations.empty() ){
-      TinstElementPair tip = (TinstElementPair)growObligations.pop();
-      TextualInstantiation tinst = tip.tinst;
-      Element exitOrExitpoint = tip.element;
-      
+      TinstElementPair tip = (TinstElementPair)growObligations.peek();
+      growObligations = growObligations.pop();
 
       if(debug)
 	System.out.println("==] INSPECING EXIT: \n" +
-			   exitOrExitpoint.toString());
+			   tip.element.toString());
 
-      // -- CASE 1: Default Exit -------------------------------------------
+      JoinExpansion expansion = registry.getExpansion(tip.tinst, tip.element);
 
-      if(hdr.isDefaultExitOrExitpoint(exitOrExitpoint)){
-	if(tinst.isANDComponent)
-	  throw new Exception("ERROR: default-exits not allowed in AND components:\n\t" +
-			       tinst.toString());
-
-	Element template = tinst.templateElement;
-	System.out.println(template.toString());
-	// -- conjunct guards/assignments if any ----------------
-	Element theExit = exitOrExitpoint;
-	if((exitOrExitpoint.getTagName()).equals("exitpoint"))
-	  theExit = (Element)exitOrExitpoint.getParentNode();
-	NodeList allConnections = hdr.getAllChildrenWithLabel(theExit, "connection");
-	for(int i=0; i < allConnections.getLength(); i++){
-	  Element connection = (Element)allConnections.item(i);
-	  hdr.addGuardsAndAssignmentsOfConnectionInContext(connection, allGuards, allAssignments, tinst);
+      // -- CASE 1: Default Exit -------------------------------------------
+      if(expansion.kind == JoinExpansion.DEFAULT_EXIT){
+	guards = guards.pushAll(expansion.guards);
+	assignments = assignments.pushAll(expansion.assignments);
+	for(Enumeration e = expansion.branches.elements(); e.hasMoreElements(); ){
+	  TinstElementPair branch = (TinstElementPair)e.nextElement();
+	  GlobalJoin further = (GlobalJoin)this.clone();
+	  further.addGrowObligation(branch.tinst, branch.element);
 	}
-	if(allConnections.getLength() > 1)
-	  throw new Exception("ERROR: not sure whether 2 connection to one default exit make much sense!");
-	// -- new joins for EACH component ----------------------
-	NodeList allComponents = hdr.getAllChildrenWithLabel(template,
-							     "component");
-	if(allComponents.getLength() > 0){// -- split global Join 
-	  
-	  for(int i=0; i < allComponents.getLength(); i++){
-	    Element component = (Element)allComponents.item(i);
-	    TextualInstantiation tinstOfSubComponent = 
-	      cm.retrieveTextualInstantiation(component, tinst);
-	    for(Enumeration e = hdr.getAllExitsOfComponent(component).elements();
-		e.hasMoreElements(); ){
-	      
-	      GlobalJoin further = (GlobalJoin)this.clone();
-	      Element subExit = (Element)e.nextElement();
-	      further.growObligations.push(new TinstElementPair(tinstOfSubComponent, subExit));
-	      further.tinstsToExit.push(tinstOfSubComponent);
-	    } // -- went through all exits ------------
-	  }} // -- went through all components ---------
-	// -- are there basic locations connected ? -----------
-	NodeList allLocations = hdr.getAllChildrenWithLabel(template,
-							    "location");
-	if(allLocations.getLength() > 0){
-	  for(int i=0; i < allLocations.getLength(); i++){
-	    allHierarchicalStartLocations.addElement(new 
-	      TinstElementPair(tinst, (Element)allLocations.item(i)));
-	  }
-	} 
+	if(expansion.startLocations.size() > 0)
+	  startLocations = startLocations.pushAll(expansion.startLocations);
 	else
 	  stopGrowingThisOne();
-      }// ------------------------------------------------------------------
+      }
+      // -- CASE 2: Non default, AND ---------------------------------------
+      else if(expansion.kind == JoinExpansion.AND_EXIT){
+	for(Enumeration e = expansion.branches.elements(); e.hasMoreElements(); ){
+	  JoinExpansion branch = (JoinExpansion)e.nextElement();
+	  GlobalJoin further = (GlobalJoin)this.clone();
+	  further.guards = further.guards.pushAll(branch.guards);
+	  further.assignments = further.assignments.pushAll(branch.assignments);
+	  for(Enumeration f = branch.branches.elements(); f.hasMoreElements(); ){
+	    TinstElementPair back = (TinstElementPair)f.nextElement();
+	    further.addGrowObligation(back.tinst, back.element);
+	  }
+	  further.threshold = threshold + branch.branches.size() - 1;
+	  further.finishGrowth();
+	}
+	// -- stop growing this one ---------------------
+	this.stopGrowingThisOne();
+	// ----------------------------------------------
+      }
+      // -- CASE 3: non-default, XOR ---------------------------------------
       else {
-	
-	Vector connectionsToIt = hdr.getConnectionsToExitOrExitpoint(exitOrExitpoint);
-	
-	if( sanityChecks &&
-	    ( connectionsToIt.size() == 0) )
-	  throw new Exception("ERROR: the exit " +
-			      exitOrExitpoint.toString() +
-			      "\n does not have ingoing edges!");      
-      
-      
-	// -- CASE 2: Non default, AND -------------------------------------
-	if(tinst.isANDComponent){ // -- AND: all are joins ---------------------
-	  
-	  if(debug)
-	    System.out.println("==] Checking AND component (all are joins)");
-	  
-	  for(Enumeration e = connectionsToIt.elements(); e.hasMoreElements(); ){
-	    Element connection = (Element)e.nextElement();
+	guards = guards.pushAll(expansion.guards);
+	assignments = assignments.pushAll(expansion.assignments);
+	startLocations = startLocations.pushAll(expansion.startLocations);
+	if(expansion.branches.size() > 0){
+	  // -- split global join on components -----------------
+	  // NB: There might be one clone, that is unneccessary (for we could
+	  // continue to grow this very object, but what the heck...
+	  for(int i = 0; i < expansion.branches.size(); i++){
+	    TinstElementPair branch = (TinstElementPair)expansion.branches.elementAt(i);
 	    GlobalJoin further = (GlobalJoin)this.clone();
-	    hdr.addGuardsAndAssignmentsOfConnectionInContext(
-							     connection,
-							     further.allGuards,
-							     further.allAssignments,
-							     tinst);
-	    Element source = hdr.getTheChildWithLabel(connection, "source");
-	    Element sourceElement = hdr.getElementByID(source.getAttribute("ref"));
-	    
-	    if(debug)
-	      System.out.println("==] reached Join: \n" +
-				 sourceElement.toString());
-	    
-	    if(sanityChecks &&
-	       (!(sourceElement.getTagName()).equals("join")))
-	      throw new Exception("ERROR: expected a <join>, found instead:\n" +
-				  sourceElement.toString());
-	    NodeList backConnections = hdr.getAllChildrenWithLabel(sourceElement,
-								   "connection");
-	    for(int i=0; i < backConnections.getLength(); i++){
-	      Element oneFurtherBack = (Element)backConnections.item(i);
-	      hdr.addGuardsAndAssignmentsOfConnectionInContext(
-	        oneFurtherBack, 
-		further.allGuards,
-		further.allAssignments, 
-		tinst);
-	      Element backSource = hdr.getTheChildWithLabel(oneFurtherBack, "source");
-	      Element backComponent = hdr.getElementByID(backSource.getAttribute("ref"));
-	      Element backExit = hdr.getElementByID(backSource.getAttribute("exitref"));
-	      TextualInstantiation subTinst = cm.retrieveTextualInstantiation(backComponent, tinst); 
-	      further.growObligations.push(new TinstElementPair(subTinst, backExit));
-	      further.tinstsToExit.push(subTinst);
-	    }
-	    further.threshold = 
-	      threshold + (backConnections.getLength()) - 1;
-	    further.finishGrowth();
-	  }
-	  // -- stop growing this one ---------------------
-	  this.stopGrowingThisOne();
-	  // ----------------------------------------------
-	  
-	} // -- CASE 3: non-default, XOR -----------------------------------
-	else { // -- XOR: locations and subcomponents-----------------------
-	
-	  if(debug)
-	    System.out.println("==] Checking XOR component (basic locations & deeper)");
-	  
-	  Stack componentPairs = new Stack();
-
-	  for(Enumeration e = connectionsToIt.elements(); e.hasMoreElements(); ){
-	    
-	    Element connection = (Element)e.nextElement();
-	    hdr.addGuardsAndAssignmentsOfConnectionInContext(
-              connection,
-	      allGuards,
-	      allAssignments,
-	      tinst);
-	    Element source = hdr.getTheChildWithLabel(connection, "source");
-	    Element sourceElement = hdr.getElementByID(source.getAttribute("ref"));
-	    
-	    if((sourceElement.getTagName()).equals("location")){
-	      TinstElementPair theStart = new TinstElementPair(tinst, sourceElement);
-	      allHierarchicalStartLocations.addElement(theStart);
-	    } 
-	    else if((sourceElement.getTagName()).equals("component")){
-	      Element subExit = hdr.getElementByID(source.getAttribute("exitref"));
-	      componentPairs.push(new ElementElementPair(sourceElement,
-							 subExit));
-	    }
-	    else
-	      throw new Exception("ERROR: Found unexpected source of exit in XOR component: \n" +
-				  sourceElement.toString());
-	    
+	    further.addGrowObligation(branch.tinst, branch.element);
+	    further.startLocations = further.startLocations.push(expansion.branchStarts.elementAt(i));
 	  }
-	  if(!componentPairs.empty()){
-	    // -- split global join on components -----------------
-	    // NB: There might be one clone, that is unneccessary (for we could
-	    // continue to grow this very object, but what the heck...
-	    while(!componentPairs.empty()){
-	      ElementElementPair pair = (ElementElementPair)componentPairs.pop();
-	      Element component = pair.first;
-	      Element subExit   = pair.second;
-	      GlobalJoin further = (GlobalJoin)this.clone();
-
-	      TextualInstantiation tinstOfSubComponent = 
-		cm.retrieveTextualInstantiation(component, tinst);
-	      further.growObligations.push(new TinstElementPair(tinstOfSubComponent, subExit));
-	      further.tinstsToExit.push(tinstOfSubComponent);
-	      further.allHierarchicalStartLocations.addElement(pair);
-	    }
-	    stopGrowingThisOne();
-	  }
-	  // -- done with XOR ----------------------------------------------
+	  stopGrowingThisOne();
 	}
       }
     } // -- end of growth-obligations --------------------------------------
   }
   /**
-   * Remove from <TT>{link #allGlobalJoins}</TT> and terminate the growth
-   * obligations.
+   * Mark as stopped (it is dropped from <TT>{link 
+   * GlobalJoinRegistry#allGlobalJoins}</TT>, when all joins are grown) and
+   * terminate the growth obligations.
    */
   private void stopGrowingThisOne(){
-    allGlobalJoins.removeElement(this);
-    growObligations = new Stack();
+    stopped = true;
+    growObligations = PersistentStack.EMPTY;
   }
 
   /**
-   * Finish growing <EM>all</EM> global joins.<BR>
-   * <BR>
-   * That typicaly increases their number.
+   * Growth is finished: store the collected guards, assignments, start 
+   * locations and instantiations to exit in the public fields.
    */
-  public static void growAll()
-    throws Exception {
-    if(false)
-      throw new Exception("STOP");
-    boolean changes = true;
-    while(changes){
-      changes = false;
-      for(Enumeration e = allGlobalJoins.elements(); e.hasMoreElements(); ){
-	GlobalJoin gj = (GlobalJoin)e.nextElement();
-	if(!gj.growObligations.empty()){
-	  changes = true;
-	  gj.finishGrowth();
-	}
-      }
-    }
+  void publishGrowth(){
+    allGuards = guards.toVector();
+    allAssignments = assignments.toVector();
+    allHierarchicalStartLocations = startLocations.toVector();
+    tinstsToExit = exits.toStack();
   }
 
   // =================================================================
@@ -616,83 +468,50 @@ public class GlobalJoin
   // =================================================================
 
   /**
-   * Returns a copy of this object, i.e.
-   * <H2>DEEP copies of fields</H2>
+   * Returns a copy of this object. The stacks
    * <UL>
    *  <LI><TT>growObligations</TT></LI>
    *  <LI><TT>tinstsToExit</TT></LI>
-   *  <LI><TT>threshold</TT></LI>
    *  <LI><TT>allGuards</TT></LI>
    *  <LI><TT>allAssignments</TT></LI>
-   *  <LI><TT>rootTransitions</TT></LI>
+   *  <LI><TT>allHierarchialStartLocations</TT></LI>
    * </UL>
-   * <H2>SHALLOW copies of fields</H2>
+   * are {@link PersistentStack}s: the copy shares them with the 
+   * original, but changes to one do not affect the other. Also shared:
    * <UL>
    *  <LI><TT>rootTinst</TT></LI>
-   *  <LI><TT>allHierarchialStartLocations [Vector is cloned, but not the contained elements]</TT></LI>
+   *  <LI><TT>rootTransitions</TT> [not changed any more while growing]</LI>
    </UL>
    * <H2>Uncopied (inner-eye-dots of clones)</H2>
    * <UL>
    <LI>triggerVariable [new invented for each gj]</LI>
    * </UL>
-   * <TT>Static</TT> fields are of course not cloned.<BR><BR>
-   * The clone is <B>automatically</B> inserted in the Vector <TT>{@link 
-   * #allGlobalJoins}</TT>.
+   * The {@link #registry} is of course not cloned.<BR><BR>
+   * The clone is <B>automatically</B> 
+   * {@link GlobalJoinRegistry#addGlobalJoin added} to the registry.
    */
   public Object clone()
     throws CloneNotSupportedException {
-    GlobalJoin res = new GlobalJoin();
-    // ???? res.allCoveredJoins = allCoveredJoins;
-
-    // deep cloning:
+    GlobalJoin res = new GlobalJoin(registry);
 
-    res.growObligations = cloneStackOfPointers(growObligations);
+    res.growObligations = growObligations;
     res.threshold = threshold;
-    res.tinstsToExit = cloneStackOfPointers(tinstsToExit);
-    res.allGuards = cloneVectorOfStrings(allGuards);
-    res.allAssignments = cloneVectorOfStrings(allAssignments);
-    res.rootTransitions = cloneVectorOfPointers(rootTransitions);
-    
-
-    // shallow cloning:
-    
+    res.exits = exits;
+    res.guards = guards;
+    res.assignments = assignments;
+    res.rootTransitions = rootTransitions;
     res.rootTinst = rootTinst;
-    res.allHierarchicalStartLocations = cloneVectorOfPointers(allHierarchicalStartLocations);
-
+    res.startLocations = startLocations;
 
     // ---------------------------------------------------------------------
     if(debug)
-      System.out.print("&&&& ADDING global join  - WAS: " + allGlobalJoins.size());
-    allGlobalJoins.addElement(res);
+      System.out.print("&&&& ADDING global join  - WAS: " + registry.allGlobalJoins.size());
+    registry.addGlobalJoin(res);
     if(debug)
-      System.out.println(" - IS: " + allGlobalJoins.size());
+      System.out.println(" - IS: " + registry.allGlobalJoins.size());
     return res;
   }
   
-  /**
-   * Returns a new <TT>Vector</TT> containing all the strings of the old 
-   * one (intentionally, but not necessarily in the same order). <BR>
-   * <BR>
-   * Throws an CloneNotSupportedException, if one of the contents is not a 
-   * String.
-   */
-  private Vector cloneVectorOfStrings(Vector original)
-    throws CloneNotSupportedException {
-
-      Vector result = new Vector();
-      
-      try {
-	  for(Enumeration e = original.elements(); e.hasMoreElements(); ){
-	      String nextString = (String)e.nextElement();
-	      result.addElement(nextString);
-	  }
-      } catch (Exception e) {
-	  e.printStackTrace();
-	  throw new CloneNotSupportedException("ERROR: cloneVectorOfStrings failed");
-      }
-      return result;
-  }
-  
   /**
    * Clones a stack of pointers, preserving the order.<BR>
    * <BR>
@@ -707,30 +526,11 @@ public class GlobalJoin
     return result;
   }
 
-  /**
-   * Returns a new <TT>Vector</TT> containing all (pointers to) 
-   *    <EM>objects</EM> of the
-   * <TT>Vector</TT> in the same order. <BR>
-   * The 'contents' themself are not cloned.
-   * <BR>
-   */
-  private static Vector cloneVectorOfPointers(Vector original){
-
-      Vector result = new Vector();
-      
-      for(int i=0; i < original.size(); i++){
-	result.addElement(original.elementAt(i));
-      }
-      return result;
-  }
-  
-
   /**
    * Make a new Variable name
    */
-  private static String inventNewTriggerVariable(){
-    triggerVariableCounter++;
-    return FlatDocumentWriter.makeNameSafe("triggerVar" + triggerVariableCounter);
+  private String inventNewTriggerVariable(){
+    return FlatDocumentWriter.makeNameSafe("triggerVar" + registry.names.next(NameAllocator.TRIGGER_VARIABLE));
   }
 
   // =================================================================
@@ -750,7 +550,7 @@ public class GlobalJoin
       return null;
     else {
       
-      Element source = hdr.getTheChildWithLabel((Element)rootTransitions.elementAt(0), "source");
+      Element source = hdr.theChildWithLabel((Element)rootTransitions.elementAt(0), "source");
       String componentID = source.getAttribute("ref");
       Element component = hdr.getElementByID(componentID);
       
@@ -772,7 +572,7 @@ public class GlobalJoin
       throw new Exception("ERROR: unexpected number of grow oblications (" + 
 			  growObligations.size() + " \nin\n" + this.toString());
     
-    return ((TinstElementPair)growObligations.elementAt(0)).element;
+    return ((TinstElementPair)growObligations.peek()).element;
   }
   
 
@@ -785,9 +585,9 @@ public class GlobalJoin
    */
   public String toString(){
     StringBuffer sb = new StringBuffer("====================== GLOBAL JOIN ( " +
-				       (allGlobalJoins.indexOf(this) + 1) 
+				       (registry.allGlobalJoins.indexOf(this) + 1) 
 				       + " / " +
-				       allGlobalJoins.size() + " ) ======================\n");
+				       registry.allGlobalJoins.size() + " ) ======================\n");
 
 
     if(null == rootTinst)
@@ -805,28 +605,28 @@ public class GlobalJoin
 	sb.append(((Element)e.nextElement()).toString() + "\n");
 	}      
     }
-    sb.append("TEXTUAL INSTANTIATIONS TO EXIT [" + tinstsToExit.size() + "] :\n");
+    Vector tinsts = exits.toVector();
+    sb.append("TEXTUAL INSTANTIATIONS TO EXIT [" + tinsts.size() + "] :\n");
 
-    for(int i=0; i < tinstsToExit.size(); i++){
-      sb.append("   " + (i+1) + ".  " + ((TextualInstantiation)tinstsToExit.elementAt(i)).toString() + "\n");
+    for(int i=0; i < tinsts.size(); i++){
+      sb.append("   " + (i+1) + ".  " + ((TextualInstantiation)tinsts.elementAt(i)).toString() + "\n");
     }
 
 
     
-    sb.append("GUARDS [" + allGuards.size() + "] : \n");
-    for(Enumeration e = allGuards.elements(); e.hasMoreElements(); ){
+    sb.append("GUARDS [" + guards.size() + "] : \n");
+    for(Enumeration e = guards.elements(); e.hasMoreElements(); ){
       sb.append((String)e.nextElement() + "\t");
     }
-    sb.append("\nASSIGNMENTS [" + allAssignments.size() + "] : \n");
-    for(Enumeration e = allAssignments.elements(); e.hasMoreElements(); ){
+    sb.append("\nASSIGNMENTS [" + assignments.size() + "] : \n");
+    for(Enumeration e = assignments.elements(); e.hasMoreElements(); ){
       sb.append((String)e.nextElement() + "\t");
     }
 
 
-    sb.append("\nHIERARCHICAL STARTING LOCATIONS [" + allHierarchicalStartLocations.size() + "] : \n");
-    for(Enumeration e = allHierarchicalStartLocations.elements(); e.hasMoreElements(); ){
-      TinstElementPair tep = (TinstElementPair)e.nextElement();
-      sb.append(tep.toString() + "\n");
+    sb.append("\nHIERARCHICAL STARTING LOCATIONS [" + startLocations.size() + "] : \n");
+    for(Enumeration e = startLocations.elements(); e.hasMoreElements(); ){
+      sb.append(e.nextElement().toString() + "\n");
     }
 
 
@@ -0,0 +1,99 @@
+// -*- mode: JDE; c-basic-offset: 2; -*-
+// /////////////////////////////////////////////////////////////
+// Everything needed to write the translation of one global join
+//
+// Synopsis:
+//  Huppaal
+// /////////////////////////////////////////////////////////////
+// @FILE:    GlobalJoinEdit.java
+// @FORMAT:  java
+// @AUTHOR:  agent     <agent@local>
+// @BEGUN:   Sat Oct 17 17:05:33 2026
+// @VERSION: Vanilla-1                  Sat Oct 17 17:05:33 2026
+// /////////////////////////////////////////////////////////////
+//
+
+import java.lang.*;
+
+import java.util.Vector;
+
+import org.w3c.dom.Element;
+
+//**** from other packages
+
+//****************************************
+
+/**
+ * Edit descriptor for one {@link GlobalJoin}: what was read from the
+ * hierarchical document (and the location mapping) for its translation,
+ * so that writing it to the flat document needs no further lookups.<BR>
+ * <BR>
+ * Created by <TT>Flatten.planGlobalJoin</TT> (which only reads, so several
+ * joins can be planned in parallel) and consumed by
+ * <TT>Flatten.applyGlobalJoinEdit</TT>, one join after the other, in the
+ * order of the joins. Not changed after construction.
+ *
+ * @see Flatten GlobalJoin JoinTransitionEdit
+ * @author <A HREF="MAILTO:agent@local?subject=GlobalJoinEdit.java%20(Vanilla-1%20Sat%20Oct%2017%2017:05:33%202026)">agent</A>
+ * @version Vanilla-1                  Sat Oct 17 17:05:33 2026
+ */
+public class GlobalJoinEdit  {
+
+  // //////////////////////////////////////////////////////////////////////
+  // ////////////////////////////// FIELDS ////////////////////////////////
+  // //////////////////////////////////////////////////////////////////////
+
+  /**
+   * The (grown) join
+   */
+  public final GlobalJoin gj;
+
+  /**
+   * The (hierarchical) component that is left
+   */
+  public final Element topComponent;
+
+  /**
+   * The bottommost textual instantiation to exit
+   */
+  public final TextualInstantiation topTinst;
+
+  /**
+   * The join is a global exit (translated in the kick-off template)
+   */
+  public final boolean globalExit;
+
+  /**
+   * The flat locations the join may start from (in the order of
+   * <TT>gj.allHierarchicalStartLocations</TT>); their counter has to be
+   * maintained on the transitions to and from them
+   */
+  public final Vector startLocations;
+
+  /**
+   * One {@link JoinTransitionEdit} per root transition, in order
+   */
+  public final Vector transitionEdits;
+
+  // //////////////////////////////////////////////////////////////////////
+  // //////////////////////////  CONSTRUCTORS  ////////////////////////////
+  // //////////////////////////////////////////////////////////////////////
+
+  /**
+   * Default Constructor
+   */
+  public GlobalJoinEdit(GlobalJoin theGj,
+			Element theTopComponent,
+			TextualInstantiation theTopTinst,
+			boolean isGlobalExit,
+			Vector theStartLocations,
+			Vector theTransitionEdits){
+    gj = theGj;
+    topComponent = theTopComponent;
+    topTinst = theTopTinst;
+    globalExit = isGlobalExit;
+    startLocations = theStartLocations;
+    transitionEdits = theTransitionEdits;
+  }
+
+}
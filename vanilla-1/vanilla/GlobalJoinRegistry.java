@@ -0,0 +1,259 @@
+// -*- mode: JDE; c-basic-offset: 2; -*-
+// /////////////////////////////////////////////////////////////
+// Collection of all global joins of one translation
+//
+// Synopsis:
+//  Huppaal
+// /////////////////////////////////////////////////////////////
+// @TABLE OF CONTENTS:
+//
+//  [1] Creating and retrieving global joins
+//  [2] Growing all global joins
+//  [3] Expansions of exits
+// ==========================================================
+// @FILE:    GlobalJoinRegistry.java
+// @FORMAT:  java
+// @AUTHOR:  agent     <agent@local>
+// @BEGUN:   Sat Oct 17 10:31:47 2026
+// @VERSION: Vanilla-1                  Sat Oct 17 10:31:47 2026
+// /////////////////////////////////////////////////////////////
+//
+
+import java.lang.*;
+import java.util.Vector;
+import java.util.Hashtable;
+import java.util.Enumeration;
+
+import org.w3c.dom.Element;
+
+//**** from other packages
+
+//****************************************
+
+/**
+ * Keeps the {@link GlobalJoin}s of <EM>one</EM> flattening session,
+ * together with the references they need to grow (formerly static fields
+ * of <TT>GlobalJoin</TT>).<BR>
+ * <BR>
+ * Created by {@link Flatten} once per translation.<BR>
+ * <BR>
+ * Growing is driven by a worklist of the joins that still have grow
+ * obligations; what lies behind an exit of a textual instantiation is
+ * worked out once ({@link JoinExpansion}) and reused by all joins that
+ * grow through it.
+ *
+ * @see GlobalJoin
+ * @author <A HREF="MAILTO:agent@local?subject=GlobalJoinRegistry.java%20(Vanilla-1%20Sat%20Oct%2017%2010:31:47%202026)">agent</A>
+ * @version Vanilla-1                  Sat Oct 17 10:31:47 2026
+ */
+public class GlobalJoinRegistry  {
+
+  // //////////////////////////////////////////////////////////////////////
+  // ////////////////////////////// FIELDS ////////////////////////////////
+  // //////////////////////////////////////////////////////////////////////
+
+  /**
+   * The hierarchical document reader
+   */
+  final HierarchicalDocumentReader hdr;
+
+  /**
+   * ComponentMapper to help access.<BR>
+   * The entries in it are created by Flatten.
+   */
+  final ComponentMapper cm;
+
+  /**
+   * Counters of the flattening session (for trigger variables)
+   */
+  final NameAllocator names;
+
+  /**
+   * Textual instantiation corresponding to the root.<BR>
+   * Joins rooted here are global exits of a component.
+   */
+  public final TextualInstantiation rootTinst;
+
+  /**
+   * The Vector, all joins are collected in<BR><BR>
+   * This is where the additional join is planted to, if the <TT>{@link
+   * GlobalJoin#clone}</TT> method is called.
+   */
+  public Vector allGlobalJoins;
+
+  /**
+   * Joins (in order of creation) that may still have grow obligations;
+   * worked off by {@link #growAll}
+   */
+  private Vector worklist;
+
+  /**
+   * Maps textual instantiations to Hashtables that map exits (and 
+   * exitpoints) to their {@link JoinExpansion}s
+   */
+  private Hashtable hashTinstsToExpansions;
+
+  /**
+   * For Spamming out information
+   */
+  public static boolean debug = true;
+
+  // //////////////////////////////////////////////////////////////////////
+  // //////////////////////////  CONSTRUCTORS  ////////////////////////////
+  // //////////////////////////////////////////////////////////////////////
+
+  /**
+   * Default Constructor: Needs references
+   */
+  public GlobalJoinRegistry(HierarchicalDocumentReader theHdr,
+			    ComponentMapper theCm,
+			    NameAllocator theNames,
+			    TextualInstantiation theRootTinst){
+    hdr = theHdr;
+    cm = theCm;
+    names = theNames;
+    rootTinst = theRootTinst;
+
+    allGlobalJoins = new Vector();
+    worklist = new Vector();
+    hashTinstsToExpansions = new Hashtable();
+  }
+
+  // //////////////////////////////////////////////////////////////////////
+  // ///////////////////////////// METHODS  ///////////////////////////////
+  // //////////////////////////////////////////////////////////////////////
+
+  // =================================================================
+  // [1] Creating and retrieving global joins
+  // =================================================================
+
+  /**
+   * Returns the global join specified by the root transition (in the
+   * hierarchical version); creates it, if not present yet.<BR>
+   * <BR>
+   * Throws Exception, if
+   * HierarchicalDocumentReader.addGuardsAndAssignmentsOfConnectionInContext
+   * fails.<BR>
+   * <BR>
+   * If the second argument is {@link #rootTinst}, then this gobal join
+   * is
+   *  global exit of a component.
+   */
+  public GlobalJoin getGlobalJoin(Element theRootTransition,
+				  TextualInstantiation theTinst)
+    throws Exception {
+
+    if(debug)
+      System.out.println("===requested global join in " + theTinst.toString() + " via roo transition:\n" + theRootTransition.toString());
+
+    GlobalJoin result = null;
+    for(Enumeration e= allGlobalJoins.elements(); (null == result) && e.hasMoreElements(); ){
+      result = (GlobalJoin)e.nextElement();
+      if( ( theTinst != result.rootTinst ) ||
+	  ( hdr.getElementByID((hdr.theChildWithLabel(theRootTransition, "source")).getAttribute("ref")) != result.getTopmostComponent() ) ||
+	  ( hdr.getElementByID((hdr.theChildWithLabel(theRootTransition, "source")).getAttribute("exitref")) != result.getTopmostExit()) )
+	result = null;
+    }
+
+
+    if(result == null){ // -- create new global join -----------------------
+      result = new GlobalJoin(this);
+      result.rootTinst = theTinst;
+
+      result.threshold = 1;
+
+      TextualInstantiation tinstOfComponent = cm.retrieveTextualInstantiation(hdr.getElementByID((hdr.theChildWithLabel(theRootTransition, "source")).getAttribute("ref")) , theTinst);
+
+      result.addGrowObligation(tinstOfComponent,
+			       hdr.getElementByID((hdr.theChildWithLabel(theRootTransition, "source")).getAttribute("exitref")));
+
+      addGlobalJoin(result);
+
+      if(debug)
+	System.out.println("---------- GLOBAL JOINS: created!  [" + allGlobalJoins.size() + "]");
+    }
+    else {
+      if(debug){
+	System.out.println("---------- GLOBAL JOINS: extended!  [" + allGlobalJoins.size() + "] : " + result.rootTransitions.size());
+	System.out.println(result.toString());
+      }
+    }
+
+    result.rootTransitions.addElement(theRootTransition);
+
+    return result;
+  }
+
+  // =================================================================
+  // [2] Growing all global joins
+  // =================================================================
+
+  /**
+   * Enter a new join (also used for clones)
+   */
+  void addGlobalJoin(GlobalJoin gj){
+    allGlobalJoins.addElement(gj);
+    worklist.addElement(gj);
+  }
+
+  /**
+   * Finish growing <EM>all</EM> global joins.<BR>
+   * <BR>
+   * That typicaly increases their number. Joins split off while growing
+   * are appended to the worklist; the ones that were split up are dropped
+   * at the end, in one go.
+   */
+  public void growAll()
+    throws Exception {
+    for(int next = 0; next < worklist.size(); next++){
+      GlobalJoin gj = (GlobalJoin)worklist.elementAt(next);
+      if(gj.isGrowing())
+	gj.finishGrowth();
+    }
+    worklist = new Vector();
+
+    Vector grown = new Vector(allGlobalJoins.size());
+    for(Enumeration e = allGlobalJoins.elements(); e.hasMoreElements(); ){
+      GlobalJoin gj = (GlobalJoin)e.nextElement();
+      if(!gj.isStopped()){
+	gj.publishGrowth();
+	grown.addElement(gj);
+      }
+    }
+    allGlobalJoins = grown;
+  }
+
+  /**
+   * Enumerates all (grown) global joins
+   */
+  public Enumeration elements(){
+    return allGlobalJoins.elements();
+  }
+
+  // =================================================================
+  // [3] Expansions of exits
+  // =================================================================
+
+  /**
+   * What lies behind <TT>exitOrExitpoint</TT> of <TT>tinst</TT>; 
+   * computed on first request.
+   */
+  JoinExpansion getExpansion(TextualInstantiation tinst,
+			     Element exitOrExitpoint)
+    throws Exception {
+
+    Hashtable hashExitsToExpansions = (Hashtable)hashTinstsToExpansions.get(tinst);
+    if(null == hashExitsToExpansions){
+      hashExitsToExpansions = new Hashtable();
+      hashTinstsToExpansions.put(tinst, hashExitsToExpansions);
+    }
+
+    JoinExpansion result = (JoinExpansion)hashExitsToExpansions.get(exitOrExitpoint);
+    if(null == result){
+      result = new JoinExpansion(this, tinst, exitOrExitpoint);
+      hashExitsToExpansions.put(exitOrExitpoint, result);
+    }
+    return result;
+  }
+
+}
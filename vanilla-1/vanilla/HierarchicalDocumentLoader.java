@@ -0,0 +1,282 @@
+// -*- mode: JDE; c-basic-offset: 2; -*-
+// /////////////////////////////////////////////////////////////
+// Streaming construction of hierarchical documents
+//
+// Synopsis:
+//  Huppaal
+// /////////////////////////////////////////////////////////////
+// @TABLE OF CONTENTS:
+//
+//  [1] Loading (STATIC)
+//  [2] SAX callbacks
+//  [3] AUX
+// ==========================================================
+// @FILE:    HierarchicalDocumentLoader.java
+// @FORMAT:  java
+// @AUTHOR:  agent     <agent@local>
+// @BEGUN:   Sat Oct 17 13:05:52 2026
+// @VERSION: Vanilla-1                  Sat Oct 17 13:05:52 2026
+// /////////////////////////////////////////////////////////////
+//
+
+import java.lang.*;
+import java.io.*;
+
+import java.util.Stack;
+import java.util.Hashtable;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.SAXParser;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.EntityResolver;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+import org.xml.sax.helpers.DefaultHandler;
+
+//**** from other packages
+
+//****************************************
+
+/**
+ * Builds the document read by a {@link HierarchicalDocumentReader} in
+ * <EM>one</EM> streaming (SAX) pass over the input.<BR>
+ * <BR>
+ * Compared to a DOM parser, the result is compact:
+ * <UL>
+ *   <LI>whitespace between elements (ignorable according to
+ *       <TT>{@link HierarchicalDocumentReader#huppaalDTD}</TT>),
+ *       comments and processing instructions are not stored</LI>
+ *   <LI>the text of an element is one single text node</LI>
+ *   <LI>attribute values (IDs and their references are repeated a lot)
+ *       are shared</LI>
+ *   <LI>the tree is built directly, without deferred nodes</LI>
+ * </UL>
+ * The IDs are collected on the way, so the reader never has to search
+ * the document for them, and so are the children of every element by
+ * tag name (the {@link ChildIndex} of the reader session).<BR>
+ * <BR>
+ * The parser has to be validating (otherwise whitespace cannot be told
+ * apart from text).
+ *
+ * @see HierarchicalDocumentReader Flatten
+ * @author <A HREF="MAILTO:agent@local?subject=HierarchicalDocumentLoader.java%20(Vanilla-1%20Sat%20Oct%2017%2013:05:52%202026)">agent</A>
+ * @version Vanilla-1                  Sat Oct 17 13:05:52 2026
+ */
+public class HierarchicalDocumentLoader
+  extends DefaultHandler {
+
+  // //////////////////////////////////////////////////////////////////////
+  // ////////////////////////////// FIELDS ////////////////////////////////
+  // //////////////////////////////////////////////////////////////////////
+
+  /**
+   * Creates the empty documents
+   */
+  private static DocumentBuilderFactory domFactory =
+    DocumentBuilderFactory.newInstance();
+
+  /**
+   * The document under construction
+   */
+  private Document doc;
+
+  /**
+   * Open elements; the top one is the current parent
+   */
+  private Stack openElements;
+
+  /**
+   * Character data of the current element, not yet stored
+   */
+  private StringBuffer text;
+
+  /**
+   * Numbers the IDs and maps them to their elements
+   */
+  private IDNumbering ids;
+
+  /**
+   * Indexes the children of every element by tag name
+   */
+  private ChildIndex children;
+
+  /**
+   * Maps every attribute value to its first occurrence (sharing)
+   */
+  private Hashtable valuePool;
+
+  /**
+   * Resolves DTDs; <TT>null</TT>: default resolution
+   */
+  private EntityResolver resolver;
+
+  // //////////////////////////////////////////////////////////////////////
+  // //////////////////////////  CONSTRUCTORS  ////////////////////////////
+  // //////////////////////////////////////////////////////////////////////
+
+  /**
+   * Internal constructor: one loader per document
+   */
+  private HierarchicalDocumentLoader(Document theDoc, EntityResolver theResolver){
+    doc = theDoc;
+    resolver = theResolver;
+
+    openElements = new Stack();
+    text = new StringBuffer();
+    ids = new IDNumbering();
+    children = new ChildIndex();
+    valuePool = new Hashtable();
+  }
+
+  // //////////////////////////////////////////////////////////////////////
+  // ///////////////////////////// METHODS  ///////////////////////////////
+  // //////////////////////////////////////////////////////////////////////
+
+  // =================================================================
+  // [1] Loading (STATIC)
+  // =================================================================
+
+  /**
+   * Read <TT>file</TT> with the (validating) <TT>parser</TT> and return
+   * a reader for it.<BR>
+   * DTDs are resolved by <TT>theResolver</TT>, if not <TT>null</TT>.
+   */
+  public static HierarchicalDocumentReader load(SAXParser parser,
+						File file,
+						EntityResolver theResolver)
+    throws Exception {
+
+    InputSource source = new InputSource(new BufferedInputStream(new FileInputStream(file)));
+    source.setSystemId(file.toURI().toString());
+    try {
+      return load(parser, source, theResolver);
+    } finally {
+      source.getByteStream().close();
+    }
+  }
+
+  /**
+   * Read <TT>source</TT> with the (validating) <TT>parser</TT> and return
+   * a reader for it.
+   */
+  public static HierarchicalDocumentReader load(SAXParser parser,
+						InputSource source,
+						EntityResolver theResolver)
+    throws Exception {
+
+    if(!parser.isValidating())
+      throw new Exception("ERROR: HierarchicalDocumentLoader needs a validating parser.");
+
+    Document theDoc;
+    synchronized(domFactory){
+      theDoc = domFactory.newDocumentBuilder().newDocument();
+    }
+
+    HierarchicalDocumentLoader loader = new HierarchicalDocumentLoader(theDoc, theResolver);
+    parser.parse(source, loader);
+
+    return new HierarchicalDocumentReader(theDoc, loader.ids, loader.children);
+  }
+
+  // =================================================================
+  // [2] SAX callbacks
+  // =================================================================
+
+  public void startElement(String uri, String localName, String qName,
+			   Attributes atts)
+    throws SAXException {
+
+    flushText();
+
+    Element el = doc.createElement(qName);
+    for(int i = 0; i < atts.getLength(); i++){
+      String value = share(atts.getValue(i));
+      el.setAttribute(atts.getQName(i), value);
+      if(atts.getQName(i).equals("id"))
+	ids.setElement(value, el);
+    }
+
+    if(openElements.empty())
+      doc.appendChild(el);
+    else {
+      ((Node)openElements.peek()).appendChild(el);
+      children.addChild((Element)openElements.peek(), el);
+    }
+    openElements.push(el);
+  }
+
+  public void endElement(String uri, String localName, String qName)
+    throws SAXException {
+
+    flushText();
+    children.seal((Element)openElements.pop());
+  }
+
+  public void characters(char[] ch, int start, int length){
+    text.append(ch, start, length);
+  }
+
+  /**
+   * Whitespace in element content is dropped
+   */
+  public void ignorableWhitespace(char[] ch, int start, int length){
+  }
+
+  public InputSource resolveEntity(String publicId, String systemId)
+    throws IOException, SAXException {
+
+    if(null == resolver)
+      return null;
+    return resolver.resolveEntity(publicId, systemId);
+  }
+
+  /**
+   * Validation errors are reported, but do not stop the reading (as with
+   * the default handler of a DOM parser).
+   */
+  public void error(SAXParseException spe){
+    System.err.println("** Validation error"
+		       + ", line " + spe.getLineNumber ()
+		       + ", uri " + spe.getSystemId ()
+		       + "\n   " + spe.getMessage());
+  }
+
+  public void fatalError(SAXParseException spe)
+    throws SAXException {
+    throw spe;
+  }
+
+  // =================================================================
+  // [3] AUX
+  // =================================================================
+
+  /**
+   * Store the collected character data as one text node
+   */
+  private void flushText(){
+    if(text.length() > 0){
+      if(!openElements.empty())
+	((Node)openElements.peek()).appendChild(doc.createTextNode(text.toString()));
+      text.setLength(0);
+    }
+  }
+
+  /**
+   * Returns the first occurrence of this value
+   */
+  private String share(String value){
+    String shared = (String)valuePool.get(value);
+    if(null == shared){
+      valuePool.put(value, value);
+      shared = value;
+    }
+    return shared;
+  }
+
+}
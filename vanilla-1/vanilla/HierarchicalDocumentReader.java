@@ -112,9 +112,9 @@ public class HierarchicalDocumentReader
   private static final String fakeIDName = "fake__ID_";
   
   /**
-   * AUX counter to create unique fake IDs
+   * AUX counter to create unique fake IDs (per document)
    */
-  private static long fakeIDCounter = 0L;
+  private long fakeIDCounter = 0L;
 
   /**
    * Spam out debuggin information, if <TT>debug</TT> is true
@@ -138,6 +138,20 @@ public class HierarchicalDocumentReader
     wrapAroundInstHashTable = new Hashtable();
   }
 
+  /**
+   * Constructor for documents read by a {@link 
+   * HierarchicalDocumentLoader}: <TT>theIDs</TT> numbers every ID of the 
+   * document and maps it to its element, <TT>theChildren</TT> indexes the
+   * children of every element.
+   */
+  public HierarchicalDocumentReader(Document theDoc, IDNumbering theIDs,
+				    ChildIndex theChildren){
+    this(theDoc);
+
+    originalIDs = theIDs;
+    childIndex = theChildren;
+  }
+
   // //////////////////////////////////////////////////////////////////////
   // ///////////////////////////// METHODS  ///////////////////////////////
   // //////////////////////////////////////////////////////////////////////
@@ -221,7 +235,7 @@ public class HierarchicalDocumentReader
    */
   public String getSystemText()
     throws Exception {
-    Element system = getTheChildWithLabelIfExists(oldRoot, "system");
+    Element system = theChildWithLabelIfExists(oldRoot, "system");
     if(null == system)
       return "";
     else 
@@ -232,7 +246,7 @@ public class HierarchicalDocumentReader
    */
   public String getInstantiationText()
     throws Exception {
-    Element instantiation = getTheChildWithLabelIfExists(oldRoot, "instantiation");
+    Element instantiation = theChildWithLabelIfExists(oldRoot, "instantiation");
     if(null == instantiation)
       return "";
     else 
@@ -243,7 +257,7 @@ public class HierarchicalDocumentReader
    */
   public String getDeclarationText()
     throws Exception {
-    Element declaration = getTheChildWithLabelIfExists(oldRoot, "declaration");
+    Element declaration = theChildWithLabelIfExists(oldRoot, "declaration");
     if(null == declaration)
       return "";
     else 
@@ -389,7 +403,7 @@ public class HierarchicalDocumentReader
       throw new Exception("ERROR: the element " +
 			  template.toString() +
 			  "  is not a template.");
-    NodeList allEntries = getAllChildrenWithLabel(template, "entry");
+    NodeList allEntries = childrenWithLabel(template, "entry");
     for(int i=0; i < allEntries.getLength(); i++){
       if(isHistoryEntry((Element)allEntries.item(i)))
 	return true;
@@ -427,7 +441,7 @@ public class HierarchicalDocumentReader
 			  "  is not a component.");
     String templateTextualName = component.getAttribute("instantiates");
     Element template = getTemplateWithName(templateTextualName);
-    NodeList allEntries = getAllChildrenWithLabel(template, "entry");
+    NodeList allEntries = childrenWithLabel(template, "entry");
     for(int i=0; i < allEntries.getLength(); i++){
       if(isHistoryEntry((Element)allEntries.item(i)))
 	return true;
@@ -615,8 +629,8 @@ public class HierarchicalDocumentReader
       throw new Exception("ERROR: the element \n" +
 			  entry.toString() +
 			  "\n      is neither <entry> nor <entrypoint>");
-    Element connection = getTheChildWithLabel(theEntry, "connection");
-    Element target = getTheChildWithLabel(connection, "target");
+    Element connection = theChildWithLabel(theEntry, "connection");
+    Element target = theChildWithLabel(connection, "target");
 
     return getElementByID(target.getAttribute("ref"));
   }
@@ -640,8 +654,8 @@ public class HierarchicalDocumentReader
       throw new Exception("ERROR: the element \n" +
 			  entry.toString() +
 			  "\n      is neither <entry> nor <entrypoint>");
-    Element connection = getTheChildWithLabel(theEntry, "connection");
-    Element target = getTheChildWithLabel(connection, "target");
+    Element connection = theChildWithLabel(theEntry, "connection");
+    Element target = theChildWithLabel(connection, "target");
 
     return target;
   }
@@ -654,10 +668,10 @@ public class HierarchicalDocumentReader
       throw new Exception ("ERROR: entry of AND component points to non-fork: \n" +
 			   fork.toString());
     // ----------------------------------------------------------
-    NodeList connections = getAllChildrenWithLabel(fork, "connection");
+    NodeList connections = childrenWithLabel(fork, "connection");
     MutableNodeListImpl targets = new MutableNodeListImpl();
     for(int i=0; i < connections.getLength(); i++){
-	NodeList localTargets = getAllChildrenWithLabel((Element)connections.item(i), 
+	NodeList localTargets = childrenWithLabel((Element)connections.item(i), 
 							"target");
 	for(int j=0; j < localTargets.getLength(); j++){
 	    targets.addNode(localTargets.item(j));
@@ -733,21 +747,21 @@ public class HierarchicalDocumentReader
     // ---------------------------------------------------------------------
     if (isANDComponent(component)){
       // -- AND component: traverse further --------------------------------
-      Element nextTarget = getTheChildWithLabel(connection, "target");
+      Element nextTarget = theChildWithLabel(connection, "target");
       Element fork = getElementByID(nextTarget.getAttribute("ref"));
       if( sanityChecks &&
 	  (!(fork.getTagName()).equals("fork")))
 	throw new Exception("ERROR: element " +
 			    fork.toString() +
 			    "  was expected to be a <fork>.");
-      NodeList forkConnections = getAllChildrenWithLabel(fork, "connection");
+      NodeList forkConnections = childrenWithLabel(fork, "connection");
       //!!! here, modify the context (i.e. add new params from THIS tpl).
       for(int i=0; i < forkConnections.getLength(); i++){
 	addGuardsAndAssignmentsOfConnectionInContext((Element)forkConnections.item(i),
 						     guards,
 						     assignments,
 						     context);
-	Element connectionTarget = getTheChildWithLabel((Element)forkConnections.item(i), "target");
+	Element connectionTarget = theChildWithLabel((Element)forkConnections.item(i), "target");
 	
 	collectGuardsAndAssignmentsOfTarget(connectionTarget,
 					    guards,
@@ -812,7 +826,7 @@ public class HierarchicalDocumentReader
    */
   public Vector getNamesOfAliveSystemParts()
     throws Exception {
-    Element system = getTheChildWithLabel(oldRoot, "system");
+    Element system = theChildWithLabel(oldRoot, "system");
     String sysString = getCdataOfElement(system).trim();
     int from = 7; // "system"
     int to = sysString.indexOf(';');
@@ -906,7 +920,7 @@ public class HierarchicalDocumentReader
     if((exitOrExitpoint.getTagName()).equals("exitpoint"))
       theExit = (Element)exitOrExitpoint.getParentNode();
     
-    NodeList theConnections = getAllChildrenWithLabel(theExit, "connection");
+    NodeList theConnections = childrenWithLabel(theExit, "connection");
     for(int i=0; i < theConnections.getLength(); i++){
       result.addElement(theConnections.item(i));
     }
@@ -927,7 +941,7 @@ public class HierarchicalDocumentReader
       throw new Exception("ERROR: the element " +
 			  entry.toString() +
 			  "  is not a proper entry.");
-    return getTheChildWithLabel(entry, "connection");
+    return theChildWithLabel(entry, "connection");
   }
 
   /**
@@ -1094,9 +1108,11 @@ public class HierarchicalDocumentReader
    * Create the Joins for stopping global elements (direct children of 
    * root);<BR>
    * <BR>
-   * 
+   * The joins are entered in <TT>joins</TT>, rooted at its
+   * {@link GlobalJoinRegistry#rootTinst}.
    */
-  public void createJoinsForGlobalExits(TextualInstantiation tinst, Element globalEntry)
+  public void createJoinsForGlobalExits(TextualInstantiation tinst, Element globalEntry,
+					GlobalJoinRegistry joins)
     throws Exception {
     
     if(debug)
@@ -1113,7 +1129,7 @@ public class HierarchicalDocumentReader
 
        }
        else if(canExit.equals("all")) {
-	 NodeList allExits = getAllChildrenWithLabel(tinst.templateElement, "exit");
+	 NodeList allExits = childrenWithLabel(tinst.templateElement, "exit");
 	   Element component = wrapComponentAroundGlobalInstantiation(tinst.originalInstantiationName, getElementName(tinst.templateElement));
 	   String componentID = getElementID(component);
 
@@ -1122,22 +1138,22 @@ public class HierarchicalDocumentReader
 	   String exitID = getElementID((Element)allExits.item(i));
 	   Element fakeCon = origDoc.createElement("connection");
 	   Element fakeSource = origDoc.createElement("source");
-	   fakeCon.appendChild(fakeSource);
+	   appendChild(fakeCon, fakeSource);
 	   fakeSource.setAttribute("ref", componentID);
 	   fakeSource.setAttribute("exitref", exitID);
 	   ((MutableNodeListImpl)allExitTransitions).addNode(fakeCon);
 	 }
        }
        else if(canExit.equals("specified")) {
-	 NodeList allOriginalTransitions = getAllChildrenWithLabel(globalEntry, "connection"); 
+	 NodeList allOriginalTransitions = childrenWithLabel(globalEntry, "connection"); 
 	 Element component = wrapComponentAroundGlobalInstantiation(tinst.originalInstantiationName, getElementName(tinst.templateElement));
 	 String componentID = getElementID(component);
  
 	 for(int i=0; i < allOriginalTransitions.getLength(); i++){
-	   String exitID = (getTheChildWithLabel((Element)allOriginalTransitions.item(i), "source")).getAttribute("exitref");
+	   String exitID = (theChildWithLabel((Element)allOriginalTransitions.item(i), "source")).getAttribute("exitref");
 	   Element fakeCon = origDoc.createElement("connection");
 	   Element fakeSource = origDoc.createElement("source");
-	   fakeCon.appendChild(fakeSource);
+	   appendChild(fakeCon, fakeSource);
 	   fakeSource.setAttribute("ref", componentID);
 	   fakeSource.setAttribute("exitref", exitID);
 	   ((MutableNodeListImpl)allExitTransitions).addNode(fakeCon);
@@ -1159,7 +1175,7 @@ public class HierarchicalDocumentReader
 	   
 
 
-	   GlobalJoin gj = GlobalJoin.getGlobalJoin(connection, Flatten.rootInstDummy);
+	   GlobalJoin gj = joins.getGlobalJoin(connection, joins.rootTinst);
 	 }
        }
   }
@@ -1209,10 +1225,10 @@ public class HierarchicalDocumentReader
       ((Element)result).setAttribute("instantiates", templateName);
       Element name = origDoc.createElement("name");
       Text cdata = origDoc.createTextNode(instName);
-      name.appendChild(cdata);
+      appendChild(name, cdata);
       fakeIDCounter++;
       ((Element)result).setAttribute("id", fakeIDName + fakeIDCounter);
-      ((Element)result).appendChild(name);
+      appendChild((Element)result, name);
       addIDAndElementToHashTable( (fakeIDName + fakeIDCounter),
 				  (Element)result);
       wrapAroundInstHashTable.put(hashString, result);
@@ -1235,10 +1251,7 @@ public class HierarchicalDocumentReader
    */
   private void addIDAndElementToHashTable(String ID, Element el)
     throws Exception {
-    if(null == hashOriginalIDsToElements)
-      memorizeIDsOfOriginalDocument();
-
-    hashOriginalIDsToElements.put(ID, el);
+    registerID(ID, el);
   }
 
 }
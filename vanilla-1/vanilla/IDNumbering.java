@@ -0,0 +1,154 @@
+// -*- mode: JDE; c-basic-offset: 2; -*-
+// /////////////////////////////////////////////////////////////
+// Dense numbers for the IDs of a document
+//
+// Synopsis:
+//  Huppaal
+// /////////////////////////////////////////////////////////////
+// @FILE:    IDNumbering.java
+// @FORMAT:  java
+// @AUTHOR:  agent     <agent@local>
+// @BEGUN:   Sat Oct 17 19:12:26 2026
+// @VERSION: Vanilla-1                  Sat Oct 17 19:12:26 2026
+// /////////////////////////////////////////////////////////////
+//
+
+import java.lang.*;
+
+import java.util.HashMap;
+
+import org.w3c.dom.Element;
+
+//**** from other packages
+
+//****************************************
+
+/**
+ * Gives every ID string of a document a number <TT>0, 1, 2, ...</TT> (in
+ * the order they are met), and keeps the element carrying the ID.<BR>
+ * <BR>
+ * An ID keeps its number, even if its element goes away or it is
+ * referred to before any element carries it. So per-ID data can be kept
+ * in arrays (or <TT>Vector</TT>s) indexed by the number, and the string
+ * is hashed only once, when it is numbered.<BR>
+ * <BR>
+ * <B>NOTE:</B> not synchronized. Concurrent lookups are fine, as long as
+ * nobody numbers new IDs or sets elements meanwhile.
+ *
+ * @see DocumentReader
+ * @author <A HREF="MAILTO:agent@local?subject=IDNumbering.java%20(Vanilla-1%20Sat%20Oct%2017%2019:12:26%202026)">agent</A>
+ * @version Vanilla-1                  Sat Oct 17 19:12:26 2026
+ */
+public class IDNumbering  {
+
+  // //////////////////////////////////////////////////////////////////////
+  // ////////////////////////////// FIELDS ////////////////////////////////
+  // //////////////////////////////////////////////////////////////////////
+
+  /**
+   * Maps the IDs to their numbers (<TT>Integer</TT>s)
+   */
+  private HashMap hashIDsToNumbers;
+
+  /**
+   * The IDs, by number
+   */
+  private String[] ids;
+
+  /**
+   * The elements carrying the IDs (or <TT>null</TT>), by number
+   */
+  private Element[] elements;
+
+  /**
+   * Number of IDs numbered so far
+   */
+  private int size;
+
+  // //////////////////////////////////////////////////////////////////////
+  // //////////////////////////  CONSTRUCTORS  ////////////////////////////
+  // //////////////////////////////////////////////////////////////////////
+
+  /**
+   * Default Constructor: no IDs
+   */
+  public IDNumbering(){
+    hashIDsToNumbers = new HashMap();
+    ids = new String[64];
+    elements = new Element[64];
+  }
+
+  // //////////////////////////////////////////////////////////////////////
+  // ///////////////////////////// METHODS  ///////////////////////////////
+  // //////////////////////////////////////////////////////////////////////
+
+  /**
+   * The number of <TT>id</TT>; a new one, if it has none yet
+   */
+  public int number(String id){
+    Integer known = (Integer)hashIDsToNumbers.get(id);
+    if(null != known)
+      return known.intValue();
+
+    if(size == ids.length){
+      String[] newIDs = new String[2 * size];
+      Element[] newElements = new Element[2 * size];
+      System.arraycopy(ids, 0, newIDs, 0, size);
+      System.arraycopy(elements, 0, newElements, 0, size);
+      ids = newIDs;
+      elements = newElements;
+    }
+    ids[size] = id;
+    hashIDsToNumbers.put(id, Integer.valueOf(size));
+    return size++;
+  }
+
+  /**
+   * The number of <TT>id</TT>; <TT>-1</TT>, if it has none
+   */
+  public int numberIfExists(String id){
+    Integer known = (Integer)hashIDsToNumbers.get(id);
+    return (null == known) ? -1 : known.intValue();
+  }
+
+  /**
+   * The ID with number <TT>n</TT>
+   */
+  public String id(int n){
+    return ids[n];
+  }
+
+  /**
+   * The element carrying the ID with number <TT>n</TT>; <TT>null</TT>,
+   * if there is none
+   */
+  public Element element(int n){
+    return elements[n];
+  }
+
+  /**
+   * The element carrying <TT>id</TT>; <TT>null</TT>, if there is none
+   */
+  public Element element(String id){
+    int n = numberIfExists(id);
+    return (n < 0) ? null : elements[n];
+  }
+
+  /**
+   * Let <TT>el</TT> carry <TT>id</TT> (<TT>null</TT>: none does);
+   * returns the number of <TT>id</TT>
+   */
+  public int setElement(String id, Element el){
+    int n = number(id);
+    elements[n] = el;
+    return n;
+  }
+
+  /**
+   * Number of IDs numbered so far; all numbers are below
+   */
+  public int size(){
+    return size;
+  }
+
+}
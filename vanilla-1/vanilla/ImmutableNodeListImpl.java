@@ -0,0 +1,75 @@
+// -*- mode: JDE; c-basic-offset: 2; -*-
+// /////////////////////////////////////////////////////////////
+// Read-only list of nodes
+// 
+// Synopsis:
+//  Huppaal
+// /////////////////////////////////////////////////////////////
+// @FILE:    ImmutableNodeListImpl.java
+// @FORMAT:  java
+// @AUTHOR:  agent     <agent@local>
+// @BEGUN:   Sat Oct 17 14:20:18 2026
+// @VERSION: Vanilla-1                  Sat Oct 17 14:20:18 2026
+// /////////////////////////////////////////////////////////////
+// 
+
+import java.lang.*;
+
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList; 
+
+//**** from other packages 
+
+//****************************************
+
+/**
+ * A list of nodes that cannot be changed once created; hence it can be
+ * handed out to several callers (see {@link ChildIndex}).
+ * 
+ * @see MutableNodeListImpl
+ * @author <A HREF="MAILTO:agent@local?subject=ImmutableNodeListImpl.java%20(Vanilla-1%20Sat%20Oct%2017%2014:20:18%202026)">agent</A>
+ * @version Vanilla-1                  Sat Oct 17 14:20:18 2026
+ */
+public class ImmutableNodeListImpl
+  implements org.w3c.dom.NodeList {
+
+  // //////////////////////////////////////////////////////////////////////
+  // ////////////////////////////// FIELDS ////////////////////////////////
+  // //////////////////////////////////////////////////////////////////////
+
+  /**
+   * The list without any nodes
+   */
+  public static final ImmutableNodeListImpl EMPTY = new ImmutableNodeListImpl(new Node[0], 0);
+
+  private final Node[] data;
+
+  private final int length;
+
+  // //////////////////////////////////////////////////////////////////////
+  // //////////////////////////  CONSTRUCTORS  ////////////////////////////
+  // //////////////////////////////////////////////////////////////////////
+
+  /**
+   * Default Constructor: the first <TT>theLength</TT> nodes of the 
+   * array (which must not be changed afterwards).
+   */
+  public ImmutableNodeListImpl(Node[] theData, int theLength){
+    data = theData;
+    length = theLength;
+  }
+
+  // //////////////////////////////////////////////////////////////////////
+  // ///////////////////////////// METHODS  ///////////////////////////////
+  // //////////////////////////////////////////////////////////////////////
+
+  public int getLength() {
+    return length;
+  }
+  public Node item(int index) {
+    if(index < 0 || index >= length)
+      return null;
+    return data[index];
+  }
+
+}
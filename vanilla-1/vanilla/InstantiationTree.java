@@ -14,8 +14,6 @@
 // /////////////////////////////////////////////////////////////
 // 
 
-import TextualInstantiation;
-
 import java.lang.*;
 
 import org.w3c.dom.Document;
@@ -26,7 +24,9 @@ import org.w3c.dom.NamedNodeMap;
 import org.w3c.dom.Text;
 
 import java.util.Vector;
+import java.util.Hashtable;
 import java.util.Enumeration;
+import java.util.Stack;
 
 //**** from other packages 
 
@@ -35,7 +35,17 @@ import java.util.Enumeration;
 /**
  * This Datat Type implements a tree structure, where every
  * Node correspons to a {@link TextualInstantiation}. Leaves are
- * Objects with a empty <TT>{@link #children}</TT> Vector.
+ * Objects with a empty <TT>{@link #children}</TT> Vector.<BR>
+ * <BR>
+ * Every node knows its <TT>{@link #parent}</TT> and <TT>{@link #depth}</TT>,
+ * and all nodes of a tree share one table from textual instantiations to 
+ * nodes, so <TT>{@link #findNodeWithContent}</TT> is a lookup. Children 
+ * have to be added with <TT>{@link #addChild}</TT>.<BR>
+ * <BR>
+ * Once the tree is complete, <TT>{@link #numberNodes}</TT> gives every
+ * node a pre-order number; the nodes of a subtree then form the interval
+ * <TT>[{@link #preOrder}, {@link #subtreeEnd}]</TT>, so 
+ * &quot;in or below&quot; is a comparison of two numbers.
  *
  * @author <A HREF="MAILTO:omoeller@brics.dk?subject=InstantiationTree.java%20(Vanilla-1%20Fri%20Mar%2023%2011:48:01%202001)">M. Oliver M&ouml;ller</A>
  * @version Vanilla-1                  Mon Apr  9 10:50:37 2001
@@ -53,6 +63,34 @@ public class InstantiationTree  {
    * All child instantiatino trees.
    */
   public Vector children;
+
+  /**
+   * The node this one is a child of; <TT>null</TT> for the root
+   */
+  public InstantiationTree parent;
+
+  /**
+   * Distance to the root (which has depth <TT>0</TT>)
+   */
+  public int depth;
+
+  /**
+   * Maps the {@link TextualInstantiation}s of the whole tree to their 
+   * nodes (one table, shared by all nodes)
+   */
+  private Hashtable mapContentToNode;
+  
+  /**
+   * Number of this node in pre-order (set by <TT>{@link #numberNodes}</TT>;
+   * <TT>-1</TT> before)
+   */
+  public int preOrder = -1;
+
+  /**
+   * Largest pre-order number in the subtree of this node (set by 
+   * <TT>{@link #numberNodes}</TT>)
+   */
+  public int subtreeEnd = -1;
   
   
   // =====================================
@@ -76,6 +114,10 @@ public class InstantiationTree  {
   public InstantiationTree(TextualInstantiation tinst){
     content = tinst;
     children = new Vector();
+    parent = null;
+    depth = 0;
+    mapContentToNode = new Hashtable();
+    mapContentToNode.put(tinst, this);
   }
   
   // //////////////////////////////////////////////////////////////////////
@@ -83,10 +125,23 @@ public class InstantiationTree  {
   // //////////////////////////////////////////////////////////////////////
   
   /**
-   * Add a child
+   * Add a child (the root of a tree of its own).<BR>
+   * <BR>
+   * Its nodes join the table of this tree and get their depth set.
    */
   public void addChild(InstantiationTree instt){
     children.addElement(instt);
+    instt.parent = this;
+
+    Stack treeNodes = new Stack();
+    treeNodes.push(instt);
+    while(!treeNodes.empty()){
+      InstantiationTree it = (InstantiationTree)treeNodes.pop();
+      it.depth = it.parent.depth + 1;
+      it.mapContentToNode = mapContentToNode;
+      mapContentToNode.put(it.content, it);
+      treeNodes.addAll(it.children);
+    }
   }
   
   /** 
@@ -98,21 +153,104 @@ public class InstantiationTree  {
   
   
   /**
-   * Returns the node of the tree that contains the specific {@link 
+   * Returns the node of the (sub-)tree that contains the specific {@link 
    * TextualInstantiation}.<BR><BR>
    * 
    * Returns <TT>null</TT>, if it is not found.
    */
   public InstantiationTree findNodeWithContent(TextualInstantiation tinst){
-    if(tinst == content)
-      return this;
-    for(Enumeration e = this.enumChildren(); e.hasMoreElements();){
-      Object res = ((InstantiationTree)e.nextElement()).findNodeWithContent(tinst);
-      if(null != res)
-	return (InstantiationTree)res;
+    InstantiationTree node = (InstantiationTree)mapContentToNode.get(tinst);
+    if( (null == node) || (null == parent) )
+      return node;
+    // -- below a proper subtree: check that it is inside ------------------
+    if(!isAncestorOf(node))
+      return null;
+    return node;
+  }
+
+  // ===================================================================
+  // ANCESTORS
+  // ===================================================================
+
+  /**
+   * The ancestor of this node (or the node itself) at depth <TT>d</TT>;
+   * <TT>null</TT>, if <TT>d</TT> is larger than the depth of this node.
+   */
+  public InstantiationTree ancestorAtDepth(int d){
+    if(d > depth || d < 0)
+      return null;
+    InstantiationTree it = this;
+    while(it.depth > d)
+      it = it.parent;
+    return it;
+  }
+
+  /**
+   * Is this node an ancestor of <TT>node</TT> (or <TT>node</TT> itself)?
+   */
+  public boolean isAncestorOf(InstantiationTree node){
+    return this == node.ancestorAtDepth(depth);
+  }
+
+  /**
+   * The deepest node that is an ancestor of both this node and 
+   * <TT>other</TT>; <TT>null</TT>, if they are in different trees.
+   */
+  public InstantiationTree lowestCommonAncestor(InstantiationTree other){
+    InstantiationTree a = this.ancestorAtDepth(Math.min(depth, other.depth));
+    InstantiationTree b = other.ancestorAtDepth(Math.min(depth, other.depth));
+    while(a != b){
+      if(null == a.parent)
+	return null;
+      a = a.parent;
+      b = b.parent;
+    }
+    return a;
+  }
+
+  // ===================================================================
+  // SUBTREE INTERVALS
+  // ===================================================================
+
+  /**
+   * Number all nodes of this (complete) tree in pre-order, starting with 
+   * <TT>0</TT> at this node, and set their <TT>{@link #subtreeEnd}</TT>.
+   * <BR>
+   * The children are visited <EM>last one first</EM>.<BR>
+   * <BR>
+   * Returns the Vector of all nodes, indexed by their number.
+   */
+  public Vector numberNodes(){
+    Vector nodes = new Vector();
+    Stack treeNodes = new Stack();
+    treeNodes.push(this);
+
+    while(!treeNodes.empty()){
+      InstantiationTree it = (InstantiationTree)treeNodes.pop();
+      it.preOrder = nodes.size();
+      nodes.addElement(it);
+      treeNodes.addAll(it.children);
     }
-    return null;
+    // -- a subtree ends where its first visited child's subtree ends -----
+    for(int i = nodes.size() - 1; i >= 0; i--){
+      InstantiationTree it = (InstantiationTree)nodes.elementAt(i);
+      if(it.children.isEmpty())
+	it.subtreeEnd = it.preOrder;
+      else
+	it.subtreeEnd = ((InstantiationTree)it.children.firstElement()).subtreeEnd;
+    }
+    return nodes;
+  }
+
+  /**
+   * Is this node in the subtree of <TT>node</TT> (or <TT>node</TT> itself)?
+   * <BR>
+   * Only meaningful after <TT>{@link #numberNodes}</TT>.
+   */
+  public boolean isInOrBelow(InstantiationTree node){
+    return (node.preOrder <= preOrder) && (preOrder <= node.subtreeEnd);
   }
+
   /**
    * Return a string representing the (sub-)tree, with <TT>{@link 
    * #offsetFactor}</TT>*<TT>offset</TT> spaces before the name
@@ -0,0 +1,341 @@
+// -*- mode: JDE; c-basic-offset: 2; -*-
+// /////////////////////////////////////////////////////////////
+// What growing a global join beyond one exit amounts to
+//
+// Synopsis:
+//  Huppaal
+// /////////////////////////////////////////////////////////////
+// @TABLE OF CONTENTS:
+//
+//  [1] Default exits
+//  [2] Exits of AND components
+//  [3] Exits of XOR components
+// ==========================================================
+// @FILE:    JoinExpansion.java
+// @FORMAT:  java
+// @AUTHOR:  agent     <agent@local>
+// @BEGUN:   Sat Oct 17 16:15:40 2026
+// @VERSION: Vanilla-1                  Sat Oct 17 16:15:40 2026
+// /////////////////////////////////////////////////////////////
+//
+
+import java.lang.*;
+
+import java.util.Vector;
+import java.util.Stack;
+import java.util.Enumeration;
+
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+//**** from other packages
+
+//****************************************
+
+/**
+ * The result of inspecting one exit (or exitpoint) of one textual
+ * instantiation, as needed by {@link GlobalJoin#finishGrowth}: the
+ * guards and assignments to collect, the basic locations the join may
+ * start from, and the ways to continue growing.<BR>
+ * <BR>
+ * It depends on nothing but the pair (tinst, exit); the
+ * {@link GlobalJoinRegistry} computes it once per pair and every join
+ * growing through that exit replays it.
+ *
+ * @see GlobalJoin GlobalJoinRegistry
+ * @author <A HREF="MAILTO:agent@local?subject=JoinExpansion.java%20(Vanilla-1%20Sat%20Oct%2017%2016:15:40%202026)">agent</A>
+ * @version Vanilla-1                  Sat Oct 17 16:15:40 2026
+ */
+public class JoinExpansion  {
+
+  // //////////////////////////////////////////////////////////////////////
+  // ////////////////////////////// FIELDS ////////////////////////////////
+  // //////////////////////////////////////////////////////////////////////
+
+  /**
+   * Kind: default exit (of an XOR component)
+   */
+  public static final int DEFAULT_EXIT = 0;
+
+  /**
+   * Kind: exit of an AND component; every ingoing connection comes from a
+   * join
+   */
+  public static final int AND_EXIT = 1;
+
+  /**
+   * Kind: non-default exit of an XOR component
+   */
+  public static final int XOR_EXIT = 2;
+
+  /**
+   * Kind: one join in front of an AND exit (a {@link #branches} entry of
+   * an <TT>AND_EXIT</TT>)
+   */
+  public static final int AND_BRANCH = 3;
+
+  /**
+   * One of the kinds above
+   */
+  public final int kind;
+
+  /**
+   * Guards to conjunct (Strings)
+   */
+  public final Vector guards;
+
+  /**
+   * Assignments to add (Strings)
+   */
+  public final Vector assignments;
+
+  /**
+   * Basic locations the join may start from ({@link TinstElementPair}s)
+   */
+  public final Vector startLocations;
+
+  /**
+   * How to continue:
+   * <UL>
+   *  <LI><TT>DEFAULT_EXIT</TT>, <TT>XOR_EXIT</TT>: one new join for each
+   *      {@link TinstElementPair} (sub-component, exit)</LI>
+   *  <LI><TT>AND_EXIT</TT>: one new join for each <TT>AND_BRANCH</TT>
+   *      expansion</LI>
+   *  <LI><TT>AND_BRANCH</TT>: all the {@link TinstElementPair}s
+   *      (sub-component, exit) have to be grown further</LI>
+   * </UL>
+   */
+  public final Vector branches;
+
+  /**
+   * <TT>XOR_EXIT</TT> only: for every entry of {@link #branches}, the
+   * {@link ElementElementPair} (component, exit) that is noted as a
+   * start of the new join
+   */
+  public final Vector branchStarts;
+
+  // //////////////////////////////////////////////////////////////////////
+  // //////////////////////////  CONSTRUCTORS  ////////////////////////////
+  // //////////////////////////////////////////////////////////////////////
+
+  /**
+   * Inspect <TT>exitOrExitpoint</TT> of <TT>tinst</TT>.<BR>
+   * <BR>
+   * Throws exception, if the hierarchical document is not as expected.
+   */
+  JoinExpansion(GlobalJoinRegistry registry,
+		TextualInstantiation tinst,
+		Element exitOrExitpoint)
+    throws Exception {
+
+    guards = new Vector();
+    assignments = new Vector();
+    startLocations = new Vector();
+    branches = new Vector();
+    branchStarts = new Vector();
+
+    if(registry.hdr.isDefaultExitOrExitpoint(exitOrExitpoint)){
+      kind = DEFAULT_EXIT;
+      inspectDefaultExit(registry, tinst, exitOrExitpoint);
+    }
+    else if(tinst.isANDComponent){
+      kind = AND_EXIT;
+      inspectANDExit(registry, tinst, exitOrExitpoint);
+    }
+    else {
+      kind = XOR_EXIT;
+      inspectXORExit(registry, tinst, exitOrExitpoint);
+    }
+  }
+
+  /**
+   * Internal constructor for <TT>AND_BRANCH</TT>es
+   */
+  private JoinExpansion(){
+    kind = AND_BRANCH;
+
+    guards = new Vector();
+    assignments = new Vector();
+    startLocations = new Vector();
+    branches = new Vector();
+    branchStarts = new Vector();
+  }
+
+  // //////////////////////////////////////////////////////////////////////
+  // ///////////////////////////// METHODS  ///////////////////////////////
+  // //////////////////////////////////////////////////////////////////////
+
+  // =================================================================
+  // [1] Default exits
+  // =================================================================
+
+  /**
+   * A default exit is reached by <EM>all</EM> locations in this template
+   * and by <EM>all</EM> exits of all components.
+   */
+  private void inspectDefaultExit(GlobalJoinRegistry registry,
+				  TextualInstantiation tinst,
+				  Element exitOrExitpoint)
+    throws Exception {
+    HierarchicalDocumentReader hdr = registry.hdr;
+
+    if(tinst.isANDComponent)
+      throw new Exception("ERROR: default-exits not allowed in AND components:\n\t" +
+			  tinst.toString());
+
+    Element template = tinst.templateElement;
+    if(GlobalJoin.debug)
+      System.out.println(template.toString());
+    // -- conjunct guards/assignments if any ----------------
+    Element theExit = exitOrExitpoint;
+    if((exitOrExitpoint.getTagName()).equals("exitpoint"))
+      theExit = (Element)exitOrExitpoint.getParentNode();
+    NodeList allConnections = hdr.childrenWithLabel(theExit, "connection");
+    for(int i=0; i < allConnections.getLength(); i++){
+      Element connection = (Element)allConnections.item(i);
+      hdr.addGuardsAndAssignmentsOfConnectionInContext(connection, guards, assignments, tinst);
+    }
+    if(allConnections.getLength() > 1)
+      throw new Exception("ERROR: not sure whether 2 connection to one default exit make much sense!");
+    // -- new joins for EACH exit of EACH component ---------
+    NodeList allComponents = hdr.childrenWithLabel(template,
+							 "component");
+    for(int i=0; i < allComponents.getLength(); i++){
+      Element component = (Element)allComponents.item(i);
+      TextualInstantiation tinstOfSubComponent =
+	registry.cm.retrieveTextualInstantiation(component, tinst);
+      for(Enumeration e = hdr.getAllExitsOfComponent(component).elements();
+	  e.hasMoreElements(); ){
+	branches.addElement(new TinstElementPair(tinstOfSubComponent,
+						 (Element)e.nextElement()));
+      }
+    }
+    // -- basic locations -----------------------------------
+    NodeList allLocations = hdr.childrenWithLabel(template,
+							"location");
+    for(int i=0; i < allLocations.getLength(); i++){
+      startLocations.addElement(new
+	TinstElementPair(tinst, (Element)allLocations.item(i)));
+    }
+  }
+
+  // =================================================================
+  // [2] Exits of AND components
+  // =================================================================
+
+  /**
+   * All connections to the exit come from joins; each of them is one
+   * <TT>AND_BRANCH</TT>.
+   */
+  private void inspectANDExit(GlobalJoinRegistry registry,
+			      TextualInstantiation tinst,
+			      Element exitOrExitpoint)
+    throws Exception {
+    HierarchicalDocumentReader hdr = registry.hdr;
+
+    if(GlobalJoin.debug)
+      System.out.println("==] Checking AND component (all are joins)");
+
+    for(Enumeration e = connectionsTo(hdr, exitOrExitpoint).elements(); e.hasMoreElements(); ){
+      Element connection = (Element)e.nextElement();
+      JoinExpansion branch = new JoinExpansion();
+      hdr.addGuardsAndAssignmentsOfConnectionInContext(connection,
+						       branch.guards,
+						       branch.assignments,
+						       tinst);
+      Element source = hdr.theChildWithLabel(connection, "source");
+      Element sourceElement = hdr.getElementByID(source.getAttribute("ref"));
+
+      if(GlobalJoin.debug)
+	System.out.println("==] reached Join: \n" +
+			   sourceElement.toString());
+
+      if(GlobalJoin.sanityChecks &&
+	 (!(sourceElement.getTagName()).equals("join")))
+	throw new Exception("ERROR: expected a <join>, found instead:\n" +
+			    sourceElement.toString());
+      NodeList backConnections = hdr.childrenWithLabel(sourceElement,
+							     "connection");
+      for(int i=0; i < backConnections.getLength(); i++){
+	Element oneFurtherBack = (Element)backConnections.item(i);
+	hdr.addGuardsAndAssignmentsOfConnectionInContext(oneFurtherBack,
+							 branch.guards,
+							 branch.assignments,
+							 tinst);
+	Element backSource = hdr.theChildWithLabel(oneFurtherBack, "source");
+	Element backComponent = hdr.getElementByID(backSource.getAttribute("ref"));
+	Element backExit = hdr.getElementByID(backSource.getAttribute("exitref"));
+	TextualInstantiation subTinst = registry.cm.retrieveTextualInstantiation(backComponent, tinst);
+	branch.branches.addElement(new TinstElementPair(subTinst, backExit));
+      }
+      branches.addElement(branch);
+    }
+  }
+
+  // =================================================================
+  // [3] Exits of XOR components
+  // =================================================================
+
+  /**
+   * Connections to the exit come from basic locations (start locations of
+   * the join) or from exits of components (one new join each).
+   */
+  private void inspectXORExit(GlobalJoinRegistry registry,
+			      TextualInstantiation tinst,
+			      Element exitOrExitpoint)
+    throws Exception {
+    HierarchicalDocumentReader hdr = registry.hdr;
+
+    if(GlobalJoin.debug)
+      System.out.println("==] Checking XOR component (basic locations & deeper)");
+
+    Stack componentPairs = new Stack();
+
+    for(Enumeration e = connectionsTo(hdr, exitOrExitpoint).elements(); e.hasMoreElements(); ){
+      Element connection = (Element)e.nextElement();
+      hdr.addGuardsAndAssignmentsOfConnectionInContext(connection,
+						       guards,
+						       assignments,
+						       tinst);
+      Element source = hdr.theChildWithLabel(connection, "source");
+      Element sourceElement = hdr.getElementByID(source.getAttribute("ref"));
+
+      if((sourceElement.getTagName()).equals("location")){
+	startLocations.addElement(new TinstElementPair(tinst, sourceElement));
+      }
+      else if((sourceElement.getTagName()).equals("component")){
+	Element subExit = hdr.getElementByID(source.getAttribute("exitref"));
+	componentPairs.push(new ElementElementPair(sourceElement,
+						   subExit));
+      }
+      else
+	throw new Exception("ERROR: Found unexpected source of exit in XOR component: \n" +
+			    sourceElement.toString());
+    }
+    // -- the joins are split in reverse order -------------------------
+    while(!componentPairs.empty()){
+      ElementElementPair pair = (ElementElementPair)componentPairs.pop();
+      TextualInstantiation tinstOfSubComponent =
+	registry.cm.retrieveTextualInstantiation(pair.first, tinst);
+      branches.addElement(new TinstElementPair(tinstOfSubComponent, pair.second));
+      branchStarts.addElement(pair);
+    }
+  }
+
+  /**
+   * The (non-empty) Vector of connections leading to the exit
+   */
+  private static Vector connectionsTo(HierarchicalDocumentReader hdr,
+				      Element exitOrExitpoint)
+    throws Exception {
+    Vector connectionsToIt = hdr.getConnectionsToExitOrExitpoint(exitOrExitpoint);
+
+    if( GlobalJoin.sanityChecks &&
+	( connectionsToIt.size() == 0) )
+      throw new Exception("ERROR: the exit " +
+			  exitOrExitpoint.toString() +
+			  "\n does not have ingoing edges!");
+    return connectionsToIt;
+  }
+
+}
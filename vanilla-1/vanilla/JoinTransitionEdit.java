@@ -0,0 +1,95 @@
+// -*- mode: JDE; c-basic-offset: 2; -*-
+// /////////////////////////////////////////////////////////////
+// The labels of the first transition translating a root transition
+//
+// Synopsis:
+//  Huppaal
+// /////////////////////////////////////////////////////////////
+// @FILE:    JoinTransitionEdit.java
+// @FORMAT:  java
+// @AUTHOR:  agent     <agent@local>
+// @BEGUN:   Sat Oct 17 17:09:50 2026
+// @VERSION: Vanilla-1                  Sat Oct 17 17:09:50 2026
+// /////////////////////////////////////////////////////////////
+//
+
+import java.lang.*;
+
+import java.util.Vector;
+
+import org.w3c.dom.Element;
+
+//**** from other packages
+
+//****************************************
+
+/**
+ * Part of a {@link GlobalJoinEdit}: one root transition of the join.
+ * The first transition of its translation gets
+ * <UL>
+ *  <LI>the {@link #guards}, in order</LI>
+ *  <LI>the synchronisation {@link #syncText}</LI>
+ *  <LI>the {@link #assignments}, in order</LI>
+ * </UL>
+ * and the chain of transitions leads from {@link #sourceID} to the flat
+ * location of {@link #target}. Not changed after construction.
+ *
+ * @see GlobalJoinEdit
+ * @author <A HREF="MAILTO:agent@local?subject=JoinTransitionEdit.java%20(Vanilla-1%20Sat%20Oct%2017%2017:09:50%202026)">agent</A>
+ * @version Vanilla-1                  Sat Oct 17 17:09:50 2026
+ */
+public class JoinTransitionEdit  {
+
+  // //////////////////////////////////////////////////////////////////////
+  // ////////////////////////////// FIELDS ////////////////////////////////
+  // //////////////////////////////////////////////////////////////////////
+
+  /**
+   * Guards to conjunct (Strings)
+   */
+  public final Vector guards;
+
+  /**
+   * Text of the synchronisation (trimmed, possibly empty);
+   * <TT>null</TT>, if the root transition has no synchronisation at all
+   */
+  public final String syncText;
+
+  /**
+   * Assignments to add (Strings)
+   */
+  public final Vector assignments;
+
+  /**
+   * ID of the flat location the chain starts at; <TT>null</TT> for global
+   * exits
+   */
+  public final String sourceID;
+
+  /**
+   * The (hierarchical) target of the root transition; its flat location
+   * is looked up when the edit is applied (it may have to be invented).
+   * <TT>null</TT> for global exits.
+   */
+  public final Element target;
+
+  // //////////////////////////////////////////////////////////////////////
+  // //////////////////////////  CONSTRUCTORS  ////////////////////////////
+  // //////////////////////////////////////////////////////////////////////
+
+  /**
+   * Default Constructor
+   */
+  public JoinTransitionEdit(Vector theGuards,
+			    String theSyncText,
+			    Vector theAssignments,
+			    String theSourceID,
+			    Element theTarget){
+    guards = theGuards;
+    syncText = theSyncText;
+    assignments = theAssignments;
+    sourceID = theSourceID;
+    target = theTarget;
+  }
+
+}
@@ -22,8 +22,14 @@ import org.w3c.dom.Element;
 //****************************************
 
 /**
- * Interface for Layout modules
+ * Interface for Layout modules<BR>
+ * <BR>
+ * <TT>layoutTemplate</TT> does both steps at once. To lay out several
+ * templates in parallel, first <TT>prepareTemplate</TT> is called on all
+ * of them (one after the other, in document order), then
+ * <TT>placeTemplate</TT> (concurrently).
  *
+ * @see FlatDocumentWriter#recomputeAllTemplateLayouts
  * @author <A HREF="MAILTO:omoeller@brics.dk?subject=Layouter.java%20(Mon%20Mar%2019%2013:17:14%202001)">M. Oliver M&ouml;ller</A>
  * @version Mon Mar 19 13:17:21 2001
  */
@@ -40,4 +46,16 @@ public interface Layouter  {
 
   public void layoutTemplate(Element template) throws Exception;
 
+  /**
+   * All changes to the <EM>tree</EM> (adding or removing children) needed
+   * for the layout of <TT>template</TT>
+   */
+  public void prepareTemplate(Element template) throws Exception;
+
+  /**
+   * The layout of a prepared <TT>template</TT>; only sets attributes below
+   * <TT>template</TT>, so it is safe to run for different templates at once
+   */
+  public void placeTemplate(Element template) throws Exception;
+
 }
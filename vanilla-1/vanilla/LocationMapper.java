@@ -17,7 +17,7 @@
 
 import java.lang.*;
 
-import java.util.Hashtable;
+import java.util.HashMap;
 
 import org.w3c.dom.Element;
 
@@ -56,13 +56,13 @@ public class LocationMapper  {
   
 
   /**
-   * Maps (basic) hierarchical locations to another hashtable, that
-   * maps textual instantiations to Elements, namely the Element this
+   * Maps pairs (hierarchical (basic) location, textual instantiation) to
+   * Elements, namely the Element this
    * particular instantion of a location was translated to.<BR>
    * 
    * @see GlobalJoin
    */
-  private Hashtable hashHierarchicalLocationsToHashtable;
+  private CompositeKeyMap hashHierarchicalLocationsToFlatLocations;
 
 
   /**
@@ -73,7 +73,7 @@ public class LocationMapper  {
    * 
    * @see GlobalJoin
    */
-  private Hashtable hashTextualInstantitionsToActiveLocation;
+  private HashMap hashTextualInstantitionsToActiveLocation;
   
 
   /**
@@ -84,22 +84,14 @@ public class LocationMapper  {
    * 
    * @see GlobalJoin
    */
-  private Hashtable hashTextualInstantitionsToIdleLocation;
+  private HashMap hashTextualInstantitionsToIdleLocation;
 
   /**
-   * Separates IDs of element and contiains characters that are disallowed 
-   * for
-   * XML IDs, thus no concatations of different IDs with this separator can 
-   * give a clash
-   */
-  private static final String unambigousIDSeparator = "_.--._";
-
-  /**
-   * Maps concatentations of separators to another hashtable, that maps 
-   * TextualInstantiations to (flat) locations.<BR>
+   * Maps triples (ID of the component, ID of the entry, 
+   * TextualInstantiation) to (flat) locations.<BR>
    * Used to map entries of hierarchical components.
    */
-  private Hashtable hashIDConcatenationsToFlatLocations;
+  private CompositeKeyMap hashEntriesToFlatLocations;
   
   /**
    * Spam out debuggin information, if <TT>debug</TT> is true
@@ -113,7 +105,7 @@ public class LocationMapper  {
 
 
   /// DEBUGGING
-  static boolean allEntriesAreCreated = false;
+  boolean allEntriesAreCreated = false;
   
   // //////////////////////////////////////////////////////////////////////
   // //////////////////////////  CONSTRUCTORS  ////////////////////////////
@@ -127,10 +119,10 @@ public class LocationMapper  {
     hdr = theHdr;
     fdw = theFdw;
     
-    hashHierarchicalLocationsToHashtable = new Hashtable();
-    hashTextualInstantitionsToActiveLocation = new Hashtable();
-    hashTextualInstantitionsToIdleLocation = new Hashtable();
-    hashIDConcatenationsToFlatLocations = new Hashtable();
+    hashHierarchicalLocationsToFlatLocations = new CompositeKeyMap();
+    hashTextualInstantitionsToActiveLocation = new HashMap();
+    hashTextualInstantitionsToIdleLocation = new HashMap();
+    hashEntriesToFlatLocations = new CompositeKeyMap();
     
   }
 
@@ -166,16 +158,7 @@ public class LocationMapper  {
     throws Exception {
     Element res = fdw.inventLocation(DocumentReader.getElementName(loc));
     
-    Hashtable theHashTable;
-    Object hashed = hashHierarchicalLocationsToHashtable.get(loc);
-    if(null == hashed){ // -- create new hashtable entry --------
-      theHashTable = new Hashtable();
-      hashHierarchicalLocationsToHashtable.put(loc, theHashTable);
-    }
-    else { // -- use existing one -------------------------------
-      theHashTable = (Hashtable)hashed;
-    }
-    theHashTable.put(tinst, res);
+    hashHierarchicalLocationsToFlatLocations.put(loc, tinst, res);
       
     if(debug)
       System.out.println("``` NEW migrate Hashtable entry:\n\t" +
@@ -256,14 +239,7 @@ public class LocationMapper  {
 						 TextualInstantiation tinst)
     throws Exception {
     
-    Object hashed = hashHierarchicalLocationsToHashtable.get(loc);
-    if(null == hashed)
-      throw new Exception("ERROR: no hash entry for " +
-			  loc.toString() +
-			  "in hashHierarchicalLocationsToHashtable.");
-    Hashtable tinstToElement = (Hashtable)hashed;
-    
-    Object result = tinstToElement.get(tinst);
+    Object result = hashHierarchicalLocationsToFlatLocations.get(loc, tinst);
     if(null == result)
       throw new Exception("ERROR: no hash entry for pair \n" +
 			  "\t( " + loc.toString() +
@@ -319,46 +295,21 @@ public class LocationMapper  {
     if(entryID.equals(""))
       return mapHierachicalLocationToFlatOne(hdr.getElementByID(elementID), tinst);
 
-    String hashString = elementID + unambigousIDSeparator + entryID;
-
-    Object hashed = hashIDConcatenationsToFlatLocations.get(hashString);
-
-    if(null == hashed){
+    Object result = hashEntriesToFlatLocations.get(elementID, entryID, tinst);
+    if(null == result){
 
       // -- DEBUG ----------------------------------------------------------
       if(debug && allEntriesAreCreated)
 	throw new Exception("ERROR! This target points to an entry, that does not exist but should:\n" + elementID + "/" + entryID);
       // -------------------------------------------------------------------
 
-      Hashtable newHashTable = new Hashtable();
-      hashIDConcatenationsToFlatLocations.put(hashString, newHashTable);
-      
-      Element result = fdw.inventLocationInTemplate(tinst.translationOfTemplateElement);    
-      newHashTable.put(tinst, result);
-
-	if(debug)
-	  System.out.println("((((((((((((((((((((((((((((((((((((((((((((((((((((((((((((((((((((((((((((((((((((((((((((((((((((((((( LocationMapper: New Creation on " + hashString);
+      if(debug)
+	System.out.println("((((((((((((((((((((((((((((((((((((((((((((((((((((((((((((((((((((((((((((((((((((((((((((((((((((((((( LocationMapper: New Creation on " + elementID + "/" + entryID);
 
-      
-      return result;
-    }
-    else {
-      Object result = ((Hashtable)hashed).get(tinst);
-      if(null == result){
-
-	// -- DEBUG --------------------------------------------------------
-	if(debug && allEntriesAreCreated)
-	  throw new Exception("ERROR! This target points to an entry, that does not exist but should:\n" + elementID + "/" + entryID);
-	// -----------------------------------------------------------------
-
-	if(debug)
-	  System.out.println("((((((((((((((((((((((((((((((((((((((((((((((((((((((((((((((((((((((((((((((((((((((((((((((((((((((((( LocationMapper: New Creation on " + hashString);
-
-	result = fdw.inventLocationInTemplate(tinst.translationOfTemplateElement);
-	((Hashtable)hashed).put(tinst, result);
-      }
-      return (Element)result;
+      result = fdw.inventLocationInTemplate(tinst.translationOfTemplateElement);
+      hashEntriesToFlatLocations.put(elementID, entryID, tinst, result);
     }
+    return (Element)result;
   }
 }
 
@@ -0,0 +1,124 @@
+// -*- mode: JDE; c-basic-offset: 2; -*-
+// /////////////////////////////////////////////////////////////
+// Counters for fresh names of one flattening session
+//
+// Synopsis:
+//  Huppaal
+// /////////////////////////////////////////////////////////////
+// @FILE:    NameAllocator.java
+// @FORMAT:  java
+// @AUTHOR:  agent     <agent@local>
+// @BEGUN:   Sat Oct 17 10:02:11 2026
+// @VERSION: Vanilla-1                  Sat Oct 17 10:02:11 2026
+// /////////////////////////////////////////////////////////////
+//
+
+import java.lang.*;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+//**** from other packages
+
+//****************************************
+
+/**
+ * Provides the counters that make invented names unique.<BR>
+ * <BR>
+ * There is exactly one allocator per flattening (see {@link Flatten});
+ * it is handed to every object that invents names. Hence the names in the
+ * output do not depend on how many documents were translated before in
+ * the same JVM.<BR>
+ * <BR>
+ * Every <EM>kind</EM> of name has a counter of its own, counting
+ * from <TT>1</TT>.<BR>
+ * <BR>
+ * The counters are atomic, so workers may allocate concurrently without
+ * a lock. Which worker gets which number is then up to the scheduler,
+ * though; to keep the output deterministic, names are only allocated by
+ * the steps that run one after the other (e.g., the global joins are
+ * planned concurrently, but their edits are applied in order).
+ *
+ * @see DocumentWriter TextualInstantiation GlobalJoin ChannelRegistry
+ * @author <A HREF="MAILTO:agent@local?subject=NameAllocator.java%20(Vanilla-1%20Sat%20Oct%2017%2010:02:11%202026)">agent</A>
+ * @version Vanilla-1                  Sat Oct 17 10:02:11 2026
+ */
+public class NameAllocator  {
+
+  // //////////////////////////////////////////////////////////////////////
+  // ////////////////////////////// FIELDS ////////////////////////////////
+  // //////////////////////////////////////////////////////////////////////
+
+  /**
+   * Kind: names of templates, see {@link DocumentWriter#freshTemplateName}
+   */
+  public static final int TEMPLATE = 0;
+
+  /**
+   * Kind: names of locations, see {@link DocumentWriter#freshLocationName}
+   */
+  public static final int LOCATION = 1;
+
+  /**
+   * Kind: names of channels, see
+   * {@link DocumentWriter#freshSynchronisationName}
+   */
+  public static final int SYNCHRONISATION = 2;
+
+  /**
+   * Kind: IDs of flat elements, see {@link DocumentWriter#inventFreshID}
+   */
+  public static final int ID = 3;
+
+  /**
+   * Kind: object names of textual instantiations
+   */
+  public static final int OBJECT = 4;
+
+  /**
+   * Kind: exit signals of textual instantiations
+   */
+  public static final int EXIT_SIGNAL = 5;
+
+  /**
+   * Kind: trigger variables of global joins
+   */
+  public static final int TRIGGER_VARIABLE = 6;
+
+  /**
+   * Kind: postfixes of channel copies (Phase III)
+   */
+  public static final int CHANNEL_COPY = 7;
+
+  /**
+   * Number of kinds
+   */
+  private static final int KINDS = 8;
+
+  /**
+   * The last number handed out, per kind
+   */
+  private AtomicLongArray counters;
+
+  // //////////////////////////////////////////////////////////////////////
+  // //////////////////////////  CONSTRUCTORS  ////////////////////////////
+  // //////////////////////////////////////////////////////////////////////
+
+  /**
+   * Default Constructor: all counters start at zero
+   */
+  public NameAllocator(){
+    counters = new AtomicLongArray(KINDS);
+  }
+
+  // //////////////////////////////////////////////////////////////////////
+  // ///////////////////////////// METHODS  ///////////////////////////////
+  // //////////////////////////////////////////////////////////////////////
+
+  /**
+   * Returns the next number of the given kind (starting with 1).
+   */
+  public long next(int kind){
+    return counters.incrementAndGet(kind);
+  }
+
+}
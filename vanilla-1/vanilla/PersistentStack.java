@@ -0,0 +1,167 @@
+// -*- mode: JDE; c-basic-offset: 2; -*-
+// /////////////////////////////////////////////////////////////
+// Immutable stack, sharing its tail with older versions
+//
+// Synopsis:
+//  Huppaal
+// /////////////////////////////////////////////////////////////
+// @FILE:    PersistentStack.java
+// @FORMAT:  java
+// @AUTHOR:  agent     <agent@local>
+// @BEGUN:   Sat Oct 17 16:02:18 2026
+// @VERSION: Vanilla-1                  Sat Oct 17 16:02:18 2026
+// /////////////////////////////////////////////////////////////
+//
+
+import java.lang.*;
+
+import java.util.Vector;
+import java.util.Stack;
+import java.util.Enumeration;
+
+//**** from other packages
+
+//****************************************
+
+/**
+ * Stack that is never changed: <TT>push</TT> and <TT>pop</TT> return a
+ * new stack, which shares all other entries with the old one.<BR>
+ * <BR>
+ * Used by {@link GlobalJoin}: a copy of a join takes over the stacks of
+ * the original (without copying them), and both continue independently.
+ *
+ * @see GlobalJoin
+ * @author <A HREF="MAILTO:agent@local?subject=PersistentStack.java%20(Vanilla-1%20Sat%20Oct%2017%2016:02:18%202026)">agent</A>
+ * @version Vanilla-1                  Sat Oct 17 16:02:18 2026
+ */
+public class PersistentStack  {
+
+  // //////////////////////////////////////////////////////////////////////
+  // ////////////////////////////// FIELDS ////////////////////////////////
+  // //////////////////////////////////////////////////////////////////////
+
+  /**
+   * The empty stack
+   */
+  public static final PersistentStack EMPTY = new PersistentStack(null, null, 0);
+
+  /**
+   * The topmost entry
+   */
+  private final Object top;
+
+  /**
+   * The stack below the topmost entry
+   */
+  private final PersistentStack rest;
+
+  /**
+   * Number of entries
+   */
+  private final int size;
+
+  // //////////////////////////////////////////////////////////////////////
+  // //////////////////////////  CONSTRUCTORS  ////////////////////////////
+  // //////////////////////////////////////////////////////////////////////
+
+  /**
+   * Internal constructor: start with {@link #EMPTY}
+   */
+  private PersistentStack(Object theTop, PersistentStack theRest, int theSize){
+    top = theTop;
+    rest = theRest;
+    size = theSize;
+  }
+
+  // //////////////////////////////////////////////////////////////////////
+  // ///////////////////////////// METHODS  ///////////////////////////////
+  // //////////////////////////////////////////////////////////////////////
+
+  /**
+   * This stack with <TT>o</TT> on top
+   */
+  public PersistentStack push(Object o){
+    return new PersistentStack(o, this, size + 1);
+  }
+
+  /**
+   * This stack with all elements of <TT>v</TT> pushed, in order
+   * (the last one ends up on top)
+   */
+  public PersistentStack pushAll(Vector v){
+    PersistentStack result = this;
+    for(int i = 0; i < v.size(); i++)
+      result = result.push(v.elementAt(i));
+    return result;
+  }
+
+  /**
+   * This stack without the topmost entry.<BR>
+   * Throws exception, if empty.
+   */
+  public PersistentStack pop()
+    throws Exception {
+    if(0 == size)
+      throw new Exception("ERROR: pop on empty stack.");
+    return rest;
+  }
+
+  /**
+   * The topmost entry.<BR>
+   * Throws exception, if empty.
+   */
+  public Object peek()
+    throws Exception {
+    if(0 == size)
+      throw new Exception("ERROR: peek on empty stack.");
+    return top;
+  }
+
+  public boolean empty(){
+    return 0 == size;
+  }
+
+  public int size(){
+    return size;
+  }
+
+  public boolean contains(Object o){
+    for(PersistentStack s = this; s.size > 0; s = s.rest)
+      if(s.top == o)
+	return true;
+    return false;
+  }
+
+  /**
+   * The entries in a new <TT>Vector</TT>, bottommost first (i.e. in the
+   * order they were pushed)
+   */
+  public Vector toVector(){
+    Object[] entries = new Object[size];
+    int i = size;
+    for(PersistentStack s = this; s.size > 0; s = s.rest)
+      entries[--i] = s.top;
+
+    Vector result = new Vector(size);
+    for(i = 0; i < size; i++)
+      result.addElement(entries[i]);
+    return result;
+  }
+
+  /**
+   * The entries in a new <TT>Stack</TT>, with the same top
+   */
+  public Stack toStack(){
+    Stack result = new Stack();
+    result.addAll(toVector());
+    return result;
+  }
+
+  /**
+   * Enumerates the entries, bottommost first
+   */
+  public Enumeration elements(){
+    return toVector().elements();
+  }
+
+}
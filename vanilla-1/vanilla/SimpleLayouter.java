@@ -18,7 +18,7 @@
 // 
 
 
-import DocumentReader;
+import java.util.HashMap;
 
 import org.w3c.dom.Element;
 import org.w3c.dom.Text;
@@ -92,11 +92,6 @@ public class SimpleLayouter
   // --------------------------------------------------
 
 
-  /**
-   * Parameter for default layout computatation
-   */
-  private long geoCount = 0L;
-
 
   // -- AUX -----------------------------------------------------
 
@@ -124,33 +119,63 @@ public class SimpleLayouter
   // ///////////////////////////// METHODS  ///////////////////////////////
   // //////////////////////////////////////////////////////////////////////
 
-  public void layoutTemplate(Element template) 
+  public void layoutTemplate(Element template)
     throws Exception {
-    geoCount = 0L;
-    
+    prepareTemplate(template);
+    placeTemplate(template);
+  }
+
+  /**
+   * Removes the nails of the transitions
+   */
+  public void prepareTemplate(Element template)
+    throws Exception {
+    NodeList transs = fdw.getAllChildrenWithLabel(template, "transition");
+    for(int i=0; i < transs.getLength(); i++){
+      Element trans = (Element)transs.item(i);
+      NodeList nails = fdw.getAllChildrenWithLabel(trans, "nails");
+      for(int j=0 ; j < nails.getLength(); j++){
+	Element nail = (Element)nails.item(j);
+	trans.removeChild(nail);
+      }
+    }
+  }
+
+  /**
+   * Puts the locations on the grid (keeping their coordinates in a table
+   * by ID), then centers the transitions between them
+   */
+  public void placeTemplate(Element template)
+    throws Exception {
+    HashMap coordinates = new HashMap();
+
     // -- Browse Locations -------------------------------------------------
 
     NodeList locs =  fdw.getAllChildrenWithLabel(template, "location");
     for(int i=0; i < locs.getLength(); i++){
       Element loc = (Element)locs.item(i);
-      addDefaultLocationCoordinates(loc);
+      coordinates.put(loc.getAttribute("id"),
+		      addDefaultLocationCoordinates(loc, i));
     }
 
-    // -- Recompute Transitions (remove nails) --------
+    // -- Recompute Transitions --------------------------------------------
     
     NodeList transs = fdw.getAllChildrenWithLabel(template, "transition");
     for(int i=0; i < transs.getLength(); i++){
       Element trans = (Element)transs.item(i);
-      adjustTransition(trans);
-
+      adjustTransition(trans, coordinates);
     }
 
-
   }
 
   // -- Modifications ------------------------------------------------------
 
-  private void addDefaultLocationCoordinates(Element location)
+  /**
+   * Put <TT>location</TT> to grid point number <TT>geoCount</TT> (see
+   * {@link SkewedGridLayouter#gridDiagonal}); returns the coordinates
+   * <TT>{x, y}</TT>
+   */
+  private long[] addDefaultLocationCoordinates(Element location, long geoCount)
     throws Exception {
     if(sanityChecks){
       if(!((location.getTagName()).equals("location")))
@@ -158,57 +183,41 @@ public class SimpleLayouter
 			    location.toString());
     }
 
-    long diag = 0L;
-    long size = 1L; // size of THIS diagonal
-    long count = 0L;
-    while(geoCount >= (size + count)){
-      diag++;
-      count = count + size;
-      size++; 
-    }
-    long position = geoCount - count;
+    long diag = SkewedGridLayouter.gridDiagonal(geoCount);
+    long position = geoCount - diag * (diag + 1L) / 2L;
     long x = (diag - position) * geoXOffset;
     long y = position          * geoYOffset;
 
-    String xCoordinate = "" + (globalGeoXOffset + x);
-    String yCoordinate = "" + (globalGeoYOffset + y);
+    long xCoordinate = globalGeoXOffset + x;
+    long yCoordinate = globalGeoYOffset + y;
 
-    location.setAttribute("x", xCoordinate);
-    location.setAttribute("y", yCoordinate);
+    location.setAttribute("x", "" + xCoordinate);
+    location.setAttribute("y", "" + yCoordinate);
 
-    geoCount++;
+    return new long[]{ xCoordinate, yCoordinate };
   }
 
   /**
    * <H3>Adjust a transition:</H3>
    * <UL>
-   *  <LI>remove nails</LI>
    *  <LI>center coordinates</LI>
    *  <LI>move labels to default points</LI>
    * </UL>
    */
-  private void adjustTransition(Element trans)
+  private void adjustTransition(Element trans, HashMap coordinates)
     throws Exception {
 
-    // -- remove nails (if any) --------------------------------------------
-
-    NodeList nails = fdw.getAllChildrenWithLabel(trans, "nails");
-    for(int j=0 ; j < nails.getLength(); j++){
-      Element nail = (Element)nails.item(j);
-      trans.removeChild(nail);
-    }
-
     // -- center coordinates -----------------------------------------------
 
     Element source = fdw.getTheChildWithLabel(trans, "source");
     Element target = fdw.getTheChildWithLabel(trans, "target");
-    Element sourceLoc = fdw.getElementByID(source.getAttribute("ref"));
-    Element targetLoc = fdw.getElementByID(target.getAttribute("ref"));
+    long[] sourceXY = locationCoordinates(source.getAttribute("ref"), coordinates);
+    long[] targetXY = locationCoordinates(target.getAttribute("ref"), coordinates);
 
-    long sourceX = fdw.getXCoordinate(sourceLoc);
-    long sourceY = fdw.getYCoordinate(sourceLoc);
-    long targetX = fdw.getXCoordinate(targetLoc);
-    long targetY = fdw.getYCoordinate(targetLoc);
+    long sourceX = sourceXY[0];
+    long sourceY = sourceXY[1];
+    long targetX = targetXY[0];
+    long targetY = targetXY[1];
 
     long meanX = (sourceX + targetX)/2L;
     long meanY = (sourceY + targetY)/2L;
@@ -253,4 +262,17 @@ public class SimpleLayouter
 
   }
 
+  /**
+   * Coordinates <TT>{x, y}</TT> of the location with ID <TT>id</TT>: from
+   * the table of the template, else read from the document
+   */
+  private long[] locationCoordinates(String id, HashMap coordinates)
+    throws Exception {
+    long[] xy = (long[])coordinates.get(id);
+    if(null != xy)
+      return xy;
+
+    Element loc = fdw.getElementByID(id);
+    return new long[]{ fdw.getXCoordinate(loc), fdw.getYCoordinate(loc) };
+  }
 }
@@ -20,7 +20,7 @@
 // 
 
 
-import DocumentReader;
+import java.util.Arrays;
 
 import org.w3c.dom.Element;
 import org.w3c.dom.Text;
@@ -36,7 +36,11 @@ import org.w3c.dom.Element;
 //****************************************
 
 /**
- * 
+ * Puts the locations of a template on a skewed grid, filling it diagonal
+ * by diagonal, and moves the labels next to them.<BR>
+ * <BR>
+ * <TT>{@link #placeTemplate}</TT> only sets attributes and keeps no state
+ * in the layouter, so it may run for several templates at once.
  *
  * @author <A HREF="MAILTO:omoeller@brics.dk?subject=SkewedGridLayouter.java%20(Sun%20Apr%201%2015:29:57%202001)">M. Oliver M&ouml;ller</A>
  * @version Sun Apr  1 15:36:47 2001
@@ -108,17 +112,25 @@ public class SkewedGridLayouter
    * Value 0 corresponds to simple grid layout
    */
   public static double xSkew = 20.0d;
-  
-  /**
-   * Parameter for default layout computatation
-   */
-  private long geoCount = 0L;
 
 
   // -- AUX -----------------------------------------------------
 
   private FlatDocumentWriter fdw;
 
+  /**
+   * Coordinates of the placed locations, indexed by the numbers of their
+   * IDs (<TT>originalIDs</TT> of <TT>{@link #fdw}</TT>): <TT>x</TT> at
+   * <TT>2n</TT>, <TT>y</TT> at <TT>2n+1</TT>; <TT>{@link #UNPLACED}</TT> 
+   * if not placed.<BR>
+   * Grown by <TT>{@link #prepareTemplate}</TT> (one thread); 
+   * <TT>{@link #placeTemplate}</TT> only writes the entries of its own 
+   * locations.
+   */
+  private long[] coordinates = new long[0];
+
+  private static final long UNPLACED = Long.MIN_VALUE;
+
   /**
    * Name for (formerly) anonymous locations
    */
@@ -127,7 +139,7 @@ public class SkewedGridLayouter
   /**
    *      Counter for (formerly) anonymous locations
    */
-  private static long newLocNameCount = 0L;
+  private long newLocNameCount = 0L;
 
   public static boolean sanityChecks = true;
 
@@ -151,33 +163,104 @@ public class SkewedGridLayouter
   // ///////////////////////////// METHODS  ///////////////////////////////
   // //////////////////////////////////////////////////////////////////////
 
-  public void layoutTemplate(Element template) 
+  public void layoutTemplate(Element template)
     throws Exception {
-    geoCount = 0L;
-    
+    prepareTemplate(template);
+    placeTemplate(template);
+  }
+
+  /**
+   * Names the anonymous locations (<TT>ANONYMOUS_1, ANONYMOUS_2, ...</TT>,
+   * counted over all templates) and removes the nails of the transitions.
+   * <BR>
+   * Makes room in <TT>{@link #coordinates}</TT> for all IDs there are.
+   */
+  public void prepareTemplate(Element template)
+    throws Exception {
+
+    int needed = 2 * fdw.originalIDs.size();
+    if(needed > coordinates.length){
+      int oldLength = coordinates.length;
+      coordinates = Arrays.copyOf(coordinates, Math.max(needed, 2 * oldLength));
+      Arrays.fill(coordinates, oldLength, coordinates.length, UNPLACED);
+    }
+
+    NodeList locs =  fdw.getAllChildrenWithLabel(template, "location");
+    for(int i=0; i < locs.getLength(); i++){
+      Element loc = (Element)locs.item(i);
+      if(null == fdw.getTheChildWithLabelIfExists(loc, "name")){
+	newLocNameCount++;
+	fdw.addNameToElement(loc, newLocName + newLocNameCount);
+      }
+    }
+
+    NodeList transs = fdw.getAllChildrenWithLabel(template, "transition");
+    for(int i=0; i < transs.getLength(); i++){
+      Element trans = (Element)transs.item(i);
+      NodeList nails = fdw.getAllChildrenWithLabel(trans, "nails");
+      for(int j=0 ; j < nails.getLength(); j++){
+	Element nail = (Element)nails.item(j);
+	trans.removeChild(nail);
+      }
+    }
+  }
+
+  /**
+   * Puts the locations on the skewed grid, then centers the transitions
+   * between them.<BR>
+   * The coordinates of the locations are kept in 
+   * <TT>{@link #coordinates}</TT> (by ID number), so the transitions need 
+   * not look up and parse their source and target.
+   */
+  public void placeTemplate(Element template)
+    throws Exception {
+
     // -- Browse Locations -------------------------------------------------
 
     NodeList locs =  fdw.getAllChildrenWithLabel(template, "location");
     for(int i=0; i < locs.getLength(); i++){
       Element loc = (Element)locs.item(i);
-      addDefaultLocationCoordinates(loc);
-      adjustLocation(loc);
+      long[] xy = addDefaultLocationCoordinates(loc, i);
+      int n = fdw.originalIDs.numberIfExists(loc.getAttribute("id"));
+      if( (n >= 0) && (2*n < coordinates.length) ){
+	coordinates[2*n]     = xy[0];
+	coordinates[2*n + 1] = xy[1];
+      }
+      adjustLocation(loc, xy[0], xy[1]);
     }
 
-    // -- Recompute Transitions (remove nails) --------
-    
+    // -- Recompute Transitions --------------------------------------------
+
     NodeList transs = fdw.getAllChildrenWithLabel(template, "transition");
     for(int i=0; i < transs.getLength(); i++){
       Element trans = (Element)transs.item(i);
       adjustTransition(trans);
-
     }
 
   }
 
+  /**
+   * The diagonal of the grid the <TT>n</TT>-th location goes to (counting
+   * from 0): diagonal <TT>d</TT> holds the <TT>d+1</TT> locations from
+   * number <TT>d(d+1)/2</TT> on.
+   */
+  public static long gridDiagonal(long n){
+    long diag = (long)((Math.sqrt(8.0d * n + 1.0d) - 1.0d) / 2.0d);
+    // -- correct rounding errors of the square root --
+    while(diag * (diag + 1L) / 2L > n)
+      diag--;
+    while((diag + 1L) * (diag + 2L) / 2L <= n)
+      diag++;
+    return diag;
+  }
+
   // -- Modifications ------------------------------------------------------
 
-  private void addDefaultLocationCoordinates(Element location)
+  /**
+   * Put <TT>location</TT> to grid point number <TT>geoCount</TT>; returns
+   * the coordinates <TT>{x, y}</TT>
+   */
+  private long[] addDefaultLocationCoordinates(Element location, long geoCount)
     throws Exception {
     if(sanityChecks){
       if(!((location.getTagName()).equals("location")))
@@ -185,25 +268,18 @@ public class SkewedGridLayouter
 			    location.toString());
     }
 
-    long diag = 0L;
-    long size = 1L; // size of THIS diagonal
-    long count = 0L;
-    while(geoCount >= (size + count)){
-      diag++;
-      count = count + size;
-      size++; 
-    }
-    long position = geoCount - count;
+    long diag = gridDiagonal(geoCount);
+    long position = geoCount - diag * (diag + 1L) / 2L;
     long x = (diag - position) * geoXOffset;
     long y = position          * geoYOffset;
 
-    String xCoordinate = "" + (globalGeoXOffset + x  + (long)(ySkew*oddSq(position)*position*position));
-    String yCoordinate = "" + (globalGeoYOffset + y  + (long)(xSkew*oddSq(diag-position)*(diag-position)*(diag-position)));
+    long xCoordinate = globalGeoXOffset + x  + (long)(ySkew*oddSq(position)*position*position);
+    long yCoordinate = globalGeoYOffset + y  + (long)(xSkew*oddSq(diag-position)*(diag-position)*(diag-position));
 
-    location.setAttribute("x", xCoordinate);
-    location.setAttribute("y", yCoordinate);
+    location.setAttribute("x", "" + xCoordinate);
+    location.setAttribute("y", "" + yCoordinate);
 
-    geoCount++;
+    return new long[]{ xCoordinate, yCoordinate };
   }
   /**
    * -1 if odd, 1 if even
@@ -218,7 +294,6 @@ public class SkewedGridLayouter
   /**
    * <H3>Adjust a transition:</H3>
    * <UL>
-   *  <LI>remove nails</LI>
    *  <LI>center coordinates</LI>
    *  <LI>move labels to default points</LI>
    * </UL>
@@ -226,25 +301,17 @@ public class SkewedGridLayouter
   private void adjustTransition(Element trans)
     throws Exception {
 
-    // -- remove nails (if any) --------------------------------------------
-
-    NodeList nails = fdw.getAllChildrenWithLabel(trans, "nails");
-    for(int j=0 ; j < nails.getLength(); j++){
-      Element nail = (Element)nails.item(j);
-      trans.removeChild(nail);
-    }
-
     // -- center coordinates -----------------------------------------------
 
     Element source = fdw.getTheChildWithLabel(trans, "source");
     Element target = fdw.getTheChildWithLabel(trans, "target");
-    Element sourceLoc = fdw.getElementByID(source.getAttribute("ref"));
-    Element targetLoc = fdw.getElementByID(target.getAttribute("ref"));
+    long[] sourceXY = locationCoordinates(source.getAttribute("ref"));
+    long[] targetXY = locationCoordinates(target.getAttribute("ref"));
 
-    long sourceX = fdw.getXCoordinate(sourceLoc);
-    long sourceY = fdw.getYCoordinate(sourceLoc);
-    long targetX = fdw.getXCoordinate(targetLoc);
-    long targetY = fdw.getYCoordinate(targetLoc);
+    long sourceX = sourceXY[0];
+    long sourceY = sourceXY[1];
+    long targetX = targetXY[0];
+    long targetY = targetXY[1];
 
     long meanX = (sourceX + targetX)/2L;
     long meanY = (sourceY + targetY)/2L;
@@ -289,30 +356,37 @@ public class SkewedGridLayouter
 
   }
   /**
-   * <H3>Adjust a location:</H3>
+   * Coordinates <TT>{x, y}</TT> of the location with ID <TT>id</TT>: from
+   * <TT>{@link #coordinates}</TT>, else read from the document
+   */
+  private long[] locationCoordinates(String id)
+    throws Exception {
+    int n = fdw.originalIDs.numberIfExists(id);
+    if( (n >= 0) && (2*n < coordinates.length) &&
+	(UNPLACED != coordinates[2*n]) )
+      return new long[]{ coordinates[2*n], coordinates[2*n + 1] };
+
+    Element loc = fdw.getElementByID(id);
+    return new long[]{ fdw.getXCoordinate(loc), fdw.getYCoordinate(loc) };
+  }
+
+  /**
+   * <H3>Adjust a location</H3> at <TT>(locX, locY)</TT>:
    * <UL>
-   *  <LI>creates name, if not present</LI>
    *  <LI>moves names</LI>
    *  <LI>moves labels</LI>
    *  <LI>moves invariants (if any)</LI>
    * </UL>
    */
-  private void adjustLocation(Element loc)
+  private void adjustLocation(Element loc, long locX, long locY)
     throws Exception {
 
     if(debug)
       System.out.println("==Location: " + loc.getAttribute("id"));
 
-    long locX = fdw.getXCoordinate(loc);
-    long locY = fdw.getYCoordinate(loc);
-
-    // -- Adjust name ---------------------------------
+    // -- Adjust name (see prepareTemplate) -----------
 
-    Element name = fdw.getTheChildWithLabelIfExists(loc, "name");
-    if(null == name){
-      newLocNameCount++;
-      name = fdw.addNameToElement(loc, newLocName + newLocNameCount);
-    }
+    Element name = fdw.getTheChildWithLabel(loc, "name");
     name.setAttribute("x", "" + (locX + locNameXShift));
     name.setAttribute("y", "" + (locY + locNameYShift));
     
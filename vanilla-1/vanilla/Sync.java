@@ -0,0 +1,132 @@
+// -*- mode: JDE; c-basic-offset: 2; -*-
+// /////////////////////////////////////////////////////////////
+// A synchronisation: channel plus direction
+//
+// Synopsis:
+//  Huppaal
+// /////////////////////////////////////////////////////////////
+// @FILE:    Sync.java
+// @FORMAT:  java
+// @AUTHOR:  agent     <agent@local>
+// @BEGUN:   Sat Oct 17 18:02:41 2026
+// @VERSION: Vanilla-1                  Sat Oct 17 18:02:41 2026
+// /////////////////////////////////////////////////////////////
+//
+
+import java.lang.*;
+
+//**** from other packages
+
+//****************************************
+
+/**
+ * A <TT>sync</TT> as used by the {@link ChannelRegistry}: the channel name
+ * and the direction (<TT>!</TT> or <TT>?</TT>), parsed once.<BR>
+ * <BR>
+ * Two syncs are equal, iff channel and direction are; <TT>toString</TT>
+ * gives back the text, e.g. <TT>a!</TT>. Not changed after construction.
+ *
+ * @see ChannelRegistry ChannelSplitter
+ * @author <A HREF="MAILTO:agent@local?subject=Sync.java%20(Vanilla-1%20Sat%20Oct%2017%2018:02:41%202026)">agent</A>
+ * @version Vanilla-1                  Sat Oct 17 18:02:41 2026
+ */
+public class Sync  {
+
+  // //////////////////////////////////////////////////////////////////////
+  // ////////////////////////////// FIELDS ////////////////////////////////
+  // //////////////////////////////////////////////////////////////////////
+
+  public static final char SEND    = '!';
+  public static final char RECEIVE = '?';
+
+  /**
+   * The channel name
+   */
+  public final String channel;
+
+  /**
+   * <TT>{@link #SEND}</TT> or <TT>{@link #RECEIVE}</TT>
+   */
+  public final char direction;
+
+  /**
+   * The text (computed once)
+   */
+  private final String text;
+
+  // //////////////////////////////////////////////////////////////////////
+  // //////////////////////////  CONSTRUCTORS  ////////////////////////////
+  // //////////////////////////////////////////////////////////////////////
+
+  /**
+   * Default Constructor
+   */
+  public Sync(String theChannel, char theDirection){
+    channel = theChannel;
+    direction = theDirection;
+    text = theChannel + theDirection;
+  }
+
+  // //////////////////////////////////////////////////////////////////////
+  // ///////////////////////////// METHODS  ///////////////////////////////
+  // //////////////////////////////////////////////////////////////////////
+
+  /**
+   * Parse a sync, i.e. a channel name followed by <TT>!</TT> or
+   * <TT>?</TT> (and no other <TT>!</TT> or <TT>?</TT>).<BR>
+   * Throw Exception, if the input is not a <TT>sync</TT>.
+   */
+  public static Sync parse(String sync)
+    throws Exception {
+    Sync result = parseIfValid(sync);
+    if(null == result)
+      throw new Exception("ERROR: not a valid sync: >>" + sync + "<<");
+    return result;
+  }
+
+  /**
+   * As <TT>{@link #parse}</TT>, but returns <TT>null</TT>, if the input
+   * is not a <TT>sync</TT>.
+   */
+  public static Sync parseIfValid(String sync){
+    int firstShriek = sync.indexOf(SEND);
+    int firstQuery  = sync.indexOf(RECEIVE);
+    if( ( (firstShriek < 0) && (firstQuery < 0)) ||
+	( (firstShriek >= 0) && (firstQuery >= 0)) ||
+	( ChannelRegistry.max(firstShriek, firstQuery) != (sync.length() -1) ) )
+      return null;
+
+    return new Sync(sync.substring(0, sync.length() -1),
+		    sync.charAt(sync.length() -1));
+  }
+
+  /**
+   * The matching sync (handshake): same channel, other direction
+   */
+  public Sync matching(){
+    return new Sync(channel, (SEND == direction) ? RECEIVE : SEND);
+  }
+
+  /**
+   * The same direction on <TT>newChannel</TT>
+   */
+  public Sync onChannel(String newChannel){
+    return new Sync(newChannel, direction);
+  }
+
+  public boolean equals(Object o){
+    if(!(o instanceof Sync))
+      return false;
+    Sync other = (Sync)o;
+    return (direction == other.direction) && channel.equals(other.channel);
+  }
+
+  public int hashCode(){
+    return text.hashCode();
+  }
+
+  public String toString(){
+    return text;
+  }
+
+}
@@ -24,7 +24,11 @@ import org.w3c.dom.Element;
 //****************************************
 
 /**
- * 
+ * A conflict for Phase III: a {@link Sync} on a transition, coming from a
+ * textual instantiation.<BR>
+ * <BR>
+ * Two triples are equal, iff the syncs are equal and transition and tinst
+ * are the same objects.
  *
  * @author <A HREF="MAILTO:omoeller@brics.dk?subject=SyncTransTinstTriple.java%20(Mon%20Apr%209%2011:23:49%202001)">M. Oliver M&ouml;ller</A>
  * @version Mon Apr  9 11:30:36 2001
@@ -36,7 +40,7 @@ public class SyncTransTinstTriple  {
   // ////////////////////////////// FIELDS ////////////////////////////////
   // //////////////////////////////////////////////////////////////////////
 
-  public String  sync;
+  public Sync    sync;
   public Element trans;
   public TextualInstantiation tinst;
 
@@ -47,7 +51,7 @@ public class SyncTransTinstTriple  {
   /**
    * Default Constructor
    */
-  public SyncTransTinstTriple(String theSync, 
+  public SyncTransTinstTriple(Sync theSync, 
 			      Element theTrans, 
 			      TextualInstantiation theTinst){
     sync = theSync;
@@ -55,4 +59,21 @@ public class SyncTransTinstTriple  {
     tinst = theTinst;    
   }
 
+  // //////////////////////////////////////////////////////////////////////
+  // ///////////////////////////// METHODS  ///////////////////////////////
+  // //////////////////////////////////////////////////////////////////////
+
+  public boolean equals(Object o){
+    if(!(o instanceof SyncTransTinstTriple))
+      return false;
+    SyncTransTinstTriple other = (SyncTransTinstTriple)o;
+    return (trans == other.trans) && (tinst == other.tinst) &&
+      sync.equals(other.sync);
+  }
+
+  public int hashCode(){
+    return sync.hashCode() ^ System.identityHashCode(trans) ^ 
+      System.identityHashCode(tinst);
+  }
+
 }
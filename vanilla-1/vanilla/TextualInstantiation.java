@@ -42,10 +42,10 @@ public class TextualInstantiation  {
   // ////////////////////////////////////////
   
   /**
-   * Counter to provide unique object names
+   * Counters to provide unique object names and exit signals
    *
    */
-  static long objectCounter = 0L;
+  private NameAllocator names;
    
   /**
    * The name of the incarnated object
@@ -138,11 +138,6 @@ public class TextualInstantiation  {
    */
   static boolean debug = true;
  
-  // -----------------------------------------------------------------------
-  /**
-   * Auxillary Variable, to make exit signals unique.
-   */
-  private static int exitSignalCounter = 0;
 
   // ////////////////////////////////////////
   // //////////  CONSTRUCTORS  //////////////
@@ -159,11 +154,13 @@ public class TextualInstantiation  {
    * <LI><TT>templateElement</TT> is the node in the hierarchical document 
    * that is instanciated<BR>
    * (for the kicker, this is <TT>null</TT>)</LI>
+   *  <LI><TT>theNames</TT> are the counters of the flattening session</LI>
    * </UL>
    * <B>NOTE:</B>Equivalently, you can call the empty constructor and
    * later call <TT>{@link #setup}</TT> with the same arguments.
    */
-  public TextualInstantiation(String objectPrefix, 
+  public TextualInstantiation(NameAllocator theNames,
+			      String objectPrefix, 
 			      Vector v,
 			      TextualInstantiation fatherPointer,
 			      Element tplElement,
@@ -171,6 +168,7 @@ public class TextualInstantiation  {
 			      Element theTranslation)
     throws Exception {
   
+    names = theNames;
     originalInstantiationName = objectPrefix;
 
     inventExitSignal();
@@ -180,7 +178,8 @@ public class TextualInstantiation  {
   /**
    * Empty Constructor; use <TT>{@link #setup}</TT> to fill with meaning.
    */
-  public TextualInstantiation(){
+  public TextualInstantiation(NameAllocator theNames){
+    names = theNames;
     inventExitSignal();
   }
 
@@ -284,9 +283,8 @@ public class TextualInstantiation  {
   /**
    * uniqueName, due to containment of non-user string "--"
    */
-  private static String getFreshObjectName(String objectPrefix){
-    objectCounter++;
-    return DocumentWriter.makeNameSafe(objectPrefix + "--" + objectCounter);
+  private String getFreshObjectName(String objectPrefix){
+    return DocumentWriter.makeNameSafe(objectPrefix + "--" + names.next(NameAllocator.OBJECT));
   }
 
   /**
@@ -296,8 +294,7 @@ public class TextualInstantiation  {
    *     
    */
   private void inventExitSignal(){
-    exitSignalCounter++;
-    exitSignal = FlatDocumentWriter.makeSignalSafe(("exitSignal_NR_" + exitSignalCounter));
+    exitSignal = FlatDocumentWriter.makeSignalSafe(("exitSignal_NR_" + names.next(NameAllocator.EXIT_SIGNAL)));
   }
 
 }
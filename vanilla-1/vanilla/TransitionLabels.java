@@ -0,0 +1,207 @@
+// -*- mode: JDE; c-basic-offset: 2; -*-
+// /////////////////////////////////////////////////////////////
+// The labels of a flat transition, while it is being built
+//
+// Synopsis:
+//  Huppaal
+// /////////////////////////////////////////////////////////////
+// @FILE:    TransitionLabels.java
+// @FORMAT:  java
+// @AUTHOR:  agent     <agent@local>
+// @BEGUN:   Sat Oct 17 20:31:48 2026
+// @VERSION: Vanilla-1                  Sat Oct 17 20:31:48 2026
+// /////////////////////////////////////////////////////////////
+//
+
+import java.lang.*;
+
+import java.util.Vector;
+import java.util.Enumeration;
+
+//**** from other packages
+
+//****************************************
+
+/**
+ * Collects guard, synchronisation and assignment of one transition of the
+ * flat document, as long as the translation runs: the guard as a list of
+ * conjuncts, the assignment as a list of assignments, and (at most) one
+ * synchronisation.<BR>
+ * <BR>
+ * The {@link FlatDocumentWriter} turns them into <TT>&lt;label&gt;</TT>
+ * children only once, at <TT>complete()</TT>; until then, the transition
+ * Element has no labels.<BR>
+ * <BR>
+ * The texts are joined as by appending to the text of the label: a part
+ * is separated by <TT>", "</TT> from the ones before, unless these are
+ * all blank.
+ *
+ * @see FlatDocumentWriter#complete
+ * @author <A HREF="MAILTO:agent@local?subject=TransitionLabels.java%20(Vanilla-1%20Sat%20Oct%2017%2020:31:48%202026)">agent</A>
+ * @version Vanilla-1                  Sat Oct 17 20:31:48 2026
+ */
+public class TransitionLabels  {
+
+  // //////////////////////////////////////////////////////////////////////
+  // ////////////////////////////// FIELDS ////////////////////////////////
+  // //////////////////////////////////////////////////////////////////////
+
+  /**
+   * Conjuncts of the guard (<TT>String</TT>s); <TT>null</TT>: no guard
+   */
+  private Vector guards;
+
+  /**
+   * Parts of the assignment (<TT>String</TT>s); <TT>null</TT>: no
+   * assignment
+   */
+  private Vector assignments;
+
+  /**
+   * Text of the synchronisation; <TT>null</TT>: none
+   */
+  private String synchronisation;
+
+  // //////////////////////////////////////////////////////////////////////
+  // //////////////////////////  CONSTRUCTORS  ////////////////////////////
+  // //////////////////////////////////////////////////////////////////////
+
+  /**
+   * Default Constructor: no labels
+   */
+  public TransitionLabels(){
+  }
+
+  /**
+   * Copy Constructor (for cloned transitions)
+   */
+  public TransitionLabels(TransitionLabels other){
+    if(null != other.guards)
+      guards = (Vector)other.guards.clone();
+    if(null != other.assignments)
+      assignments = (Vector)other.assignments.clone();
+    synchronisation = other.synchronisation;
+  }
+
+  // //////////////////////////////////////////////////////////////////////
+  // ///////////////////////////// METHODS  ///////////////////////////////
+  // //////////////////////////////////////////////////////////////////////
+
+  /**
+   * Start the guard with <TT>text</TT>.<BR>
+   * Throws an exception, if there is a guard already.
+   */
+  public void addGuard(String text)
+    throws Exception {
+    if(null != guards)
+      throw new Exception("ERROR: the transition has more than one guard label:\n" +
+			  guardText() + "\n" + text);
+    guards = new Vector();
+    guards.addElement(text);
+  }
+
+  /**
+   * Build the <EM>logical AND</EM> of the guard with <TT>text</TT> (start
+   * the guard, if there is none)
+   */
+  public void conjunctGuard(String text){
+    if(null == guards)
+      guards = new Vector();
+    guards.addElement(text);
+  }
+
+  /**
+   * Start the assignment with <TT>text</TT>.<BR>
+   * Throws an exception, if there is an assignment already.
+   */
+  public void addAssignment(String text)
+    throws Exception {
+    if(null != assignments)
+      throw new Exception("ERROR: the transition has more than one assignment label:\n" +
+			  assignmentText() + "\n" + text);
+    assignments = new Vector();
+    assignments.addElement(text);
+  }
+
+  /**
+   * Append <TT>text</TT> to the assignment (start the assignment, if there
+   * is none)
+   */
+  public void conjunctAssignment(String text){
+    if(null == assignments)
+      assignments = new Vector();
+    assignments.addElement(text);
+  }
+
+  /**
+   * Set the synchronisation.<BR>
+   * Throws an exception, if there is one already.
+   */
+  public void addSynchronisation(String text)
+    throws Exception {
+    if(null != synchronisation)
+      throw new Exception("ERROR: the transition has more than one synchronisation label:\n" +
+			  synchronisation + "\n" + text);
+    synchronisation = text;
+  }
+
+  /**
+   * Replace the synchronisation.<BR>
+   * Throws an exception, if there is none.
+   */
+  public void changeSynchronisation(String text)
+    throws Exception {
+    if(null == synchronisation)
+      throw new Exception("ERROR: no syncronisation declared; cannot change it to >>" +
+			  text + "<<");
+    synchronisation = text;
+  }
+
+  /**
+   * Text of the guard; <TT>null</TT>, if there is none
+   */
+  public String guardText(){
+    return join(guards);
+  }
+
+  /**
+   * Text of the synchronisation; <TT>null</TT>, if there is none
+   */
+  public String synchronisationText(){
+    return synchronisation;
+  }
+
+  /**
+   * Text of the assignment; <TT>null</TT>, if there is none
+   */
+  public String assignmentText(){
+    return join(assignments);
+  }
+
+  // =================================================================
+  // Auxillary Methods (internal)
+  // =================================================================
+
+  /**
+   * Join the parts, separated by <TT>", "</TT> (only after some
+   * non-blank text)
+   */
+  private static String join(Vector parts){
+    if(null == parts)
+      return null;
+    if(parts.size() == 1)
+      return (String)parts.elementAt(0);
+
+    StringBuffer result = new StringBuffer();
+    boolean blank = true;
+    for(Enumeration e = parts.elements(); e.hasMoreElements(); ){
+      String part = (String)e.nextElement();
+      if(!blank)
+	result.append(", ");
+      result.append(part);
+      blank = blank && ((part.trim()).length() == 0);
+    }
+    return result.toString();
+  }
+
+}